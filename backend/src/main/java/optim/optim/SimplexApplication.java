@@ -1,7 +1,18 @@
 package optim.optim;
 
+import java.util.Map;
+
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+
+import optim.optim.controller.MainController;
+import optim.optim.response.BinaryOutput;
 
 import optim.optim.src.Config;
 
@@ -23,7 +34,29 @@ public class SimplexApplication {
         // load config
         Config.load();
         // launch the application
-        SpringApplication.run(SimplexApplication.class, args);
+        SpringApplication application = new SpringApplication(SimplexApplication.class);
+        // the requests only wait for the solver threads, so they can be virtual
+        application.setDefaultProperties(Map.of("spring.threads.virtual.enabled",
+                String.valueOf(Config.Solvers_VirtualThreads())));
+        application.run(args);
+    }
+
+    /**
+     * Compress the responses with gzip, as set in the config. The steps repeat the
+     * same fractions over and over, so they shrink a lot.
+     *
+     * @return The customizer of the web server.
+     */
+    @Bean
+    public WebServerFactoryCustomizer<ConfigurableServletWebServerFactory> compression() {
+        return (factory) -> {
+            Compression compression = new Compression();
+            compression.setEnabled(Config.Responses_Compression());
+            compression.setMimeTypes(new String[] { MediaType.APPLICATION_JSON_VALUE, BinaryOutput.MEDIA_TYPE,
+                    MainController.NDJSON });
+            compression.setMinResponseSize(DataSize.ofBytes(Config.Responses_CompressionMinSize()));
+            factory.setCompression(compression);
+        };
     }
 
 }
@@ -1,16 +1,53 @@
 package optim.optim.controller;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import optim.optim.controller.body.AdvancedOptions;
 import optim.optim.controller.body.SimplexForm;
+import optim.optim.response.BinaryOutput;
+import optim.optim.response.LatexRenderer;
 import optim.optim.response.SimplexResponse;
+import optim.optim.service.BatchSolver;
 import optim.optim.service.SimplexService;
+import optim.optim.service.SolveCache;
+import optim.optim.service.SolveJob;
+import optim.optim.service.SolveJobs;
+import optim.optim.service.SolveStore;
+import optim.optim.src.Config;
+import optim.optim.src.log.Logger;
+import optim.optim.src.simplex.data.StepRetention.Policy;
 
 /**
  * Main controller. Manage the main routes.
@@ -21,6 +58,9 @@ public class MainController {
     public MainController() {
     }
 
+    /** Media type of the streamed steps, one JSON value per line. */
+    public static final String NDJSON = "application/x-ndjson";
+
     /**
      * Service used to manage the simplex resolution method.
      */
@@ -28,19 +68,604 @@ public class MainController {
     private SimplexService simplexService;
 
     /**
-     * Endpoint for simplex resolution.
+     * Store of the solves, to fetch their steps page by page.
+     */
+    @Autowired
+    private SolveStore solveStore;
+
+    /**
+     * Jobs solving the forms in the background.
+     */
+    @Autowired
+    private SolveJobs solveJobs;
+
+    /**
+     * Solves the forms sent in batches.
+     */
+    @Autowired
+    private BatchSolver batchSolver;
+
+    /**
+     * Reads the forms of the NDJSON batches, configured like the request bodies.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Renders the tables as LaTeX, for the clients asking for it. Shared by every
+     * request, so the fragments cached serve all of them.
+     */
+    private final LatexRenderer latexRenderer = new LatexRenderer();
+
+    /**
+     * Endpoint for simplex resolution. The response is written straight to the
+     * output stream, as the steps can make it very large.
+     * <p>
+     * A solved response is tagged with a hash of the form. Sending the same form
+     * again with this tag in the If-None-Match header returns 304, without solving
+     * it. The tag is weak, as the steps of a parallel search may differ.
+     *
+     * @param simplexForm The requested form.
+     * @param accept      The Accept header. The response is written as binary if
+     *                    {@link BinaryOutput#MEDIA_TYPE} is preferred to JSON.
+     *                    With a {@code latex=true} parameter, the tables are also
+     *                    rendered as LaTeX, see {@link #wantsLatex(String)}.
+     * @param ifNoneMatch The If-None-Match header, with the tags of the responses
+     *                    the client already has.
+     * @param response    The HTTP response where the {@link SimplexResponse} is
+     *                    written as JSON.
+     * @throws IOException If the response can't be written.
+     */
+    @CrossOrigin(exposedHeaders = HttpHeaders.ETAG)
+    @PostMapping(value = "/", produces = { MediaType.APPLICATION_JSON_VALUE, BinaryOutput.MEDIA_TYPE })
+    public void postController(@RequestBody SimplexForm simplexForm,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletResponse response) throws IOException {
+        final boolean binary = prefersBinary(accept);
+        final LatexRenderer latex = !binary && wantsLatex(accept) ? latexRenderer : null;
+        // each encoding is told apart, as a client may ask for each
+        final String hash = simplexService.hash(simplexForm);
+        final String tag = hash == null ? null
+                : "W/\"" + hash + (binary ? "-bin" : latex != null ? "-latex" : "") + "\"";
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (tag != null && matchesTag(ifNoneMatch, tag)) {
+            response.setHeader(HttpHeaders.ETAG, tag);
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        SimplexResponse res = new SimplexResponse();
+        if (simplexForm == null) {
+            res.setStatus(HttpStatus.NOT_ACCEPTABLE);
+        } else {
+            res = simplexService.solve(simplexForm);
+        }
+        setBusy(res, response);
+        // errors are not tagged, they may not happen again
+        if (tag != null && HttpStatus.valueOf(res.code).is2xxSuccessful()) {
+            response.setHeader(HttpHeaders.ETAG, tag);
+        }
+
+        if (binary) {
+            final BinaryOutput out = openBinary(response);
+            res.writeBinary(out, true);
+            out.flush();
+            return;
+        }
+        final Writer writer = openWriter(response);
+        res.writeJson(writer, true, latex);
+        writer.flush();
+    }
+
+    /**
+     * Endpoint for simplex resolution, without the steps. The solve is kept on the
+     * server for a while, and its steps can be fetched page by page with
+     * {@link #getSteps(String, int, Integer, String, HttpServletResponse)}, using the id
+     * of the response.
+     *
+     * @param simplexForm The requested form.
+     * @param accept      The Accept header. The response is written as binary if
+     *                    {@link BinaryOutput#MEDIA_TYPE} is preferred to JSON.
+     * @param response    The HTTP response where the {@link SimplexResponse} is
+     *                    written as JSON, without its steps.
+     * @throws IOException If the response can't be written.
+     */
+    @CrossOrigin
+    @PostMapping(value = "/solves", produces = { MediaType.APPLICATION_JSON_VALUE, BinaryOutput.MEDIA_TYPE })
+    public void postSolve(@RequestBody SimplexForm simplexForm,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept, HttpServletResponse response)
+            throws IOException {
+        SimplexResponse res = new SimplexResponse();
+        if (simplexForm == null) {
+            res.setStatus(HttpStatus.NOT_ACCEPTABLE);
+        } else {
+            res = simplexService.solve(simplexForm);
+            solveStore.put(res);
+        }
+        setBusy(res, response);
+
+        if (prefersBinary(accept)) {
+            final BinaryOutput out = openBinary(response);
+            res.writeBinary(out, false);
+            out.flush();
+            return;
+        }
+        final Writer writer = openWriter(response);
+        res.writeJson(writer, false);
+        writer.flush();
+    }
+
+    /**
+     * Endpoint for simplex resolution, streaming each step as soon as it is made.
+     * The response is written as NDJSON: one {@code {"step":...}} line per step,
+     * with its whole table, and a last {@code {"result":...}} line with the
+     * {@link SimplexResponse}, without its steps. The steps are not kept on the
+     * server.
      *
      * @param simplexForm The requested form.
-     * @return A {@link SimplexResponse} to string.
+     * @param accept      The Accept header. With a {@code latex=true} parameter,
+     *                    the tables are also rendered as LaTeX, see
+     *                    {@link #wantsLatex(String)}.
+     * @param response    The HTTP response where the steps and the result are
+     *                    written.
+     * @throws IOException If the response can't be written.
      */
     @CrossOrigin
-    @PostMapping(value = "/", produces = MediaType.APPLICATION_JSON_VALUE)
-    public String postController(@RequestBody SimplexForm simplexForm) {
+    @PostMapping(value = "/solves/stream", produces = NDJSON)
+    public void postStream(@RequestBody SimplexForm simplexForm,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response) throws IOException {
+        final LatexRenderer latex = wantsLatex(accept) ? latexRenderer : null;
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        final Writer writer = new BufferedWriter(
+                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+
         SimplexResponse res = new SimplexResponse();
         if (simplexForm == null) {
-            return res.setStatus(HttpStatus.NOT_ACCEPTABLE).toString();
+            res.setStatus(HttpStatus.NOT_ACCEPTABLE);
+        } else {
+            // every step is streamed, so none need to be kept
+            if (simplexForm.advanced == null) {
+                simplexForm.advanced = new AdvancedOptions();
+            }
+            simplexForm.advanced.stepRetention = Policy.SUMMARY.name();
+            res = simplexService.solve(simplexForm, (step, table) -> {
+                try {
+                    writer.write("{\"step\":");
+                    step.writeJson(writer, table, latex, table);
+                    writer.write("}\n");
+                    writer.flush();
+                } catch (IOException e) {
+                    // the client is gone, stop the resolution
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        // nothing has been written if the resolution has been refused
+        setBusy(res, response);
+        writer.write("{\"result\":");
+        res.writeJson(writer, false);
+        writer.write("}\n");
+        writer.flush();
+    }
+
+    /**
+     * Endpoint for a page of the steps of a solve.
+     *
+     * @param id       The id of the solve.
+     * @param from     Index of the first step sent.
+     * @param limit    Maximum amount of steps sent. Default and maximum: the config
+     *                 page size.
+     * @param accept   The Accept header. The page is written as binary if
+     *                 {@link BinaryOutput#MEDIA_TYPE} is preferred to JSON. With
+     *                 a {@code latex=true} parameter, the tables are also
+     *                 rendered as LaTeX, see {@link #wantsLatex(String)}.
+     * @param response The HTTP response where the page is written as JSON, or a
+     *                 {@link SimplexResponse} with the error.
+     * @throws IOException If the response can't be written.
+     */
+    @CrossOrigin
+    @GetMapping(value = "/solves/{id}/steps", produces = { MediaType.APPLICATION_JSON_VALUE,
+            BinaryOutput.MEDIA_TYPE })
+    public void getSteps(@PathVariable String id, @RequestParam(defaultValue = "0") int from,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept, HttpServletResponse response)
+            throws IOException {
+        final int maxPageSize = Config.Solves_MaxPageSize();
+        final int pageSize = limit == null ? maxPageSize : limit;
+        SimplexResponse error = null;
+        final SimplexResponse res = solveStore.get(id);
+
+        // a JSON object is returned as status, like the solve errors
+        if (from < 0) {
+            error = new SimplexResponse().setStatus("{\"from\":{\"min\":0,\"received\":" + from + "}}");
+        } else if (pageSize < 1 || pageSize > maxPageSize) {
+            error = new SimplexResponse().setStatus("{\"limit\":{\"min\":1,\"max\":" + maxPageSize +
+                    ",\"received\":" + pageSize + "}}");
+        } else if (res == null) {
+            // unknown or expired
+            error = new SimplexResponse().setStatus(HttpStatus.NOT_FOUND, "{\"id\":{\"received\":\"" + id + "\"}}");
+        }
+
+        if (error != null) {
+            response.setStatus(error.code);
+        }
+        if (prefersBinary(accept)) {
+            final BinaryOutput out = openBinary(response);
+            if (error != null) {
+                error.writeBinary(out, true);
+            } else {
+                res.writePage(out, from, pageSize);
+            }
+            out.flush();
+            return;
+        }
+        final Writer writer = openWriter(response);
+        if (error != null) {
+            error.writeJson(writer);
+        } else {
+            res.writePage(writer, from, pageSize, wantsLatex(accept) ? latexRenderer : null);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Endpoint for simplex resolution in the background. The form is queued, and
+     * the job is answered at once with its id and status, so the request doesn't
+     * wait for the resolution. Its result is fetched with
+     * {@link #getJob(String, String, HttpServletResponse)}.
+     *
+     * @param simplexForm The requested form.
+     * @param response    The HTTP response where the job is written as JSON, or a
+     *                    {@link SimplexResponse} with the error if too many jobs
+     *                    are waiting.
+     * @throws IOException If the response can't be written.
+     */
+    @CrossOrigin
+    @PostMapping(value = "/jobs", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void postJob(@RequestBody SimplexForm simplexForm, HttpServletResponse response) throws IOException {
+        SolveJob job = null;
+        SimplexResponse error = null;
+        if (simplexForm == null) {
+            error = new SimplexResponse().setStatus(HttpStatus.NOT_ACCEPTABLE);
+        } else {
+            try {
+                job = solveJobs.submit(simplexForm);
+            } catch (RejectedExecutionException e) {
+                error = new SimplexResponse().setStatus(HttpStatus.SERVICE_UNAVAILABLE,
+                        "{\"jobs\":{\"maxQueued\":" + Config.Jobs_MaxQueued() + "}}");
+            }
+        }
+
+        final Writer writer = openWriter(response);
+        if (error != null) {
+            response.setStatus(error.code);
+            setBusy(error, response);
+            error.writeJson(writer, false);
+        } else {
+            response.setStatus(HttpStatus.ACCEPTED.value());
+            job.writeJson(writer, null);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Get the status of a job, and its response with the steps once done.
+     *
+     * @param id       The id of the job.
+     * @param accept   The Accept header. With a {@code latex=true} parameter, the
+     *                 tables are also rendered as LaTeX, see
+     *                 {@link #wantsLatex(String)}.
+     * @param response The HTTP response where the job is written as JSON, or a
+     *                 {@link SimplexResponse} with the error.
+     * @throws IOException If the response can't be written.
+     */
+    @CrossOrigin
+    @GetMapping(value = "/jobs/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getJob(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept, HttpServletResponse response)
+            throws IOException {
+        writeJob(id, solveJobs.get(id), wantsLatex(accept) ? latexRenderer : null, response);
+    }
+
+    /**
+     * Cancel a job. A queued job is dropped, and a running one stops at the next
+     * iteration. A job already done is left as is.
+     *
+     * @param id       The id of the job.
+     * @param response The HTTP response where the job is written as JSON, or a
+     *                 {@link SimplexResponse} with the error.
+     * @throws IOException If the response can't be written.
+     */
+    @CrossOrigin
+    @DeleteMapping(value = "/jobs/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void deleteJob(@PathVariable String id, HttpServletResponse response) throws IOException {
+        writeJob(id, solveJobs.cancel(id), null, response);
+    }
+
+    /**
+     * Write a job as JSON, or a not found error.
+     *
+     * @param id       The id of the job asked for.
+     * @param job      The job, or null if it is unknown or has expired.
+     * @param latex    Renders the tables as LaTeX. Can be null.
+     * @param response The HTTP response.
+     * @throws IOException If the response can't be written.
+     */
+    private static void writeJob(String id, SolveJob job, LatexRenderer latex, HttpServletResponse response)
+            throws IOException {
+        final Writer writer = openWriter(response);
+        if (job == null) {
+            final SimplexResponse error = new SimplexResponse().setStatus(HttpStatus.NOT_FOUND,
+                    "{\"id\":{\"received\":\"" + id + "\"}}");
+            response.setStatus(error.code);
+            error.writeJson(writer, false);
+        } else {
+            job.writeJson(writer, latex);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Endpoint for the resolution of many forms in a single request, sent as a
+     * JSON array. See {@link #postBatchStream(HttpServletRequest, String, HttpServletResponse)}
+     * for the response.
+     *
+     * @param simplexForms The requested forms.
+     * @param accept       The Accept header. With a {@code latex=true} parameter,
+     *                     the tables are also rendered as LaTeX, see
+     *                     {@link #wantsLatex(String)}.
+     * @param response     The HTTP response where the results are written.
+     * @throws IOException If the response can't be written.
+     */
+    @CrossOrigin
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = NDJSON)
+    public void postBatch(@RequestBody List<SimplexForm> simplexForms,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response) throws IOException {
+        writeBatch(simplexForms == null ? List.<SimplexForm>of().iterator() : simplexForms.iterator(), accept,
+                response);
+    }
+
+    /**
+     * Endpoint for the resolution of many forms in a single request, sent as
+     * NDJSON, one form per line. The forms are solved in parallel while the lines
+     * are read, so the batch can be of any length.
+     * <p>
+     * The response is written as NDJSON, with one
+     * {@code {"index":...,"result":...}} line per form, in the order of the forms,
+     * as soon as it is solved. The result is the {@link SimplexResponse} with its
+     * steps, the same as sending the form alone. A form that can't be read or
+     * solved only gets an error result, the other forms are solved anyway.
+     *
+     * @param request  The HTTP request, with the forms.
+     * @param accept   The Accept header. With a {@code latex=true} parameter, the
+     *                 tables are also rendered as LaTeX, see
+     *                 {@link #wantsLatex(String)}.
+     * @param response The HTTP response where the results are written.
+     * @throws IOException If the request can't be read or the response written.
+     */
+    @CrossOrigin
+    @PostMapping(value = "/batch", consumes = NDJSON, produces = NDJSON)
+    public void postBatchStream(HttpServletRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response) throws IOException {
+        writeBatch(readForms(request.getReader()), accept, response);
+    }
+
+    /**
+     * Solve a batch of forms, writing the result of each one as a line of NDJSON.
+     *
+     * @param forms    The forms to solve.
+     * @param accept   The Accept header.
+     * @param response The HTTP response.
+     * @throws IOException If the forms can't be read or the response written.
+     */
+    private void writeBatch(Iterator<SimplexForm> forms, String accept, HttpServletResponse response)
+            throws IOException {
+        final LatexRenderer latex = wantsLatex(accept) ? latexRenderer : null;
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        final Writer writer = new BufferedWriter(
+                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+
+        batchSolver.solve(forms, (index, res) -> {
+            writer.write("{\"index\":" + index + ",\"result\":");
+            res.writeJson(writer, true, latex);
+            writer.write("}\n");
+            writer.flush();
+        });
+        writer.flush();
+    }
+
+    /**
+     * Read the forms of an NDJSON body, one per line, as they are asked for. Blank
+     * lines are skipped. A line that isn't a form is read as null, and is answered
+     * like an empty form.
+     *
+     * @param reader The body of the request.
+     * @return The forms of the body. An {@link UncheckedIOException} is thrown if
+     *         the body can't be read.
+     */
+    private Iterator<SimplexForm> readForms(final BufferedReader reader) {
+        return new Iterator<SimplexForm>() {
+            /** The next line with a form, or null if not read yet. */
+            private String line = null;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (line == null || line.isBlank()) {
+                        line = reader.readLine();
+                        if (line == null) {
+                            return false;
+                        }
+                    }
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public SimplexForm next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final String form = line;
+                line = null;
+                try {
+                    return objectMapper.readValue(form, SimplexForm.class);
+                } catch (JsonProcessingException e) {
+                    Logger.warn("Unreadable batch form: " + e.getOriginalMessage());
+                    return null;
+                }
+            }
+        };
+    }
+
+    /**
+     * Get the metrics of the cache of the problems solved, and the amount of
+     * requests that waited for the same problem being solved.
+     *
+     * @param response The HTTP response where the metrics are written as JSON.
+     * @throws IOException If the response can't be written.
+     */
+    @CrossOrigin
+    @GetMapping(value = "/cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getCache(HttpServletResponse response) throws IOException {
+        final SolveCache cache = simplexService.getCache();
+        final Writer writer = openWriter(response);
+        writer.write("{\"size\":" + cache.size() +
+                ",\"maxSize\":" + cache.getMaxSize() +
+                ",\"hits\":" + cache.getHits() +
+                ",\"misses\":" + cache.getMisses() +
+                ",\"evictions\":" + cache.getEvictions() +
+                ",\"coalesced\":" + simplexService.getCoalesced() + "}");
+        writer.flush();
+    }
+
+    /**
+     * Whether a tag is in an If-None-Match header. Tags are compared weakly, as
+     * both the given ones and ours can be weak.
+     *
+     * @param ifNoneMatch The If-None-Match header. Can be null.
+     * @param tag         The tag of the response.
+     * @return True if the client already has the response.
+     */
+    static boolean matchesTag(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        final String opaque = tag.startsWith("W/") ? tag.substring(2) : tag;
+        for (String given : ifNoneMatch.split(",")) {
+            given = given.trim();
+            if (given.startsWith("W/")) {
+                given = given.substring(2);
+            }
+            if (given.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the client prefers the binary encoding to JSON. JSON is kept unless
+     * {@link BinaryOutput#MEDIA_TYPE} is explicitly accepted with a higher quality
+     * than any other media type JSON matches, wildcards included.
+     *
+     * @param accept The Accept header. Can be null.
+     * @return True if the response should be written as binary.
+     */
+    static boolean prefersBinary(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        final List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        final MediaType binary = MediaType.valueOf(BinaryOutput.MEDIA_TYPE);
+        double binaryQuality = 0;
+        double jsonQuality = 0;
+        for (MediaType type : types) {
+            if (type.equalsTypeAndSubtype(binary)) {
+                binaryQuality = Math.max(binaryQuality, type.getQualityValue());
+            } else if (type.includes(MediaType.APPLICATION_JSON)) {
+                jsonQuality = Math.max(jsonQuality, type.getQualityValue());
+            }
+        }
+        return binaryQuality > jsonQuality;
+    }
+
+    /**
+     * Whether the client asks for the tables rendered as LaTeX, with a
+     * {@code latex=true} parameter on an accepted media type, like
+     * {@code application/json;latex=true}. Each step then carries a
+     * {@code "latex"} array of the LaTeX fragments of its table.
+     *
+     * @param accept The Accept header. Can be null.
+     * @return True if the tables should be rendered as LaTeX.
+     */
+    static boolean wantsLatex(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (type.getQualityValue() > 0 && "true".equalsIgnoreCase(type.getParameter("latex"))) {
+                    return true;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Set the status of the HTTP response when the resolution has been refused
+     * because every thread is busy, with a Retry-After header so the client sends
+     * it again later. Other errors are left in the body.
+     *
+     * @param res      The response of the resolution.
+     * @param response The HTTP response.
+     */
+    private static void setBusy(SimplexResponse res, HttpServletResponse response) {
+        if (res.code == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+            response.setStatus(res.code);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
         }
+    }
+
+    /**
+     * Set the response as binary, and get an output to its stream.
+     *
+     * @param response The HTTP response.
+     * @return A buffered output, to flush once the response is written.
+     * @throws IOException If the output stream can't be opened.
+     */
+    private static BinaryOutput openBinary(HttpServletResponse response) throws IOException {
+        response.setContentType(BinaryOutput.MEDIA_TYPE);
+        return new BinaryOutput(new BufferedOutputStream(response.getOutputStream()));
+    }
 
-        return simplexService.solve(simplexForm).toString();
+    /**
+     * Set the response as JSON, and get a writer to its output stream.
+     *
+     * @param response The HTTP response.
+     * @return A buffered writer, to flush once the JSON is written.
+     * @throws IOException If the output stream can't be opened.
+     */
+    private static Writer openWriter(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        return new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
     }
 }
@@ -1,7 +1,11 @@
 package optim.optim.controller.body;
 
+import optim.optim.response.SimplexResponse.StepEncoding;
+import optim.optim.src.simplex.data.BranchingRule;
 import optim.optim.src.simplex.data.IntegerMethod;
+import optim.optim.src.simplex.data.NodeSelectionRule;
 import optim.optim.src.simplex.data.PivotSelectionRule;
+import optim.optim.src.simplex.data.StepRetention.Policy;
 
 /** All advanced options fields can be null. If so, use the default value. */
 public class AdvancedOptions {
@@ -15,10 +19,78 @@ public class AdvancedOptions {
     public static final PivotSelectionRule pivotSelectionRuleDefault = PivotSelectionRule.DANTZIG;
     /** The Default integer method: {@code NONE}. */
     public static final IntegerMethod integerMethodDefault = IntegerMethod.NONE;
+    /** The Default node selection rule: {@code BEST_BOUND}. */
+    public static final NodeSelectionRule nodeSelectionRuleDefault = NodeSelectionRule.BEST_BOUND;
+    /** The Default branching rule: {@code PSEUDO_COST}. */
+    public static final BranchingRule branchingRuleDefault = BranchingRule.PSEUDO_COST;
+    /** The Default amount of threads: {@code 1}. */
+    public static final Integer threadsDefault = 1;
+    /** The Default determinism of the parallel search: {@code false}. */
+    public static final Boolean deterministicDefault = false;
+    /** The Default time of the primal heuristics: {@code 100}ms. */
+    public static final Integer heuristicsTimeDefault = 100;
+    /** The Default absolute gap accepted: {@code 0}. */
+    public static final Double absoluteGapDefault = 0.0;
+    /** The Default relative gap accepted: {@code 0}. */
+    public static final Double relativeGapDefault = 0.0;
+    /** The Default time limit: {@code 0}, no limit. */
+    public static final Integer timeLimitDefault = 0;
+    /** The Default step encoding: {@code FULL}, the whole tables. */
+    public static final StepEncoding stepEncodingDefault = StepEncoding.FULL;
+    /** The Default step retention: {@code FULL}, every step. */
+    public static final Policy stepRetentionDefault = Policy.FULL;
+    /** The Default step retention size: {@code 10}. */
+    public static final Integer stepRetentionSizeDefault = 10;
     /** Maximum iterations limit. Must greater than 0. */
     public Integer maxIterations = maxIterationsDefault;
     /** The pivot selection rule. */
     public String pivotSelectionRule = pivotSelectionRuleDefault.name();
     /** The integer method. */
     public String integerMethod = integerMethodDefault.name();
+    /** The branch and bound node selection rule. */
+    public String nodeSelectionRule = nodeSelectionRuleDefault.name();
+    /** How the branch and bound chooses the variable to branch on. */
+    public String branchingRule = branchingRuleDefault.name();
+    /**
+     * Amount of threads exploring the branch and bound tree. Must be between 1 and
+     * the server maximum.
+     */
+    public Integer threads = threadsDefault;
+    /** Whether the branch and bound nodes are explored in a reproducible order. */
+    public Boolean deterministic = deterministicDefault;
+    /**
+     * Time the primal heuristics can take, in milliseconds. Must be between 0 and
+     * the server maximum, 0 disables them.
+     */
+    public Integer heuristicsTime = heuristicsTimeDefault;
+    /**
+     * Largest difference accepted between the integer solution returned and the
+     * bound on the optimum. Must be positive or 0.
+     */
+    public Double absoluteGap = absoluteGapDefault;
+    /**
+     * Largest difference accepted between the integer solution returned and the
+     * bound on the optimum, relative to the solution. Must be positive or 0.
+     */
+    public Double relativeGap = relativeGapDefault;
+    /**
+     * Time the resolution can take, in milliseconds. Must be positive, 0 for no
+     * limit.
+     */
+    public Integer timeLimit = timeLimitDefault;
+    /**
+     * How the tables of the steps are sent: the whole table at each step, or only
+     * the pivot row and column for the steps made by a pivot.
+     */
+    public String stepEncoding = stepEncodingDefault.name();
+    /**
+     * Which steps are sent: none, only their amount, every few steps, the last
+     * steps, or every step.
+     */
+    public String stepRetention = stepRetentionDefault.name();
+    /**
+     * The interval between two steps sent with the {@code SAMPLED} retention, or
+     * the amount of steps sent with {@code LAST_N}. Must be at least 1.
+     */
+    public Integer stepRetentionSize = stepRetentionSizeDefault;
 }
@@ -0,0 +1,196 @@
+package optim.optim.response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import optim.optim.src.simplex.Fraction;
+
+/**
+ * Compact binary encoding of the responses, sent instead of JSON when the
+ * client asks for {@link #MEDIA_TYPE}.
+ * <p>
+ * Integers are unsigned LEB128 varints, zigzag encoded first if they can be
+ * negative. A fraction is a single varint holding its zigzag numerator shifted
+ * by two bits, with the lowest bit set if a varint denominator follows. If the
+ * numerator or the denominator is too large, only the second bit is set
+ * (with the lowest one if needed), and they follow as big-endian two's
+ * complement bytes, prefixed by their length. Strings are their UTF-8 length
+ * plus one, 0 for null, followed by their bytes. Tables are their height and
+ * width, followed by each row one after the other.
+ */
+public class BinaryOutput {
+    /** Media type of the binary encoding. */
+    public static final String MEDIA_TYPE = "application/x-simplex";
+
+    /** Written before any response, followed by the version. */
+    private static final byte[] MAGIC = { 'S', 'P', 'X' };
+    /** Version of the encoding. */
+    private static final int VERSION = 1;
+
+    /** Bits of a numerator written inline, once zigzag encoded and shifted. */
+    private static final int INLINE_BITS = 60;
+
+    /** Where the bytes are written. */
+    private final OutputStream out;
+
+    /**
+     * Default constructor.
+     *
+     * @param out Where the bytes are written. Should be buffered.
+     */
+    public BinaryOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Write the magic bytes and the version of the encoding.
+     *
+     * @throws IOException If the stream fails.
+     */
+    public void writeHeader() throws IOException {
+        out.write(MAGIC);
+        writeVarint(VERSION);
+    }
+
+    /**
+     * Write a positive integer.
+     *
+     * @param value The integer, read as unsigned.
+     * @throws IOException If the stream fails.
+     */
+    public void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Write an integer that can be negative.
+     *
+     * @param value The integer.
+     * @throws IOException If the stream fails.
+     */
+    public void writeSignedVarint(long value) throws IOException {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Write a string.
+     *
+     * @param value The string. Can be null.
+     * @throws IOException If the stream fails.
+     */
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    /**
+     * Write a list of strings, prefixed by its size.
+     *
+     * @param values The strings.
+     * @throws IOException If the stream fails.
+     */
+    public void writeStrings(List<String> values) throws IOException {
+        writeVarint(values.size());
+        for (String value : values) {
+            writeString(value);
+        }
+    }
+
+    /**
+     * Write a fraction.
+     *
+     * @param value The fraction.
+     * @throws IOException If the stream fails.
+     */
+    public void writeFraction(Fraction value) throws IOException {
+        final BigInteger numerator = value.getNumerator();
+        final BigInteger denominator = value.getDenominator();
+        // whole numbers don't write their denominator
+        final int hasDenominator = denominator.equals(BigInteger.ONE) ? 0 : 1;
+        if (numerator.bitLength() < INLINE_BITS && denominator.bitLength() < Long.SIZE) {
+            final long n = numerator.longValue();
+            writeVarint((((n << 1) ^ (n >> 63)) << 2) | hasDenominator);
+            if (hasDenominator == 1) {
+                writeVarint(denominator.longValue());
+            }
+            return;
+        }
+
+        writeVarint(2 | hasDenominator);
+        writeBytes(numerator.toByteArray());
+        if (hasDenominator == 1) {
+            writeBytes(denominator.toByteArray());
+        }
+    }
+
+    /**
+     * Write an array of fractions, prefixed by its length.
+     *
+     * @param values The fractions. Null is written as an empty array.
+     * @throws IOException If the stream fails.
+     */
+    public void writeFractions(Fraction[] values) throws IOException {
+        if (values == null) {
+            writeVarint(0);
+            return;
+        }
+        writeVarint(values.length);
+        for (Fraction value : values) {
+            writeFraction(value);
+        }
+    }
+
+    /**
+     * Write a table as a block of rows.
+     *
+     * @param table The table, each row having the same length. Null is written
+     *              as an empty table.
+     * @throws IOException If the stream fails.
+     */
+    public void writeTable(Fraction[][] table) throws IOException {
+        if (table == null || table.length == 0) {
+            writeVarint(0);
+            writeVarint(0);
+            return;
+        }
+        writeVarint(table.length);
+        writeVarint(table[0].length);
+        for (Fraction[] row : table) {
+            for (Fraction value : row) {
+                writeFraction(value);
+            }
+        }
+    }
+
+    /**
+     * Write some bytes, prefixed by their length.
+     *
+     * @param bytes The bytes.
+     * @throws IOException If the stream fails.
+     */
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarint(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Flush the stream.
+     *
+     * @throws IOException If the stream fails.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,134 @@
+package optim.optim.response;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import optim.optim.src.Config;
+import optim.optim.src.simplex.Fraction;
+
+/**
+ * Render the tables of the steps as LaTeX on the server, so the client doesn't
+ * have to format each cell itself. Each fraction is formatted the same way the
+ * frontend does it, and the fragments are kept in a bounded cache, as the same
+ * values come back in every step.
+ */
+public class LatexRenderer {
+    /** Maximum amount of fragments kept. */
+    private final int cacheSize;
+    /** The fragments, from the least to the most recently used. */
+    private final LinkedHashMap<Fraction, String> cache;
+
+    /** Create a renderer with the cache size of the config. */
+    public LatexRenderer() {
+        this(Config.Responses_LatexCacheSize());
+    }
+
+    /**
+     * Create a renderer with the given cache size.
+     *
+     * @param cacheSize Maximum amount of fragments kept. 0 disables the cache.
+     * @throws IllegalArgumentException if cacheSize is negative.
+     */
+    public LatexRenderer(final int cacheSize) throws IllegalArgumentException {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize is negative");
+        }
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<Fraction, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Fraction, String> eldest) {
+                return size() > LatexRenderer.this.cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Get the LaTeX fragment of a fraction: {@code \frac{num}{den}}, or only the
+     * numerator for whole numbers, negative values starting with
+     * {@code -\space}.
+     *
+     * @param value The fraction.
+     * @return The LaTeX fragment.
+     */
+    public String render(final Fraction value) {
+        if (cacheSize == 0) {
+            return format(value);
+        }
+        synchronized (cache) {
+            String fragment = cache.get(value);
+            if (fragment == null) {
+                fragment = format(value);
+                cache.put(value, fragment);
+            }
+            return fragment;
+        }
+    }
+
+    /**
+     * Write the LaTeX fragments of a table as a JSON array of rows.
+     *
+     * @param writer Where to write the JSON.
+     * @param table  The table.
+     * @throws IOException If the writer fails.
+     */
+    public void writeJson(final Writer writer, final Fraction[][] table) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < table.length; i++) {
+            if (i > 0) {
+                writer.write(", ");
+            }
+            writer.write('[');
+            for (int j = 0; j < table[i].length; j++) {
+                if (j > 0) {
+                    writer.write(',');
+                }
+                writer.write('"');
+                // backslashes are the only character to escape in the fragments
+                writer.write(render(table[i][j]).replace("\\", "\\\\"));
+                writer.write('"');
+            }
+            writer.write(']');
+        }
+        writer.write(']');
+    }
+
+    /**
+     * Amount of fragments kept.
+     *
+     * @return The amount of fragments in the cache.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Format a fraction as LaTeX.
+     *
+     * @param value The fraction.
+     * @return The LaTeX fragment.
+     */
+    private static String format(final Fraction value) {
+        if (value.getDenominator().equals(BigInteger.ONE)) {
+            return format(value.getNumerator());
+        }
+        return "\\frac{" + format(value.getNumerator()) + "}{" + format(value.getDenominator()) + "}";
+    }
+
+    /**
+     * Format an integer as LaTeX.
+     *
+     * @param value The integer.
+     * @return The LaTeX fragment.
+     */
+    private static String format(final BigInteger value) {
+        if (value.signum() < 0) {
+            return "-\\space" + value.negate();
+        }
+        return value.toString();
+    }
+}
@@ -1,12 +1,21 @@
 package optim.optim.response;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import org.springframework.http.HttpStatus;
 
+import optim.optim.src.Config;
 import optim.optim.src.simplex.Fraction;
+import optim.optim.src.simplex.SimplexSolver;
 import optim.optim.src.simplex.SimplexTable;
+import optim.optim.src.simplex.data.StepRetention;
+import optim.optim.src.simplex.data.StepRetention.Policy;
 
 /**
  * Response expected after a simplex request. It contains the resolution steps,
@@ -17,6 +26,16 @@ public class SimplexResponse {
     public SimplexResponse() {
     }
 
+    /**
+     * Create an empty response keeping the step tables the given way.
+     *
+     * @param stepEncoding How the tables of the steps are kept.
+     * @throws NullPointerException if stepEncoding is null.
+     */
+    public SimplexResponse(final StepEncoding stepEncoding) throws NullPointerException {
+        this.stepEncoding = Objects.requireNonNull(stepEncoding);
+    }
+
     /**
      * Value returned depending on the feasiblity of the given problem.
      */
@@ -30,7 +49,13 @@ public class SimplexResponse {
         /** Problem unbounded. Constraints too loose. */
         UNBOUNDED(2),
         /** Too many iterations made. */
-        ITERATIONS(3);
+        ITERATIONS(3),
+        /**
+         * Problem feasible, but the search stopped before proving the optimum.
+         * The optimum is the best solution found, and the bound tells how far
+         * from the true optimum it may be.
+         */
+        FEASIBLE_GAP(4);
 
         private final int value;
 
@@ -46,13 +71,27 @@ public class SimplexResponse {
         /**
          * Getter for {@link #value}.
          *
-         * @return The value, between 0 to 3 included.
+         * @return The value, between 0 to 4 included.
          */
         public int value() {
             return value;
         }
     }
 
+    /**
+     * How the tables of the resolution steps are kept.
+     */
+    public enum StepEncoding {
+        /** Each step keeps a copy of the whole table. */
+        FULL,
+        /**
+         * Each step made by a pivot only keeps the pivot row and column, from which
+         * the table is rebuilt with the table of the previous step. Other steps,
+         * like the start of a phase or an added cut, keep the whole table.
+         */
+        DELTA;
+    }
+
     /** HTTP status message. */
     public HttpStatus status = HttpStatus.OK;
     /** HTTP status code. */
@@ -65,24 +104,369 @@ public class SimplexResponse {
     public Fraction optimum = Fraction.ZERO;
     /** The values of the variables if feasibility is feasible. */
     public Fraction[] values = {};
-    /** Each simplex steps made. */
+    /**
+     * The bound on the optimum if feasibility is feasible. Equal to the optimum,
+     * except with {@link Feasibility#FEASIBLE_GAP}.
+     */
+    public Fraction bound = Fraction.ZERO;
+    /** Each simplex steps made, or only some of them, see {@link #stepRetention}. */
     public ArrayList<SimplexStep> steps = new ArrayList<SimplexStep>();
+    /** Amount of steps made, kept or not. */
+    public long stepCount = 0;
+    /** Amount of pivots made. */
+    public long pivotCount = 0;
+    /** Amount of pivots made in the phase 1. */
+    public long phase1PivotCount = 0;
+    /** Amount of rows added to the tables, by the cuts and the branches. */
+    public long addedRowCount = 0;
+    /** Time taken by the resolution, in milliseconds. */
+    public long time = 0;
+    /** Id of the solve once kept on the server, so its steps can be fetched later. */
+    public String id = null;
+    /**
+     * Whether the steps have been dropped because they went over a budget. Only
+     * the summary is kept afterward.
+     *
+     * @see #setBudget(int, int, long)
+     */
+    public boolean truncated = false;
     /** Name of the columns. */
     protected List<String> columLabels = new ArrayList<String>();
+    /** How the tables of the steps are kept. */
+    protected StepEncoding stepEncoding = StepEncoding.FULL;
+    /** Which steps are kept. */
+    protected StepRetention stepRetention = SimplexSolver.defaultStepRetention;
+    /** Called with each step made, kept or not. Null if none. */
+    private StepListener stepListener = null;
+    /** Maximum amount of steps kept. 0 means no limit. */
+    private int maxSteps = Config.Responses_MaxSteps();
+    /** Maximum amount of cells of a table kept. 0 means no limit. */
+    private int maxTableCells = Config.Responses_MaxTableCells();
+    /** Maximum estimated size of the steps kept, in bytes. 0 means no limit. */
+    private long maxBytes = Config.Responses_MaxBytes();
+    /** Estimated size of the steps kept, in bytes. */
+    private long keptBytes = 0;
+    /**
+     * Table of the last step made, needed to encode the next one. Null if the last
+     * step made hasn't been kept.
+     */
+    private Fraction[][] lastTable = null;
+    /**
+     * Last step made, if it hasn't been kept while sampling. It is added once the
+     * resolution is over.
+     */
+    private SimplexStep lastSkipped = null;
 
     /**
      * Add a resolution step. It should be done at each iteration, and each revelant
-     * steps (like the first table of change of phases).
+     * steps (like the first table of change of phases). The table is only copied
+     * if the step is kept.
      *
      * @param inCol  The column index of the variable entering the base.
      * @param outRow The row index of the variable leaving the base.
      * @param table  The current table.
      */
-    public void addStep(final Integer inCol, final Integer outRow, final SimplexTable table) {
+    public synchronized void addStep(final Integer inCol, final Integer outRow, final SimplexTable table) {
         if (columLabels.size() == 0) {
             columLabels = table.getLabels();
         }
-        steps.add(new SimplexStep(inCol, outRow, table));
+
+        final long index = stepCount++;
+        if (inCol != null && outRow != null) {
+            pivotCount++;
+            if (table.isPhase1()) {
+                phase1PivotCount++;
+            }
+        } else if (inCol == null && outRow != null) {
+            // a step with only a row is a cut or a branch added
+            addedRowCount++;
+        }
+
+        final boolean kept = isKept(index);
+        // the last step is only known once the resolution is over
+        final boolean lastNeeded = stepRetention.getPolicy() == Policy.SAMPLED;
+        if (!kept && !lastNeeded && stepListener == null) {
+            lastTable = null;
+            return;
+        }
+
+        final SimplexStep step = new SimplexStep(inCol, outRow, table);
+        final Fraction[][] current = step.table;
+        if (kept) {
+            lastSkipped = null;
+            keep(step, current);
+        } else {
+            lastTable = null;
+            if (lastNeeded) {
+                lastSkipped = step;
+            }
+        }
+        if (stepListener != null) {
+            stepListener.onStep(step, current);
+        }
+    }
+
+    /**
+     * Add all the resolution steps of another response, keeping their order. It is
+     * used to record together the steps made on a table apart from the others.
+     * The other response should have been made with {@link #createPart()}.
+     *
+     * @param other The response containing the steps to add.
+     */
+    public synchronized void addSteps(final SimplexResponse other) {
+        if (columLabels.size() == 0) {
+            columLabels = other.columLabels;
+        }
+
+        // index of the first step kept by the other response
+        final long start = stepCount + other.stepCount - other.steps.size();
+        if (start != stepCount) {
+            lastTable = null;
+        }
+        stepCount += other.stepCount;
+        pivotCount += other.pivotCount;
+        phase1PivotCount += other.phase1PivotCount;
+        addedRowCount += other.addedRowCount;
+        if (other.truncated && stepRetention.keepSteps()) {
+            truncate();
+        }
+
+        // the first step of the other response always keeps its whole table
+        Fraction[][] table = null;
+        for (int i = 0; i < other.steps.size(); i++) {
+            final SimplexStep step = other.steps.get(i);
+            table = step.getTable(table);
+            if (isKept(start + i)) {
+                lastSkipped = null;
+                keep(step, table);
+            } else {
+                lastTable = null;
+                if (stepRetention.getPolicy() == Policy.SAMPLED) {
+                    step.decodeDelta(table);
+                    lastSkipped = step;
+                }
+            }
+            if (stepListener != null) {
+                stepListener.onStep(step, table);
+            }
+        }
+    }
+
+    /**
+     * Create an empty response, keeping the steps the same way as this one, so
+     * they can be added to this one with {@link #addSteps(SimplexResponse)}.
+     *
+     * @return The new response.
+     */
+    public SimplexResponse createPart() {
+        final SimplexResponse part = new SimplexResponse(stepEncoding);
+        // the sampled steps are only known once the steps are added together, and
+        // the listener is given every step
+        part.stepRetention = stepRetention.getPolicy() == Policy.SAMPLED || stepListener != null
+                ? SimplexSolver.defaultStepRetention
+                : stepRetention;
+        if (stepListener != null) {
+            // the listener must be given every step, dropped or not here
+            part.setBudget(0, 0, 0);
+        } else {
+            part.setBudget(maxSteps, maxTableCells, maxBytes);
+        }
+        return part;
+    }
+
+    /**
+     * Copy a finished response, so it can be answered again. The steps are shared,
+     * as they are not modified once the resolution is over, but the id and the
+     * listener are not copied.
+     *
+     * @return The copy.
+     */
+    public synchronized SimplexResponse copy() {
+        final SimplexResponse copy = new SimplexResponse(stepEncoding);
+        copy.status = status;
+        copy.code = code;
+        copy.error = error;
+        copy.feasibility = feasibility;
+        copy.optimum = optimum;
+        copy.values = values;
+        copy.bound = bound;
+        copy.steps = new ArrayList<SimplexStep>(steps);
+        copy.stepCount = stepCount;
+        copy.pivotCount = pivotCount;
+        copy.phase1PivotCount = phase1PivotCount;
+        copy.addedRowCount = addedRowCount;
+        copy.time = time;
+        copy.truncated = truncated;
+        copy.columLabels = columLabels;
+        copy.stepRetention = stepRetention;
+        copy.setBudget(maxSteps, maxTableCells, maxBytes);
+        copy.keptBytes = keptBytes;
+        return copy;
+    }
+
+    /**
+     * End the resolution: add the last step if it hasn't been kept while
+     * sampling, and the time taken.
+     *
+     * @param time The time taken by the resolution, in milliseconds.
+     */
+    public synchronized void finish(final long time) {
+        this.time += time;
+        if (lastSkipped != null) {
+            keep(lastSkipped, lastSkipped.table);
+            lastSkipped = null;
+        }
+    }
+
+    /**
+     * Whether the step made at the given index is kept.
+     *
+     * @param index The index of the step, among every steps made.
+     * @return True if the step is kept.
+     */
+    private boolean isKept(final long index) {
+        switch (stepRetention.getPolicy()) {
+            case SAMPLED:
+                return index % stepRetention.getSize() == 0;
+            case LAST_N:
+            case FULL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Add a step to the steps kept, encoding it if needed.
+     *
+     * @param step  The step to keep.
+     * @param table The whole table of the step.
+     */
+    private void keep(final SimplexStep step, final Fraction[][] table) {
+        if (maxTableCells > 0 && table != null && table.length > 0 &&
+                (long) table.length * table[0].length > maxTableCells) {
+            truncate();
+            return;
+        }
+        if (step.isDelta() && lastTable == null) {
+            // the previous step isn't there to rebuild the table
+            step.decodeDelta(table);
+        } else if (!step.isDelta() && stepEncoding == StepEncoding.DELTA) {
+            step.encodeDelta(lastTable);
+        }
+        lastTable = table;
+        steps.add(step);
+        keptBytes += step.estimateJsonSize();
+
+        if (stepRetention.getPolicy() == Policy.LAST_N && steps.size() > stepRetention.getSize()) {
+            final SimplexStep first = steps.remove(0);
+            keptBytes -= first.estimateJsonSize();
+            // the first step kept must have its whole table
+            final SimplexStep head = steps.get(0);
+            if (head.isDelta()) {
+                keptBytes -= head.estimateJsonSize();
+                head.decodeDelta(head.getTable(first.table));
+                keptBytes += head.estimateJsonSize();
+            }
+        }
+
+        if ((maxSteps > 0 && steps.size() > maxSteps) || (maxBytes > 0 && keptBytes > maxBytes)) {
+            truncate();
+        }
+    }
+
+    /**
+     * Drop every step kept, and only keep the summary from now on, as a budget
+     * has been exceeded.
+     */
+    private void truncate() {
+        truncated = true;
+        steps.clear();
+        keptBytes = 0;
+        lastTable = null;
+        lastSkipped = null;
+        stepRetention = new StepRetention(Policy.SUMMARY, 1);
+    }
+
+    /**
+     * Set the budgets of the steps kept. When one is exceeded, every step kept is
+     * dropped, only the summary is kept afterward, and the response is flagged as
+     * {@link #truncated}. They default to the config values.
+     *
+     * @param maxSteps      Maximum amount of steps kept. 0 means no limit.
+     * @param maxTableCells Maximum amount of cells of a table kept. 0 means no
+     *                      limit.
+     * @param maxBytes      Maximum estimated size of the steps kept once written
+     *                      as JSON, in bytes. 0 means no limit.
+     * @throws IllegalArgumentException if a budget is negative.
+     */
+    public synchronized void setBudget(final int maxSteps, final int maxTableCells, final long maxBytes)
+            throws IllegalArgumentException {
+        if (maxSteps < 0 || maxTableCells < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("a budget is negative");
+        }
+        this.maxSteps = maxSteps;
+        this.maxTableCells = maxTableCells;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Setter for {@link #stepListener}.
+     *
+     * @param stepListener Called with each step made, kept or not. Null to remove
+     *                     it.
+     */
+    public synchronized void setStepListener(final StepListener stepListener) {
+        this.stepListener = stepListener;
+    }
+
+    /**
+     * Getter for {@link #stepRetention}.
+     *
+     * @return Which steps are kept.
+     */
+    public StepRetention getStepRetention() {
+        return stepRetention;
+    }
+
+    /**
+     * Setter for {@link #stepRetention}. Only the steps added afterward follow it.
+     *
+     * @param stepRetention Which steps are kept.
+     * @throws NullPointerException if stepRetention is null.
+     */
+    public void setStepRetention(final StepRetention stepRetention) throws NullPointerException {
+        this.stepRetention = Objects.requireNonNull(stepRetention);
+    }
+
+    /**
+     * Getter for {@link #stepEncoding}.
+     *
+     * @return How the tables of the steps are kept.
+     */
+    public StepEncoding getStepEncoding() {
+        return stepEncoding;
+    }
+
+    /**
+     * Get the table of a step, rebuilding it from the closest previous step
+     * keeping a whole table if needed.
+     *
+     * @param index The index of the step.
+     * @return The table of the step. Must not be modified. Null if the tables are
+     *         not kept.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public synchronized Fraction[][] getTable(final int index) throws IndexOutOfBoundsException {
+        int start = index;
+        while (start > 0 && steps.get(start).isDelta()) {
+            start--;
+        }
+        Fraction[][] table = steps.get(start).table;
+        for (int i = start + 1; i <= index && table != null; i++) {
+            table = steps.get(i).getTable(table);
+        }
+        return table;
     }
 
     /**
@@ -124,28 +508,247 @@ public class SimplexResponse {
         return this;
     }
 
+    /**
+     * Write the JSON value of this class. Every step is written one after the
+     * other, so nothing but the current value is kept in memory while writing.
+     *
+     * @param writer Where to write the JSON.
+     * @throws IOException If the writer fails.
+     */
+    public void writeJson(final Writer writer) throws IOException {
+        writeJson(writer, true);
+    }
+
+    /**
+     * Write the JSON value of this class, with or without the steps. Without the
+     * steps, only their amount is written, and they can be fetched with
+     * {@link #writePage(Writer, int, int)}.
+     *
+     * @param writer    Where to write the JSON.
+     * @param withSteps Whether the steps are written.
+     * @throws IOException If the writer fails.
+     */
+    public void writeJson(final Writer writer, final boolean withSteps) throws IOException {
+        writeJson(writer, withSteps, null);
+    }
+
+    /**
+     * Write the JSON value of this class, with or without the steps, their tables
+     * being rendered as LaTeX.
+     *
+     * @param writer    Where to write the JSON.
+     * @param withSteps Whether the steps are written.
+     * @param latex     Renders the tables of the steps as LaTeX, or null to not
+     *                  render them.
+     * @throws IOException If the writer fails.
+     */
+    public synchronized void writeJson(final Writer writer, final boolean withSteps, final LatexRenderer latex)
+            throws IOException {
+        writer.write("{\"error\":");
+        writer.write(error == null ? "null" : "\"" + error + "\"");
+        writer.write(",\"feasibility\":");
+        writer.write(Integer.toString(feasibility.value));
+        writer.write(",\"optimum\":\"");
+        writer.write(String.valueOf(optimum));
+        writer.write("\",\"bound\":\"");
+        writer.write(String.valueOf(bound));
+        writer.write("\",\"values\":");
+        writeArray(writer, values);
+        writer.write(",\"code\":");
+        writer.write(Integer.toString(code));
+        writer.write(",\"status\":\"");
+        writer.write(status.name());
+        writer.write("\",\"summary\":");
+        if (stepRetention.getPolicy() == Policy.NONE) {
+            writer.write("null");
+        } else {
+            writer.write("{\"steps\":");
+            writer.write(Long.toString(stepCount));
+            writer.write(",\"pivots\":");
+            writer.write(Long.toString(pivotCount));
+            writer.write(",\"phase1Pivots\":");
+            writer.write(Long.toString(phase1PivotCount));
+            writer.write(",\"addedRows\":");
+            writer.write(Long.toString(addedRowCount));
+            writer.write(",\"time\":");
+            writer.write(Long.toString(time));
+            writer.write('}');
+        }
+        writer.write(",\"truncated\":");
+        writer.write(Boolean.toString(truncated));
+        if (id != null) {
+            writer.write(",\"id\":\"");
+            writer.write(id);
+            writer.write('"');
+        }
+        if (withSteps) {
+            writer.write(",\"steps\":");
+            writeSteps(writer, 0, steps.size(), latex);
+        } else {
+            writer.write(",\"keptSteps\":");
+            writer.write(Integer.toString(steps.size()));
+        }
+        writer.write(",\"labels\":");
+        writeLabels(writer, columLabels);
+        writer.write('}');
+    }
+
+    /**
+     * Write a page of the steps kept as JSON, with the index of its first step
+     * and the amount of steps kept.
+     *
+     * @param writer Where to write the JSON.
+     * @param from   Index of the first step written.
+     * @param limit  Maximum amount of steps written.
+     * @throws IOException If the writer fails.
+     */
+    public void writePage(final Writer writer, final int from, final int limit) throws IOException {
+        writePage(writer, from, limit, null);
+    }
+
+    /**
+     * Write a page of the steps kept as JSON, their tables being rendered as
+     * LaTeX.
+     *
+     * @param writer Where to write the JSON.
+     * @param from   Index of the first step written.
+     * @param limit  Maximum amount of steps written.
+     * @param latex  Renders the tables of the steps as LaTeX, or null to not
+     *               render them.
+     * @throws IOException If the writer fails.
+     */
+    public synchronized void writePage(final Writer writer, final int from, final int limit,
+            final LatexRenderer latex) throws IOException {
+        writer.write("{\"id\":");
+        writer.write(id == null ? "null" : "\"" + id + "\"");
+        writer.write(",\"from\":");
+        writer.write(Integer.toString(from));
+        writer.write(",\"total\":");
+        writer.write(Integer.toString(steps.size()));
+        writer.write(",\"steps\":");
+        writeSteps(writer, from, limit, latex);
+        writer.write('}');
+    }
+
+    /**
+     * Write some of the steps kept as a JSON array. The first step written keeps
+     * its whole table, since the previous one isn't written.
+     *
+     * @param writer Where to write the steps.
+     * @param from   Index of the first step written.
+     * @param limit  Maximum amount of steps written.
+     * @param latex  Renders the tables of the steps as LaTeX, or null to not
+     *               render them.
+     * @throws IOException If the writer fails.
+     */
+    private void writeSteps(final Writer writer, final int from, final int limit, final LatexRenderer latex)
+            throws IOException {
+        writer.write('[');
+        final int to = (int) Math.min(steps.size(), (long) from + limit);
+        // the whole table of the current step, only rebuilt to render it
+        Fraction[][] whole = null;
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                writer.write(", ");
+            }
+            final SimplexStep step = steps.get(i);
+            if (latex != null) {
+                whole = i == from ? getTable(i) : step.getTable(whole);
+            }
+            final Fraction[][] first = i == from && step.isDelta() ? (whole != null ? whole : getTable(i)) : null;
+            step.writeJson(writer, first, latex, whole);
+        }
+        writer.write(']');
+    }
+
+    /**
+     * Write the binary value of this class, with or without the steps, in the same
+     * order as the JSON. Without the steps, only their amount is written. The
+     * summary is prefixed by 0 if there is none, 1 otherwise, or 3 if the
+     * response is {@link #truncated}.
+     *
+     * @param out       Where to write the value.
+     * @param withSteps Whether the steps are written.
+     * @throws IOException If the stream fails.
+     * @see BinaryOutput
+     */
+    public synchronized void writeBinary(final BinaryOutput out, final boolean withSteps) throws IOException {
+        out.writeHeader();
+        out.writeString(error);
+        out.writeSignedVarint(feasibility.value());
+        out.writeFraction(optimum);
+        out.writeFraction(bound);
+        out.writeFractions(values);
+        out.writeVarint(code);
+        out.writeString(status.name());
+        if (stepRetention.getPolicy() == Policy.NONE) {
+            out.writeVarint(0);
+        } else {
+            // a truncated response always has a summary
+            out.writeVarint(truncated ? 3 : 1);
+            out.writeVarint(stepCount);
+            out.writeVarint(pivotCount);
+            out.writeVarint(phase1PivotCount);
+            out.writeVarint(addedRowCount);
+            out.writeVarint(time);
+        }
+        out.writeString(id);
+        if (withSteps) {
+            out.writeVarint(1);
+            writeSteps(out, 0, steps.size());
+        } else {
+            out.writeVarint(0);
+            out.writeVarint(steps.size());
+        }
+        out.writeStrings(columLabels);
+    }
+
+    /**
+     * Write a page of the steps kept as binary, like
+     * {@link #writePage(Writer, int, int)}.
+     *
+     * @param out   Where to write the page.
+     * @param from  Index of the first step written.
+     * @param limit Maximum amount of steps written.
+     * @throws IOException If the stream fails.
+     * @see BinaryOutput
+     */
+    public synchronized void writePage(final BinaryOutput out, final int from, final int limit) throws IOException {
+        out.writeHeader();
+        out.writeString(id);
+        out.writeVarint(from);
+        out.writeVarint(steps.size());
+        writeSteps(out, from, limit);
+    }
+
+    /**
+     * Write some of the steps kept as binary, prefixed by their amount. The first
+     * step written keeps its whole table, since the previous one isn't written.
+     *
+     * @param out   Where to write the steps.
+     * @param from  Index of the first step written.
+     * @param limit Maximum amount of steps written.
+     * @throws IOException If the stream fails.
+     */
+    private void writeSteps(final BinaryOutput out, final int from, final int limit) throws IOException {
+        final int to = (int) Math.min(steps.size(), (long) from + limit);
+        out.writeVarint(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            steps.get(i).writeBinary(out, i == from && steps.get(i).isDelta() ? getTable(i) : null);
+        }
+    }
+
     /** Return the JSON stringified value of this class. */
     @Override
     public String toString() {
-        String columLabelsString = "[";
-        for (int i = 0; i < columLabels.size(); i++) {
-            columLabelsString += "\"" + columLabels.get(i) + "\"";
-            if (i < columLabels.size() - 1) {
-                columLabelsString += ",";
-            }
+        StringWriter writer = new StringWriter();
+        try {
+            writeJson(writer);
+        } catch (IOException e) {
+            // a StringWriter never fails
+            throw new UncheckedIOException(e);
         }
-        columLabelsString += "]";
-
-        return "{" +
-                "\"error\":" + (error == null ? "null" : "\"" + error + "\"") + "," +
-                "\"feasibility\":" + feasibility.value + "," +
-                "\"optimum\":\"" + optimum + "\"," +
-                "\"values\":" + arrayToString(values) + "," +
-                "\"code\":" + code + "," +
-                "\"status\":\"" + status.name() + "\"," +
-                "\"steps\":" + steps.toString() + "," +
-                "\"labels\":" + columLabelsString +
-                "}";
+        return writer.toString();
     }
 
     /**
@@ -155,19 +758,45 @@ public class SimplexResponse {
      * @return The stringified array.
      */
     public static String arrayToString(Object[] array) {
-        if (array == null || array.length == 0) {
-            return "[]";
+        StringWriter writer = new StringWriter();
+        try {
+            writeArray(writer, array);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return writer.toString();
+    }
 
-        String res = "[";
-        for (int i = 0; i < array.length - 1; i++) {
-            if (array[i] != null) {
-                res += "\"" + array[i] + "\",";
-            } else {
-                res += "\"null\",";
+    /**
+     * Write an array of Object as a JSON array of strings.
+     *
+     * @param writer Where to write the array.
+     * @param array  The array to write.
+     * @throws IOException If the writer fails.
+     */
+    static void writeArray(final Writer writer, final Object[] array) throws IOException {
+        writer.write('[');
+        if (array != null) {
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write('"');
+                writer.write(String.valueOf(array[i]));
+                writer.write('"');
             }
         }
-        res += "\"" + array[array.length - 1] + "\"]";
-        return res;
+        writer.write(']');
+    }
+
+    /**
+     * Write the column labels as a JSON array of strings.
+     *
+     * @param writer Where to write the labels.
+     * @param labels The labels to write.
+     * @throws IOException If the writer fails.
+     */
+    static void writeLabels(final Writer writer, final List<String> labels) throws IOException {
+        writeArray(writer, labels.toArray());
     }
 }
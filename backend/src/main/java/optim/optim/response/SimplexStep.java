@@ -1,5 +1,10 @@
 package optim.optim.response;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Objects;
@@ -35,10 +40,26 @@ public class SimplexStep {
 
     /**
      * Table of the current step. First value of each column and row
-     * is the index of the variable of said column or row.
+     * is the index of the variable of said column or row. Null if only the pivot
+     * is kept, see {@link #pivotRow}. Its rows may be shared with the other
+     * steps, so it must not be modified.
      */
     public Fraction[][] table;
 
+    /**
+     * Row of the pivot once divided by the pivot value, when the table is not kept
+     * because it can be rebuilt from the table of the previous step. Null
+     * otherwise.
+     */
+    public Fraction[] pivotRow = null;
+
+    /**
+     * Column of the pivot in the table of the previous step, meaning how many
+     * times the pivot row was subtracted from each row. Null if
+     * {@link #pivotRow} is null.
+     */
+    public Fraction[] pivotColumn = null;
+
     /** Index of the basics variables. */
     public ArrayList<Integer> basicRows = new ArrayList<Integer>();
 
@@ -53,7 +74,6 @@ public class SimplexStep {
      * @param table  The table at the current state.
      */
     public SimplexStep(final Integer inCol, final Integer outRow, final SimplexTable table) {
-        // TODO max step size? or depending the size of the table
         this.in = inCol;
         this.out = outRow;
         this.twophase = table.isPhase1();
@@ -75,34 +95,276 @@ public class SimplexStep {
     private void setTable(final SimplexTable table) throws NullPointerException {
         if (!Config.Debugger_Enabled()) {
             Objects.requireNonNull(table);
-            this.table = table.getSimplexTable();
+            // the rows left as is by the next pivots are shared between the steps
+            this.table = table.getSimplexTableSnapshot();
             this.basicRows.addAll(table.getBasicVariables());
         }
     }
 
+    /**
+     * Whether only the pivot of this step is kept, instead of the whole table.
+     *
+     * @return True if the table must be rebuilt from the previous step.
+     */
+    public boolean isDelta() {
+        return pivotRow != null;
+    }
+
+    /**
+     * Drop the table of this step, and only keep the pivot row and column, if the
+     * table can be rebuilt by pivoting the table of the previous step. Nothing
+     * is done otherwise, like when the table was changed between the steps by
+     * adding a cut or a branch.
+     *
+     * @param previous The table of the previous step. Can be null.
+     */
+    void encodeDelta(final Fraction[][] previous) {
+        if (previous == null || table == null || in == null || out == null ||
+                previous.length != table.length || previous[0].length != table[0].length) {
+            return;
+        }
+
+        final Fraction[] column = new Fraction[previous.length];
+        for (int i = 0; i < previous.length; i++) {
+            column[i] = previous[i][in];
+        }
+        // make sure the pivot really gives this table back
+        if (!Arrays.deepEquals(pivot(previous, out, table[out], column), table)) {
+            return;
+        }
+
+        pivotRow = table[out];
+        pivotColumn = column;
+        table = null;
+    }
+
+    /**
+     * Keep the whole table of this step, instead of the pivot.
+     *
+     * @param table The table of this step.
+     */
+    void decodeDelta(final Fraction[][] table) {
+        if (!isDelta()) {
+            return;
+        }
+        this.table = table;
+        pivotRow = null;
+        pivotColumn = null;
+    }
+
+    /**
+     * Get the table of this step. If only the pivot has been kept, the table is
+     * rebuilt from the table of the previous step.
+     *
+     * @param previous The table of the previous step. Only used if
+     *                 {@link #isDelta()} is true.
+     * @return The table of this step. Must not be modified.
+     * @throws NullPointerException if the table must be rebuilt and previous is
+     *                              null.
+     * @see SimplexResponse#getTable(int)
+     */
+    public Fraction[][] getTable(final Fraction[][] previous) throws NullPointerException {
+        if (!isDelta()) {
+            return table;
+        }
+        Objects.requireNonNull(previous);
+        return pivot(previous, out, pivotRow, pivotColumn);
+    }
+
+    /**
+     * Pivot a table, the same way {@link SimplexTable} does it.
+     *
+     * @param previous The table before the pivot.
+     * @param out      The row of the pivot.
+     * @param row      The pivot row, already divided by the pivot value.
+     * @param column   The pivot column of the table before the pivot.
+     * @return A new table, after the pivot. The rows left as is are shared with
+     *         the previous table.
+     */
+    private static Fraction[][] pivot(final Fraction[][] previous, final int out, final Fraction[] row,
+            final Fraction[] column) {
+        final Fraction[][] res = new Fraction[previous.length][];
+        for (int i = 0; i < previous.length; i++) {
+            if (i == out) {
+                res[i] = row;
+            } else if (column[i].isZero()) {
+                res[i] = previous[i];
+            } else {
+                res[i] = new Fraction[row.length];
+                for (int j = 0; j < row.length; j++) {
+                    res[i][j] = previous[i][j].subtract(column[i].multiply(row[j]));
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Estimate the size of this step as it is kept, once written as JSON, without
+     * writing it.
+     *
+     * @return The estimated size, in bytes.
+     */
+    long estimateJsonSize() {
+        // the flags, the indices and the basic variables
+        long size = 80 + 4L * basicRows.size();
+        for (String label : columLabels) {
+            size += label.length() + 4;
+        }
+        if (table == null) {
+            return size + estimateJsonSize(pivotRow) + estimateJsonSize(pivotColumn);
+        }
+        for (Fraction[] row : table) {
+            size += estimateJsonSize(row) + 2;
+        }
+        return size;
+    }
+
+    /**
+     * Estimate the size of an array of fractions, once written as JSON.
+     *
+     * @param values The fractions. Can be null.
+     * @return The estimated size, in bytes.
+     */
+    private static long estimateJsonSize(final Fraction[] values) {
+        if (values == null) {
+            return 4;
+        }
+        long size = 2;
+        for (Fraction value : values) {
+            // a decimal digit holds a bit less than 3.33 bits, plus the sign, the
+            // quotes and the separator
+            size += value.getNumerator().bitLength() * 3 / 10 + 5;
+            if (!value.getDenominator().equals(BigInteger.ONE)) {
+                size += value.getDenominator().bitLength() * 3 / 10 + 2;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Write the JSON value of this step, one row of the table at a time.
+     *
+     * @param writer Where to write the JSON.
+     * @throws IOException If the writer fails.
+     */
+    public void writeJson(final Writer writer) throws IOException {
+        writeJson(writer, null);
+    }
+
+    /**
+     * Write the JSON value of this step, with the given table instead of the
+     * pivot if only the pivot is kept. It is used when the previous step isn't
+     * sent along.
+     *
+     * @param writer Where to write the JSON.
+     * @param table  The whole table of this step, or null to write the step as
+     *               it is kept.
+     * @throws IOException If the writer fails.
+     */
+    public void writeJson(final Writer writer, Fraction[][] table) throws IOException {
+        writeJson(writer, table, null, null);
+    }
+
+    /**
+     * Write the JSON value of this step, with its table rendered as LaTeX.
+     *
+     * @param writer Where to write the JSON.
+     * @param table  The whole table of this step, or null to write the step as
+     *               it is kept.
+     * @param latex  Renders the table as LaTeX, or null to not render it.
+     * @param whole  The whole table of this step, rendered as LaTeX. Only used if
+     *               latex isn't null.
+     * @throws IOException If the writer fails.
+     */
+    public void writeJson(final Writer writer, Fraction[][] table, final LatexRenderer latex,
+            final Fraction[][] whole) throws IOException {
+        if (table == null) {
+            table = this.table;
+        }
+        writer.write("{\"out\":");
+        writer.write(String.valueOf(out));
+        writer.write(",\"in\":");
+        writer.write(String.valueOf(in));
+        writer.write(",\"twophase\":");
+        writer.write(Boolean.toString(twophase));
+        writer.write(",\"dualcut\":");
+        writer.write(Boolean.toString(dualcut));
+        if (table == null && isDelta()) {
+            writer.write(",\"pivotRow\":");
+            SimplexResponse.writeArray(writer, pivotRow);
+            writer.write(",\"pivotColumn\":");
+            SimplexResponse.writeArray(writer, pivotColumn);
+        } else {
+            writer.write(",\"table\":[");
+            for (int i = 0; i < table.length; i++) {
+                if (i > 0) {
+                    writer.write(", ");
+                }
+                SimplexResponse.writeArray(writer, table[i]);
+            }
+            writer.write(']');
+        }
+        if (latex != null && whole != null) {
+            writer.write(",\"latex\":");
+            latex.writeJson(writer, whole);
+        }
+        // don't add labels if none were given
+        if (columLabels.size() != 0) {
+            writer.write(",\"labels\":");
+            SimplexResponse.writeLabels(writer, columLabels);
+        }
+        writer.write(",\"basicId\":");
+        writer.write(basicRows.toString());
+        writer.write('}');
+    }
+
+    /**
+     * Write the binary value of this step: a varint of flags (out given, in
+     * given, twophase, dualcut, only the pivot kept), out and in if given, the
+     * pivot row and column or the table, the labels and the basic variables.
+     *
+     * @param out   Where to write the value.
+     * @param table The whole table of this step, or null to write the step as it
+     *              is kept.
+     * @throws IOException If the stream fails.
+     * @see BinaryOutput
+     */
+    public void writeBinary(final BinaryOutput out, Fraction[][] table) throws IOException {
+        if (table == null) {
+            table = this.table;
+        }
+        final boolean delta = table == null && isDelta();
+        out.writeVarint((this.out != null ? 1 : 0) | (in != null ? 2 : 0) | (twophase ? 4 : 0) |
+                (dualcut ? 8 : 0) | (delta ? 16 : 0));
+        if (this.out != null) {
+            out.writeVarint(this.out);
+        }
+        if (in != null) {
+            out.writeVarint(in);
+        }
+        if (delta) {
+            out.writeFractions(pivotRow);
+            out.writeFractions(pivotColumn);
+        } else {
+            out.writeTable(table);
+        }
+        out.writeStrings(columLabels);
+        out.writeVarint(basicRows.size());
+        for (int basic : basicRows) {
+            out.writeVarint(basic);
+        }
+    }
+
     /** Return a JSON formatted string of the class. */
     public String toString() {
-        String[] substring = new String[table.length];
-        for (int i = 0; i < table.length; i++) {
-            substring[i] = SimplexResponse.arrayToString(table[i]);
-        }
-        String columLabelsString = "[";
-        for (int i = 0; i < columLabels.size(); i++) {
-            columLabelsString += "\"" + columLabels.get(i) + "\"";
-            if (i < columLabels.size() - 1) {
-                columLabelsString += ",";
-            }
+        StringWriter writer = new StringWriter();
+        try {
+            writeJson(writer);
+        } catch (IOException e) {
+            // a StringWriter never fails
+            throw new UncheckedIOException(e);
         }
-        columLabelsString += "]";
-        return "{" +
-                "\"out\":" + out + "," +
-                "\"in\":" + in + "," +
-                "\"twophase\":" + twophase + "," +
-                "\"dualcut\":" + dualcut + "," +
-                "\"table\":" + Arrays.toString(substring) + "," +
-                // don't add labels if none were given
-                (columLabels.size() == 0 ? "" : "\"labels\":" + columLabelsString + ",") +
-                "\"basicId\":" + basicRows +
-                "}";
+        return writer.toString();
     }
 }
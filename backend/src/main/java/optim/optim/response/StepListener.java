@@ -0,0 +1,21 @@
+package optim.optim.response;
+
+import optim.optim.src.simplex.Fraction;
+
+/**
+ * Called with each resolution step as soon as it is made, kept or not by the
+ * {@link optim.optim.src.simplex.data.StepRetention}. It is used to stream the
+ * steps while solving.
+ */
+@FunctionalInterface
+public interface StepListener {
+    /**
+     * A step has been made. The steps are given one at a time, in the order they
+     * would be kept.
+     *
+     * @param step  The step made. It may only keep its pivot, see
+     *              {@link SimplexStep#isDelta()}.
+     * @param table The whole table of the step. Must not be modified.
+     */
+    void onStep(SimplexStep step, Fraction[][] table);
+}
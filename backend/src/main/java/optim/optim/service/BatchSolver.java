@@ -0,0 +1,188 @@
+package optim.optim.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+import optim.optim.controller.body.SimplexForm;
+import optim.optim.response.SimplexResponse;
+import optim.optim.src.Config;
+import optim.optim.src.log.Logger;
+
+/**
+ * Solve many forms in a single request. The forms of a batch are solved a few
+ * at a time, each one like it was sent alone, and their responses are given
+ * back in the order of the forms as soon as they are ready.
+ * <p>
+ * Only a bounded amount of forms is in the works at once, so a batch of any
+ * length keeps a bounded amount of responses in memory. When the queue of the
+ * solver threads is full, the forms wait for a place instead of being refused.
+ * A batch ended early cancels the forms being solved.
+ */
+@Service
+public class BatchSolver {
+    /** Called with the response of each form of a batch. */
+    @FunctionalInterface
+    public interface ResultListener {
+        /**
+         * Handle the response of a form.
+         *
+         * @param index    The index of the form in the batch.
+         * @param response The response of the form.
+         * @throws IOException If the response can't be written, which ends the
+         *                     batch.
+         */
+        void accept(int index, SimplexResponse response) throws IOException;
+    }
+
+    /** Service solving the forms. */
+    private final SimplexService simplexService;
+    /** Amount of forms of a batch solved at the same time. */
+    private final int parallelism;
+    /** Maximum amount of forms solved in a batch. */
+    private final int maxSize;
+    /**
+     * Threads waiting for the forms being solved. The resolutions themselves are
+     * run by the solver threads, so a virtual thread per form is enough.
+     */
+    private final ExecutorService executor = Executors
+            .newThreadPerTaskExecutor(Thread.ofVirtual().name("batch-", 1).factory());
+
+    /**
+     * Create a batch solver with the limits of the config.
+     *
+     * @param simplexService Service solving the forms.
+     */
+    @Autowired
+    public BatchSolver(SimplexService simplexService) {
+        this(simplexService, Config.Batch_Parallelism(), Config.Batch_MaxSize());
+    }
+
+    /**
+     * Create a batch solver with the given limits.
+     *
+     * @param simplexService Service solving the forms.
+     * @param parallelism    Amount of forms of a batch solved at the same time,
+     *                       at least 1.
+     * @param maxSize        Maximum amount of forms solved in a batch, at least 1.
+     * @throws IllegalArgumentException if a limit is less than 1.
+     */
+    public BatchSolver(SimplexService simplexService, int parallelism, int maxSize) throws IllegalArgumentException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism is less than 1");
+        }
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize is less than 1");
+        }
+        this.simplexService = simplexService;
+        this.parallelism = parallelism;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Solve a batch of forms. The listener is given the responses in the order of
+     * the forms. A null form, or one that can't be solved, only gets an error
+     * response, the others are solved anyway.
+     * <p>
+     * Past the maximum size, the form at this index gets a {@code batch} error and
+     * the batch ends, the forms left being not read.
+     *
+     * @param forms    The forms to solve. They are read as they are solved, so
+     *                 they can come from a stream. An {@link UncheckedIOException}
+     *                 thrown while reading them ends the batch.
+     * @param listener Called with the response of each form.
+     * @return The amount of responses given.
+     * @throws IOException If the forms can't be read, or the listener fails. The
+     *                     forms being solved are then cancelled.
+     */
+    public int solve(final Iterator<SimplexForm> forms, final ResultListener listener) throws IOException {
+        final ArrayDeque<Future<SimplexResponse>> solving = new ArrayDeque<Future<SimplexResponse>>();
+        int read = 0;
+        int given = 0;
+        try {
+            while (read < maxSize && forms.hasNext()) {
+                final SimplexForm form = forms.next();
+                // the window is bounded, so the forms wait for the solver threads
+                // instead of being refused
+                solving.add(executor.submit(() -> simplexService.solve(form, null, null, true)));
+                read++;
+                if (solving.size() >= parallelism) {
+                    listener.accept(given, result(solving.poll()));
+                    given++;
+                }
+            }
+            while (!solving.isEmpty()) {
+                listener.accept(given, result(solving.poll()));
+                given++;
+            }
+            if (read == maxSize && forms.hasNext()) {
+                listener.accept(given, new SimplexResponse().setStatus(HttpStatus.PAYLOAD_TOO_LARGE,
+                        "{\"batch\":{\"maxSize\":" + maxSize + "}}"));
+                given++;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (Future<SimplexResponse> future : solving) {
+                future.cancel(true);
+            }
+        }
+        return given;
+    }
+
+    /**
+     * Getter for {@link #parallelism}.
+     *
+     * @return Amount of forms of a batch solved at the same time.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Getter for {@link #maxSize}.
+     *
+     * @return Maximum amount of forms solved in a batch.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /** Stop the threads, dropping the forms being solved. */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Wait for the response of a form. A form whose resolution crashed gets an
+     * error response, so the rest of the batch goes on.
+     *
+     * @param future The resolution of the form.
+     * @return The response of the form.
+     * @throws InterruptedIOException If the thread is interrupted while waiting.
+     */
+    private static SimplexResponse result(final Future<SimplexResponse> future) throws InterruptedIOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("batch interrupted");
+        } catch (ExecutionException e) {
+            Logger.error("Batch form failed: " + e.getCause());
+            return new SimplexResponse().setStatus(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
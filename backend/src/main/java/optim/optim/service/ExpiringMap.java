@@ -0,0 +1,182 @@
+package optim.optim.service;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * Map keeping a bounded amount of values, each one expiring a while after it
+ * has been put. Past the maximum size, the eldest value is dropped: the oldest
+ * one, or the least recently used one if the map is ordered by access.
+ *
+ * @param <V> The type of the values.
+ */
+class ExpiringMap<V> {
+    /** A value kept. */
+    private static class Entry<V> {
+        /** The key of the value. */
+        final String key;
+        /** The value. */
+        final V value;
+        /** Time at which the value expires, in milliseconds. */
+        final long expiration;
+
+        /**
+         * Default constructor.
+         *
+         * @param key        The key of the value.
+         * @param value      The value.
+         * @param expiration Time at which the value expires, in milliseconds.
+         */
+        Entry(String key, V value, long expiration) {
+            this.key = key;
+            this.value = value;
+            this.expiration = expiration;
+        }
+    }
+
+    /** Maximum amount of values kept. */
+    private final int maxSize;
+    /** How long a value is kept, in milliseconds. */
+    private final long timeToLive;
+    /** The values, from the eldest to the latest. */
+    private final LinkedHashMap<String, Entry<V>> entries;
+    /**
+     * The values in the order they have been put, so from the first to expire.
+     * A value replaced or dropped stays until it reaches the head.
+     */
+    private final ArrayDeque<Entry<V>> expirations = new ArrayDeque<Entry<V>>();
+
+    /** Amount of values found. */
+    private long hits = 0;
+    /** Amount of values not found, or expired. */
+    private long misses = 0;
+    /** Amount of values dropped because the map was full. */
+    private long evictions = 0;
+
+    /**
+     * Default constructor. The limits are checked by the owner of the map.
+     *
+     * @param maxSize     Maximum amount of values kept. 0 keeps none.
+     * @param timeToLive  How long a value is kept, in milliseconds.
+     * @param accessOrder Whether the least recently used value is dropped first,
+     *                    instead of the oldest one.
+     */
+    ExpiringMap(int maxSize, long timeToLive, boolean accessOrder) {
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.entries = new LinkedHashMap<String, Entry<V>>(16, 0.75f, accessOrder);
+    }
+
+    /**
+     * Get a value.
+     *
+     * @param key The key of the value.
+     * @return The value, or null if it is unknown or has expired.
+     */
+    synchronized V get(final String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiration <= System.currentTimeMillis()) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Keep a value, dropping the eldest one if the map is full.
+     *
+     * @param key   The key of the value.
+     * @param value The value.
+     */
+    synchronized void put(final String key, final V value) {
+        if (maxSize == 0) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        removeExpired(now);
+        final Entry<V> entry = new Entry<V>(key, value, now + timeToLive);
+        entries.put(key, entry);
+        expirations.add(entry);
+        final Iterator<String> eldest = entries.keySet().iterator();
+        while (entries.size() > maxSize) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Amount of values kept.
+     *
+     * @return The amount of values, expired ones included until they are
+     *         removed.
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Getter for {@link #maxSize}.
+     *
+     * @return Maximum amount of values kept.
+     */
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Getter for {@link #hits}.
+     *
+     * @return Amount of values found.
+     */
+    synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Getter for {@link #misses}.
+     *
+     * @return Amount of values not found, or expired.
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Getter for {@link #evictions}.
+     *
+     * @return Amount of values dropped because the map was full.
+     */
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Remove the expired values. They all live as long, so they expire in the
+     * order they have been put, and only the head of {@link #expirations} is
+     * looked at.
+     *
+     * @param now The current time, in milliseconds.
+     */
+    private void removeExpired(final long now) {
+        while (!expirations.isEmpty() && expirations.peek().expiration <= now) {
+            final Entry<V> expired = expirations.poll();
+            // the value may have been replaced since
+            entries.remove(expired.key, expired);
+        }
+        // the values replaced or dropped before expiring are forgotten once they
+        // outnumber the values kept, without a get reordering the values
+        if (expirations.size() > 2 * maxSize) {
+            final Set<Entry<V>> kept = new HashSet<Entry<V>>(entries.values());
+            expirations.removeIf(entry -> !kept.contains(entry));
+        }
+    }
+}
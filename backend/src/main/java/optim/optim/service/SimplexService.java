@@ -1,42 +1,139 @@
 package optim.optim.service;
 
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.math3.exception.MathIllegalStateException;
 import org.apache.commons.math3.exception.TooManyIterationsException;
 import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
 import org.apache.commons.math3.optim.linear.Relationship;
 import org.apache.commons.math3.optim.linear.UnboundedSolutionException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
 import optim.optim.controller.body.AdvancedOptions;
 import optim.optim.controller.body.SimplexForm;
 import optim.optim.response.SimplexResponse;
 import optim.optim.response.SimplexResponse.Feasibility;
+import optim.optim.response.SimplexResponse.StepEncoding;
+import optim.optim.response.StepListener;
 import optim.optim.src.Config;
 import optim.optim.src.log.Logger;
 import optim.optim.src.simplex.Fraction;
 import optim.optim.src.simplex.PointFractionPair;
 import optim.optim.src.simplex.SimplexSolver;
+import optim.optim.src.simplex.SolveCancelledException;
+import optim.optim.src.simplex.TimeLimitExceededException;
+import optim.optim.src.simplex.data.BranchingRule;
 import optim.optim.src.simplex.data.Constraint;
 import optim.optim.src.simplex.data.ConstraintSet;
 import optim.optim.src.simplex.data.GoalType;
+import optim.optim.src.simplex.data.HeuristicBudget;
 import optim.optim.src.simplex.data.IntegerMethod;
+import optim.optim.src.simplex.data.NodeSelectionRule;
 import optim.optim.src.simplex.data.NonNegativeValues;
 import optim.optim.src.simplex.data.ObjectiveFunction;
+import optim.optim.src.simplex.data.ParallelSearch;
 import optim.optim.src.simplex.data.PivotSelectionRule;
+import optim.optim.src.simplex.data.SimplexData;
+import optim.optim.src.simplex.data.StepRetention;
+import optim.optim.src.simplex.data.StepRetention.Policy;
+import optim.optim.src.simplex.data.TerminationCriteria;
 
 /**
  * Service managing the simplex request between the controller and the logic.
  */
 @Service
 public class SimplexService {
+    /** The error of a cancelled job. */
+    private static final String CANCELLED = "{\"cancelled\":true}";
+
+    /** The responses of the latest problems solved. */
+    private SolveCache cache = new SolveCache();
+    /**
+     * The problems being solved, so the same problem asked again meanwhile waits
+     * for its response instead of being solved twice.
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<SimplexResponse>> inFlight = new ConcurrentHashMap<>();
+    /** Amount of requests that waited for the same problem being solved. */
+    private final AtomicLong coalesced = new AtomicLong();
+    /** Threads running the resolutions. Null to run them on the caller thread. */
+    private SolverPool solverPool = null;
+    /**
+     * Threads exploring the branch and bound nodes without a {@link #solverPool},
+     * shared by every resolution instead of being created for each one.
+     */
+    private final ForkJoinPool nodePool = new ForkJoinPool(Config.Simplex_MaxThreads());
+
     /** Default constructor. */
     public SimplexService() {
     }
 
+    /**
+     * Getter for {@link #cache}.
+     *
+     * @return The responses of the latest problems solved.
+     */
+    public SolveCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Setter for {@link #cache}.
+     *
+     * @param cache The responses of the latest problems solved.
+     */
+    @Autowired
+    public void setCache(SolveCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Setter for {@link #solverPool}.
+     *
+     * @param solverPool Threads running the resolutions. Null to run them on the
+     *                   caller thread.
+     */
+    @Autowired
+    public void setSolverPool(SolverPool solverPool) {
+        this.solverPool = solverPool;
+    }
+
+    /** Stop the threads exploring the nodes. */
+    @PreDestroy
+    public void shutdown() {
+        nodePool.shutdownNow();
+    }
+
+    /**
+     * Getter for {@link #coalesced}.
+     *
+     * @return Amount of requests that waited for the same problem being solved.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
     /**
      * Solve the simplex request, or return an error if it is malformated or non
      * logical.
@@ -45,6 +142,62 @@ public class SimplexService {
      * @return A simplex response of the problem.
      */
     public SimplexResponse solve(SimplexForm form) {
+        return solve(form, null);
+    }
+
+    /**
+     * Solve the simplex request, or return an error if it is malformated or non
+     * logical. The listener is given each step as soon as it is made.
+     * <p>
+     * Without a listener, a problem already solved is answered from the cache, and
+     * a problem being solved by another request waits for its response. If that
+     * request is cancelled, one of the requests waiting solves it instead.
+     *
+     * @param form         The simplex request form.
+     * @param stepListener Called with each step made, kept or not. Can be null.
+     * @return A simplex response of the problem.
+     */
+    public SimplexResponse solve(SimplexForm form, StepListener stepListener) {
+        return solve(form, stepListener, null);
+    }
+
+    /**
+     * Solve the simplex request of a job, or return an error if it is malformated
+     * or non logical. The job is started once the request has been checked, and
+     * cancelling it stops the resolution.
+     * <p>
+     * A job can be answered from the cache, or wait for the same problem being
+     * solved by another request. But no request waits for a job, as it may be
+     * cancelled. It is solved by the solver threads like the requests, waiting
+     * for a place in their queue instead of being refused.
+     *
+     * @param form         The simplex request form.
+     * @param stepListener Called with each step made, kept or not. Can be null.
+     * @param job          The job solving the request. Can be null.
+     * @return A simplex response of the problem, with a {@code cancelled} error
+     *         if the job has been cancelled.
+     */
+    public SimplexResponse solve(SimplexForm form, StepListener stepListener, SolveJob job) {
+        return solve(form, stepListener, job, false);
+    }
+
+    /**
+     * Solve the simplex request, or return an error if it is malformated or non
+     * logical. When every solver thread is busy and their queue is full, the
+     * request either waits for a place or is refused.
+     * <p>
+     * Interrupting the thread cancels the resolution, which is answered with a
+     * {@code cancelled} error.
+     *
+     * @param form         The simplex request form.
+     * @param stepListener Called with each step made, kept or not. Can be null.
+     * @param job          The job solving the request. Can be null.
+     * @param wait         Whether to wait for a place in the queue of the solver
+     *                     threads, instead of being refused with 503.
+     * @return A simplex response of the problem, with a {@code cancelled} error
+     *         if the job or the request has been cancelled.
+     */
+    public SimplexResponse solve(SimplexForm form, StepListener stepListener, SolveJob job, boolean wait) {
         SimplexResponse res = new SimplexResponse();
 
         if (form == null) {
@@ -65,6 +218,16 @@ public class SimplexService {
         Logger.trace("\tmaxIterations:  " + form.advanced.maxIterations);
         Logger.trace("\tpivot rule:     " + form.advanced.pivotSelectionRule);
         Logger.trace("\tinteger method: " + form.advanced.integerMethod);
+        Logger.trace("\tnode selection: " + form.advanced.nodeSelectionRule);
+        Logger.trace("\tbranching:      " + form.advanced.branchingRule);
+        Logger.trace("\tthreads:        " + form.advanced.threads);
+        Logger.trace("\tdeterministic:  " + form.advanced.deterministic);
+        Logger.trace("\theuristics:     " + form.advanced.heuristicsTime);
+        Logger.trace("\tabsolute gap:   " + form.advanced.absoluteGap);
+        Logger.trace("\trelative gap:   " + form.advanced.relativeGap);
+        Logger.trace("\ttime limit:     " + form.advanced.timeLimit);
+        Logger.trace("\tstep encoding:  " + form.advanced.stepEncoding);
+        Logger.trace("\tstep retention: " + form.advanced.stepRetention + " (" + form.advanced.stepRetentionSize + ")");
 
         // check values are valid (a JSON object is returned as status)
         if (form.m < 1) {
@@ -159,6 +322,91 @@ public class SimplexService {
                     "}}}");
         }
 
+        NodeSelectionRule nodeSelectionRule = AdvancedOptions.nodeSelectionRuleDefault;
+        try {
+            if (form.advanced.nodeSelectionRule != null) {
+                nodeSelectionRule = NodeSelectionRule.valueOf(form.advanced.nodeSelectionRule.trim().toUpperCase());
+            }
+        } catch (Exception e) {
+            return res.setStatus("{\"advanced\":{\"nodeSelectionRule\":{\"received\":\"" +
+                    form.advanced.nodeSelectionRule + "\",\"expected\":" +
+                    SimplexResponse.arrayToString(NodeSelectionRule.values()) +
+                    "}}}");
+        }
+
+        BranchingRule branchingRule = AdvancedOptions.branchingRuleDefault;
+        try {
+            if (form.advanced.branchingRule != null) {
+                branchingRule = BranchingRule.valueOf(form.advanced.branchingRule.trim().toUpperCase());
+            }
+        } catch (Exception e) {
+            return res.setStatus("{\"advanced\":{\"branchingRule\":{\"received\":\"" +
+                    form.advanced.branchingRule + "\",\"expected\":" +
+                    SimplexResponse.arrayToString(BranchingRule.values()) +
+                    "}}}");
+        }
+
+        final int threads = form.advanced.threads == null ? AdvancedOptions.threadsDefault
+                : form.advanced.threads;
+        if (threads < 1 || threads > Config.Simplex_MaxThreads()) {
+            return res.setStatus("{\"advanced\":{\"threads\":{\"min\":1,\"max\":" +
+                    Config.Simplex_MaxThreads() + ",\"received\":" + threads + "}}}");
+        }
+        final boolean deterministic = form.advanced.deterministic == null ? AdvancedOptions.deterministicDefault
+                : form.advanced.deterministic;
+        final int heuristicsTime = form.advanced.heuristicsTime == null ? AdvancedOptions.heuristicsTimeDefault
+                : form.advanced.heuristicsTime;
+        if (heuristicsTime < 0 || heuristicsTime > Config.Simplex_MaxHeuristicsTime()) {
+            return res.setStatus("{\"advanced\":{\"heuristicsTime\":{\"min\":0,\"max\":" +
+                    Config.Simplex_MaxHeuristicsTime() + ",\"received\":" + heuristicsTime + "}}}");
+        }
+        final double absoluteGap = form.advanced.absoluteGap == null ? AdvancedOptions.absoluteGapDefault
+                : form.advanced.absoluteGap;
+        if (!(absoluteGap >= 0) || Double.isInfinite(absoluteGap)) {
+            return res.setStatus("{\"advanced\":{\"absoluteGap\":{\"min\":0,\"received\":" + absoluteGap + "}}}");
+        }
+        final double relativeGap = form.advanced.relativeGap == null ? AdvancedOptions.relativeGapDefault
+                : form.advanced.relativeGap;
+        if (!(relativeGap >= 0) || Double.isInfinite(relativeGap)) {
+            return res.setStatus("{\"advanced\":{\"relativeGap\":{\"min\":0,\"received\":" + relativeGap + "}}}");
+        }
+        final int timeLimit = form.advanced.timeLimit == null ? AdvancedOptions.timeLimitDefault
+                : form.advanced.timeLimit;
+        if (timeLimit < 0) {
+            return res.setStatus("{\"advanced\":{\"timeLimit\":{\"min\":0,\"received\":" + timeLimit + "}}}");
+        }
+
+        StepEncoding stepEncoding = AdvancedOptions.stepEncodingDefault;
+        try {
+            if (form.advanced.stepEncoding != null) {
+                stepEncoding = StepEncoding.valueOf(form.advanced.stepEncoding.trim().toUpperCase());
+            }
+        } catch (Exception e) {
+            return res.setStatus("{\"advanced\":{\"stepEncoding\":{\"received\":\"" +
+                    form.advanced.stepEncoding + "\",\"expected\":" +
+                    SimplexResponse.arrayToString(StepEncoding.values()) +
+                    "}}}");
+        }
+
+        Policy stepRetention = AdvancedOptions.stepRetentionDefault;
+        try {
+            if (form.advanced.stepRetention != null) {
+                stepRetention = Policy.valueOf(form.advanced.stepRetention.trim().toUpperCase());
+            }
+        } catch (Exception e) {
+            return res.setStatus("{\"advanced\":{\"stepRetention\":{\"received\":\"" +
+                    form.advanced.stepRetention + "\",\"expected\":" +
+                    SimplexResponse.arrayToString(Policy.values()) +
+                    "}}}");
+        }
+        final int stepRetentionSize = form.advanced.stepRetentionSize == null
+                ? AdvancedOptions.stepRetentionSizeDefault
+                : form.advanced.stepRetentionSize;
+        if (stepRetentionSize < 1) {
+            return res.setStatus("{\"advanced\":{\"stepRetentionSize\":{\"min\":1,\"received\":" +
+                    stepRetentionSize + "}}}");
+        }
+
         // once everything has been checked, we can start looking at the values
         final double[] objectiveCoefs = Arrays.copyOfRange(form.objective, 1, form.n + 1);
 
@@ -166,8 +414,16 @@ public class SimplexService {
 
         // setup the solver
         SimplexSolver solver = new SimplexSolver(form.advanced.maxIterations);
+        res = new SimplexResponse(stepEncoding);
+        res.setStepListener(stepListener);
         solver.setResolutionSteps(res);
+        if (job != null && !job.start(solver)) {
+            return res.setStatus(CANCELLED);
+        }
         PointFractionPair optSolution = null;
+        String key = null;
+        boolean cancelled = false;
+        CompletableFuture<SimplexResponse> flight = null;
 
         try {
             // creating class for the solver data
@@ -183,17 +439,63 @@ public class SimplexService {
                         new Fraction(form.constants[i])));
             }
 
+            // the listener must be given every step, so the problem is solved anyway
+            if (stepListener == null) {
+                final GoalType goal = form.toMaximise ? GoalType.MAXIMIZE : GoalType.MINIMIZE;
+                // the steps and their counts follow the rows as they are sent
+                final boolean canonical = stepRetention == Policy.NONE;
+                key = key(f, constraints, goal, canonical, integerMethod != IntegerMethod.NONE, integerMethod,
+                        nodeSelectionRule, branchingRule, threads, deterministic, heuristicsTime,
+                        new Fraction(absoluteGap), new Fraction(relativeGap), timeLimit, solver.getMaxIterations(),
+                        stepEncoding, stepRetention, stepRetentionSize, pivotSelectionRule);
+                final SimplexResponse cached = key == null ? null : cache.get(key);
+                if (cached != null) {
+                    return cached.copy();
+                }
+                while (key != null) {
+                    // wait for the same problem if it is already being solved
+                    CompletableFuture<SimplexResponse> leader = inFlight.get(key);
+                    if (leader == null && job == null) {
+                        flight = new CompletableFuture<SimplexResponse>();
+                        leader = inFlight.putIfAbsent(key, flight);
+                        if (leader != null) {
+                            flight = null;
+                        }
+                    }
+                    if (leader == null) {
+                        break;
+                    }
+                    coalesced.incrementAndGet();
+                    final SimplexResponse shared = leader.join();
+                    if (shared != null) {
+                        return shared.copy();
+                    }
+                    // the leader gave up without a response, so a waiting request
+                    // solves the problem instead
+                }
+            }
+
             // the optSolution is a struct that have in getFirst the array of double
             // describing the point coordinates
             // and as second the value
             // in our case, first are the optimal values, and second is the optimum
-            optSolution = solver.solve(
+            final SimplexData[] datas = {
                     f,
                     new ConstraintSet(constraints),
                     form.toMaximise ? GoalType.MAXIMIZE : GoalType.MINIMIZE,
                     new NonNegativeValues(true),
                     integerMethod,
-                    pivotSelectionRule);
+                    nodeSelectionRule,
+                    branchingRule,
+                    new ParallelSearch(threads, deterministic,
+                            solverPool == null ? nodePool : solverPool.getNodePool()),
+                    new HeuristicBudget(heuristicsTime),
+                    new TerminationCriteria(new Fraction(absoluteGap), new Fraction(relativeGap), timeLimit),
+                    new StepRetention(stepRetention, stepRetentionSize),
+                    pivotSelectionRule };
+            // a job waits for a solver thread, its own thread only queues it
+            optSolution = solverPool == null ? solver.solve(datas)
+                    : solverPool.run(() -> solver.solve(datas), solver::cancel, wait || job != null);
 
             // get our response
             res = solver.getResolutionSteps();
@@ -209,7 +511,9 @@ public class SimplexService {
                 values[i] = optSolution.getFirst()[i];
             }
             res.values = values;
-            res.feasibility = Feasibility.FEASIBLE;
+            res.bound = solver.getBound();
+            // the bound is only above the optimum when the search stopped early
+            res.feasibility = res.bound.compareTo(optimum) > 0 ? Feasibility.FEASIBLE_GAP : Feasibility.FEASIBLE;
         } catch (NoFeasibleSolutionException nfse) {
             // handle not feasible
             Logger.trace(nfse.getMessage() + " (origin: " + nfse.getStackTrace()[0] + ")", false);
@@ -229,6 +533,24 @@ public class SimplexService {
             Logger.warn("ITERATIONS: " + tmie.getMessage());
             res.feasibility = Feasibility.ITERATIONS;
             res.setStatus("{\"iterations\":" + solver.getMaxIterations() + "}");
+        } catch (TimeLimitExceededException tlee) {
+            // handle the time limit like the iterations one
+            Logger.warn("TIME LIMIT: " + tlee.getMessage());
+            res.feasibility = Feasibility.ITERATIONS;
+            res.setStatus("{\"timeLimit\":" + tlee.getTimeLimit() + "}");
+        } catch (RejectedExecutionException ree) {
+            // every solver thread is busy, the client can try again later
+            Logger.warn("BUSY: " + ree.getMessage());
+            res.feasibility = Feasibility.UNKNWON;
+            res.setStatus(HttpStatus.SERVICE_UNAVAILABLE,
+                    "{\"solvers\":{\"maxQueued\":" + solverPool.getMaxQueued() + "}}");
+        } catch (SolveCancelledException | CancellationException e) {
+            // the job has been cancelled, or the request interrupted, nothing is
+            // returned
+            Logger.info("CANCELLED: " + e.getMessage());
+            res.feasibility = Feasibility.UNKNWON;
+            res.setStatus(CANCELLED);
+            cancelled = true;
         } catch (MathIllegalStateException e) {
             // math error here
             Logger.error("MATHS: " + e.getMessage() + " (origin: " + e.getStackTrace()[0] + ")");
@@ -247,13 +569,150 @@ public class SimplexService {
                 res.feasibility = Feasibility.UNKNWON;
                 res.setStatus(HttpStatus.INTERNAL_SERVER_ERROR);
             } else {
+                if (flight != null) {
+                    inFlight.remove(key, flight);
+                    flight.completeExceptionally(unrecoverableError);
+                }
                 throw new Error(unrecoverableError);
             }
         }
 
+        if (key != null) {
+            final SimplexResponse shared = res.copy();
+            // a problem stopped by the limits may be solved with more time, and the
+            // gap left by the time limit depends on the load of the server
+            final boolean stopped = res.feasibility == Feasibility.ITERATIONS
+                    || res.feasibility == Feasibility.FEASIBLE_GAP && solver.isStoppedByTimeLimit();
+            if (res.code == HttpStatus.OK.value() && !stopped) {
+                cache.put(key, shared);
+            }
+            if (flight != null) {
+                // cached before being removed, so no request solves it again meanwhile
+                inFlight.remove(key, flight);
+                // the waiting requests weren't cancelled, they solve it themselves
+                flight.complete(cancelled ? null : shared);
+            }
+        }
         return res;
     }
 
+    /**
+     * Hash a problem with every option changing its response, to recognize a
+     * problem already solved.
+     * <p>
+     * The steps, their tables and their counts follow the rows as they are sent,
+     * so the rows are kept as they are. When neither the steps nor their summary
+     * are kept, the constraints are sorted and each one is scaled by the greatest
+     * common divisor of its terms, so a problem sent again with its rows
+     * reordered or scaled is recognized.
+     *
+     * @param f           The objective function.
+     * @param constraints The constraints.
+     * @param goal        The goal of the problem.
+     * @param canonical   Whether the rows can be reordered and scaled.
+     * @param integer     Whether the problem is solved in integers.
+     * @param options     The options of the resolution, with their defaults
+     *                    resolved.
+     * @return The URL safe base 64 of the SHA-256 of the problem, or null if it
+     *         can't be hashed.
+     */
+    private static String key(final ObjectiveFunction f, final ArrayList<Constraint> constraints,
+            final GoalType goal, final boolean canonical, final boolean integer, final Object... options) {
+        final String[] rows = new String[constraints.size()];
+        for (int i = 0; i < rows.length; i++) {
+            final Constraint constraint = constraints.get(i);
+            rows[i] = canonical ? canonicalRow(constraint, integer)
+                    : Arrays.toString(constraint.getCoefficients()) + ' ' + constraint.getRelationship() + ' '
+                            + constraint.getValue();
+        }
+        if (canonical) {
+            Arrays.sort(rows);
+        }
+
+        final StringBuilder problem = new StringBuilder();
+        problem.append(goal).append(' ').append(Arrays.toString(f.getCoefficients()))
+                .append(" + ").append(f.getConstant()).append('\n');
+        for (String row : rows) {
+            problem.append(row).append('\n');
+        }
+        problem.append(Arrays.toString(options));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(problem.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            Logger.error("Couldn't hash the problem! Message: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write a constraint scaled to its smallest integer terms, so the constraints
+     * differing by a positive factor are written the same way.
+     * <p>
+     * The slack variables of an integer problem must be integers, so scaling a
+     * row with fractional terms changes its integer solutions. Those rows are
+     * kept as they are, the others are only divided by the gcd of their terms.
+     *
+     * @param constraint The constraint.
+     * @param integer    Whether the problem is solved in integers.
+     * @return The constraint, written with its relationship.
+     */
+    private static String canonicalRow(final Constraint constraint, final boolean integer) {
+        final Fraction[] terms = Arrays.copyOf(constraint.getCoefficients(),
+                constraint.getCoefficients().length + 1);
+        terms[terms.length - 1] = constraint.getValue();
+
+        BigInteger lcm = BigInteger.ONE;
+        for (Fraction term : terms) {
+            lcm = lcm.divide(lcm.gcd(term.getDenominator())).multiply(term.getDenominator());
+        }
+        if (!integer || lcm.equals(BigInteger.ONE)) {
+            BigInteger gcd = BigInteger.ZERO;
+            for (Fraction term : terms) {
+                gcd = gcd.gcd(term.getNumerator().multiply(lcm.divide(term.getDenominator())));
+            }
+            if (gcd.signum() != 0) {
+                final Fraction factor = new Fraction(lcm, gcd);
+                for (int i = 0; i < terms.length; i++) {
+                    terms[i] = terms[i].multiply(factor);
+                }
+            }
+        }
+        return Arrays.toString(Arrays.copyOf(terms, terms.length - 1)) + ' ' + constraint.getRelationship() + ' '
+                + terms[terms.length - 1];
+    }
+
+    /**
+     * Writes the forms with their fields sorted, so the same form is always written
+     * the same way.
+     */
+    private static final ObjectMapper canonicalMapper = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    /**
+     * Hash the simplex request form, to recognize a form already solved. Two forms
+     * with the same fields give the same hash.
+     *
+     * @param form The simplex request form.
+     * @return The URL safe base 64 of the first 128 bits of the SHA-256 of the
+     *         form, or null if the form can't be hashed.
+     */
+    public String hash(SimplexForm form) {
+        if (form == null) {
+            return null;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonicalMapper.writeValueAsBytes(form));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            Logger.error("Couldn't hash the form! Message: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Transform a 2D array of double into it's string representation.
      *
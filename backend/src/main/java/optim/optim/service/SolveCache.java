@@ -0,0 +1,109 @@
+package optim.optim.service;
+
+import org.springframework.stereotype.Service;
+
+import optim.optim.response.SimplexResponse;
+import optim.optim.src.Config;
+
+/**
+ * Keep the responses of the latest problems solved, so the same problem with
+ * the same options is answered without being solved again. The cache is
+ * bounded, dropping the least recently used problems first, and the problems
+ * expire after a while.
+ */
+@Service
+public class SolveCache {
+    /** The responses, from the least to the most recently used. */
+    private final ExpiringMap<SimplexResponse> entries;
+
+    /** Create a cache with the limits of the config. */
+    public SolveCache() {
+        this(Config.Cache_MaxSize(), Config.Cache_TimeToLive());
+    }
+
+    /**
+     * Create a cache with the given limits.
+     *
+     * @param maxSize    Maximum amount of responses kept. 0 disables the cache.
+     * @param timeToLive How long a response is kept, in milliseconds, at least 1.
+     * @throws IllegalArgumentException if maxSize is negative or timeToLive is
+     *                                  less than 1.
+     */
+    public SolveCache(int maxSize, long timeToLive) throws IllegalArgumentException {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize is negative");
+        }
+        if (timeToLive < 1) {
+            throw new IllegalArgumentException("timeToLive is less than 1");
+        }
+        this.entries = new ExpiringMap<SimplexResponse>(maxSize, timeToLive, true);
+    }
+
+    /**
+     * Get the response of a problem.
+     *
+     * @param key The key of the problem.
+     * @return The response, or null if it is unknown or has expired. Must not be
+     *         modified.
+     */
+    public SimplexResponse get(final String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Keep the response of a problem, dropping the least recently used one if the
+     * cache is full.
+     *
+     * @param key      The key of the problem.
+     * @param response The response. Must not be modified afterward.
+     */
+    public void put(final String key, final SimplexResponse response) {
+        entries.put(key, response);
+    }
+
+    /**
+     * Amount of responses kept.
+     *
+     * @return The amount of responses, expired ones included until they are
+     *         removed.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Maximum amount of responses kept.
+     *
+     * @return The maximum amount of responses.
+     */
+    public int getMaxSize() {
+        return entries.getMaxSize();
+    }
+
+    /**
+     * Amount of responses found.
+     *
+     * @return The amount of responses found.
+     */
+    public long getHits() {
+        return entries.getHits();
+    }
+
+    /**
+     * Amount of responses not found, or expired.
+     *
+     * @return The amount of responses not found, or expired.
+     */
+    public long getMisses() {
+        return entries.getMisses();
+    }
+
+    /**
+     * Amount of responses dropped because the cache was full.
+     *
+     * @return The amount of responses dropped because the cache was full.
+     */
+    public long getEvictions() {
+        return entries.getEvictions();
+    }
+}
@@ -0,0 +1,182 @@
+package optim.optim.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.Future;
+
+import optim.optim.response.LatexRenderer;
+import optim.optim.response.SimplexResponse;
+import optim.optim.src.simplex.SimplexSolver;
+
+/**
+ * A solve made in the background. Its status can be fetched while it is being
+ * solved, and it can be cancelled at any time.
+ */
+public class SolveJob {
+    /** The status of a job. */
+    public enum Status {
+        /** Waiting for a thread to be solved. */
+        QUEUED,
+        /** Being solved. */
+        RUNNING,
+        /** Solved, its response can be fetched. */
+        DONE,
+        /** Cancelled before being solved. */
+        CANCELLED,
+    }
+
+    /** Id of the job. */
+    private final String id;
+    /** Status of the job. */
+    private Status status = Status.QUEUED;
+    /** Response of the solve, once done. */
+    private SimplexResponse response = null;
+    /** Solver of the job, once running. */
+    private SimplexSolver solver = null;
+    /** The task solving the job, to drop it from the queue when cancelled. */
+    private Future<?> task = null;
+    /** Time at which the job has been done or cancelled, in milliseconds. */
+    private long finishedAt = 0;
+
+    /**
+     * Default constructor.
+     *
+     * @param id Id of the job.
+     */
+    public SolveJob(final String id) {
+        this.id = id;
+    }
+
+    /**
+     * Start solving the job.
+     *
+     * @param solver The solver of the job, cancelled with the job.
+     * @return False if the job has been cancelled, and must not be solved.
+     */
+    public synchronized boolean start(final SimplexSolver solver) {
+        if (status == Status.CANCELLED) {
+            return false;
+        }
+        status = Status.RUNNING;
+        this.solver = solver;
+        return true;
+    }
+
+    /**
+     * End the job with its response. Nothing is done if the job has been
+     * cancelled.
+     *
+     * @param response The response of the solve.
+     */
+    public synchronized void finish(final SimplexResponse response) {
+        if (status == Status.CANCELLED) {
+            return;
+        }
+        this.response = response;
+        status = Status.DONE;
+        solver = null;
+        finishedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Cancel the job. A queued job is dropped, a job waiting for a solver thread
+     * leaves their queue, and a running one stops at the next iteration of its
+     * solver.
+     *
+     * @return False if the job was already done or cancelled.
+     */
+    public synchronized boolean cancel() {
+        if (status == Status.DONE || status == Status.CANCELLED) {
+            return false;
+        }
+        status = Status.CANCELLED;
+        if (solver != null) {
+            solver.cancel();
+            solver = null;
+        }
+        if (task != null) {
+            // interrupted to stop waiting for a solver thread
+            task.cancel(true);
+        }
+        finishedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Getter for {@link #id}.
+     *
+     * @return Id of the job.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Getter for {@link #status}.
+     *
+     * @return Status of the job.
+     */
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Getter for {@link #response}.
+     *
+     * @return Response of the solve, or null if it is not done.
+     */
+    public synchronized SimplexResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * Whether the job is done or cancelled.
+     *
+     * @return True if the job won't change anymore.
+     */
+    public synchronized boolean isFinished() {
+        return status == Status.DONE || status == Status.CANCELLED;
+    }
+
+    /**
+     * Getter for {@link #finishedAt}.
+     *
+     * @return Time at which the job has been done or cancelled, in milliseconds,
+     *         or 0 if it isn't finished.
+     */
+    synchronized long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * Setter for {@link #task}.
+     *
+     * @param task The task solving the job.
+     */
+    synchronized void setTask(final Future<?> task) {
+        this.task = task;
+    }
+
+    /**
+     * Write the job as JSON: its id, its status, and once done, its response with
+     * the steps.
+     *
+     * @param writer Where to write the JSON.
+     * @param latex  Renders the tables as LaTeX. Can be null.
+     * @throws IOException If the writer fails.
+     */
+    public void writeJson(final Writer writer, final LatexRenderer latex) throws IOException {
+        final Status status;
+        final SimplexResponse response;
+        synchronized (this) {
+            status = this.status;
+            response = this.response;
+        }
+        writer.write("{\"id\":\"" + id + "\",\"status\":\"" + status.name() + "\"");
+        if (response != null) {
+            writer.write(",\"result\":");
+            response.writeJson(writer, true, latex);
+        }
+        writer.write('}');
+    }
+}
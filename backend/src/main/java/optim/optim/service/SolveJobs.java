@@ -0,0 +1,202 @@
+package optim.optim.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+import optim.optim.controller.body.SimplexForm;
+import optim.optim.response.SimplexResponse;
+import optim.optim.src.Config;
+
+/**
+ * Solve the forms in the background, so a request doesn't wait for the whole
+ * resolution. The jobs are handed to the solver threads by a bounded amount of
+ * threads, with a bounded queue, and are kept a while once finished so their
+ * result can be fetched.
+ */
+@Service
+public class SolveJobs {
+    /** Service solving the forms. */
+    private final SimplexService simplexService;
+    /** Threads solving the jobs. */
+    private final ThreadPoolExecutor executor;
+    /** Maximum amount of jobs kept. */
+    private final int maxStored;
+    /** How long a finished job is kept, in milliseconds. */
+    private final long timeToLive;
+    /** The jobs, from the oldest to the latest. */
+    private final LinkedHashMap<String, SolveJob> jobs = new LinkedHashMap<String, SolveJob>();
+
+    /**
+     * Create the jobs with the limits of the config.
+     *
+     * @param simplexService Service solving the forms.
+     */
+    @Autowired
+    public SolveJobs(SimplexService simplexService) {
+        this(simplexService, Config.Jobs_Threads(), Config.Jobs_MaxQueued(), Config.Jobs_MaxStored(),
+                Config.Jobs_TimeToLive());
+    }
+
+    /**
+     * Create the jobs with the given limits.
+     *
+     * @param simplexService Service solving the forms.
+     * @param threads        Amount of jobs handed to the solver threads at the same
+     *                       time, at least 1.
+     * @param maxQueued      Maximum amount of jobs waiting, at least 1.
+     * @param maxStored      Maximum amount of jobs kept, at least 1.
+     * @param timeToLive     How long a finished job is kept, in milliseconds, at
+     *                       least 1.
+     * @throws IllegalArgumentException if a limit is less than 1.
+     */
+    public SolveJobs(SimplexService simplexService, int threads, int maxQueued, int maxStored, long timeToLive)
+            throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads is less than 1");
+        }
+        if (maxQueued < 1) {
+            throw new IllegalArgumentException("maxQueued is less than 1");
+        }
+        if (maxStored < 1) {
+            throw new IllegalArgumentException("maxStored is less than 1");
+        }
+        if (timeToLive < 1) {
+            throw new IllegalArgumentException("timeToLive is less than 1");
+        }
+        this.simplexService = simplexService;
+        this.maxStored = maxStored;
+        this.timeToLive = timeToLive;
+
+        final AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(maxQueued), (runnable) -> {
+                    final Thread thread = new Thread(runnable, "solve-job-" + count.incrementAndGet());
+                    // the jobs left don't keep the server alive
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queue a form to be solved.
+     *
+     * @param form The simplex request form.
+     * @return The job solving the form.
+     * @throws RejectedExecutionException if too many jobs are waiting.
+     */
+    public SolveJob submit(final SimplexForm form) throws RejectedExecutionException {
+        final SolveJob job = new SolveJob(UUID.randomUUID().toString());
+        synchronized (job) {
+            // the task is set before it can run, and be cancelled
+            job.setTask(executor.submit(() -> run(job, form)));
+        }
+        put(job);
+        return job;
+    }
+
+    /**
+     * Get a job.
+     *
+     * @param id The id of the job.
+     * @return The job, or null if it is unknown or has expired.
+     */
+    public synchronized SolveJob get(final String id) {
+        removeExpired(System.currentTimeMillis());
+        return jobs.get(id);
+    }
+
+    /**
+     * Cancel a job, if it isn't finished.
+     *
+     * @param id The id of the job.
+     * @return The job, or null if it is unknown or has expired.
+     */
+    public SolveJob cancel(final String id) {
+        final SolveJob job = get(id);
+        if (job != null && job.cancel()) {
+            // the cancelled jobs leave the queue at once
+            executor.purge();
+        }
+        return job;
+    }
+
+    /**
+     * Amount of jobs kept.
+     *
+     * @return The amount of jobs, expired ones included until they are removed.
+     */
+    public synchronized int size() {
+        return jobs.size();
+    }
+
+    /** Stop the threads, cancelling the running jobs. */
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            for (SolveJob job : jobs.values()) {
+                job.cancel();
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Solve a job. It is always finished, even if the solve fails.
+     *
+     * @param job  The job.
+     * @param form The simplex request form.
+     */
+    private void run(final SolveJob job, final SimplexForm form) {
+        SimplexResponse res = null;
+        try {
+            res = simplexService.solve(form, null, job);
+        } finally {
+            job.finish(res != null ? res : new SimplexResponse().setStatus(HttpStatus.INTERNAL_SERVER_ERROR));
+        }
+    }
+
+    /**
+     * Keep a job, dropping the oldest finished one if the store is full. The
+     * unfinished jobs are never dropped, the queue bounding them.
+     *
+     * @param job The job.
+     */
+    private synchronized void put(final SolveJob job) {
+        removeExpired(System.currentTimeMillis());
+        final Iterator<SolveJob> oldest = jobs.values().iterator();
+        while (jobs.size() >= maxStored && oldest.hasNext()) {
+            if (oldest.next().isFinished()) {
+                oldest.remove();
+            }
+        }
+        jobs.put(job.getId(), job);
+    }
+
+    /**
+     * Remove the expired jobs. They expire once finished, which isn't the order
+     * they have been added in, so they are all looked at.
+     *
+     * @param now The current time, in milliseconds.
+     */
+    private void removeExpired(final long now) {
+        final Iterator<SolveJob> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            final SolveJob job = it.next();
+            if (job.isFinished() && job.getFinishedAt() + timeToLive <= now) {
+                it.remove();
+            }
+        }
+    }
+}
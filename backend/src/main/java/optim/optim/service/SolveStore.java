@@ -0,0 +1,74 @@
+package optim.optim.service;
+
+import java.util.UUID;
+
+import org.springframework.stereotype.Service;
+
+import optim.optim.response.SimplexResponse;
+import optim.optim.src.Config;
+
+/**
+ * Keep the latest solves, so their steps can be fetched page by page instead of
+ * being sent all at once. The store is bounded, and the solves expire after a
+ * while.
+ */
+@Service
+public class SolveStore {
+    /** The solves, from the oldest to the latest. */
+    private final ExpiringMap<SimplexResponse> solves;
+
+    /** Create a store with the limits of the config. */
+    public SolveStore() {
+        this(Config.Solves_MaxStored(), Config.Solves_TimeToLive());
+    }
+
+    /**
+     * Create a store with the given limits.
+     *
+     * @param maxStored  Maximum amount of solves kept, at least 1.
+     * @param timeToLive How long a solve is kept, in milliseconds, at least 1.
+     * @throws IllegalArgumentException if a limit is less than 1.
+     */
+    public SolveStore(int maxStored, long timeToLive) throws IllegalArgumentException {
+        if (maxStored < 1) {
+            throw new IllegalArgumentException("maxStored is less than 1");
+        }
+        if (timeToLive < 1) {
+            throw new IllegalArgumentException("timeToLive is less than 1");
+        }
+        this.solves = new ExpiringMap<SimplexResponse>(maxStored, timeToLive, false);
+    }
+
+    /**
+     * Keep a solve, dropping the oldest one if the store is full. The id of the
+     * response is set.
+     *
+     * @param response The response of the solve.
+     * @return The id of the solve.
+     */
+    public String put(final SimplexResponse response) {
+        final String id = UUID.randomUUID().toString();
+        response.id = id;
+        solves.put(id, response);
+        return id;
+    }
+
+    /**
+     * Get a solve.
+     *
+     * @param id The id of the solve.
+     * @return The response of the solve, or null if it is unknown or has expired.
+     */
+    public SimplexResponse get(final String id) {
+        return solves.get(id);
+    }
+
+    /**
+     * Amount of solves kept.
+     *
+     * @return The amount of solves, expired ones included until they are removed.
+     */
+    public int size() {
+        return solves.size();
+    }
+}
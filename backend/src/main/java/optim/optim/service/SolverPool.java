@@ -0,0 +1,217 @@
+package optim.optim.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+import optim.optim.src.Config;
+
+/**
+ * Threads running the resolutions of the requests. The requests are handled by
+ * virtual threads, which are cheap to block but shouldn't do long computations,
+ * so they hand the resolutions to a fixed amount of platform threads and wait.
+ * The queue is bounded, so a burst of large problems is refused at once instead
+ * of making every request wait.
+ * <p>
+ * The branch and bound nodes of the resolutions are explored by the same
+ * threads (see {@link #getNodePool()}), so the amount of threads computing at
+ * once stays the amount of threads of the pool, whatever the threads asked for
+ * by each request.
+ */
+@Service
+public class SolverPool {
+    /** Threads running the resolutions and exploring their nodes. */
+    private final ForkJoinPool pool;
+    /** Maximum amount of resolutions waiting. */
+    private final int maxQueued;
+    /** Resolutions that can still be run or queued. */
+    private final Semaphore permits;
+    /** Amount of resolutions waiting for a thread. */
+    private final AtomicInteger queued = new AtomicInteger();
+    /** Amount of resolutions running. */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /** Create a pool with the limits of the config. */
+    public SolverPool() {
+        this(Config.Solvers_Threads(), Config.Solvers_MaxQueued());
+    }
+
+    /**
+     * Create a pool with the given limits.
+     *
+     * @param threads   Amount of resolutions run at the same time, at least 1.
+     * @param maxQueued Maximum amount of resolutions waiting, at least 1.
+     * @throws IllegalArgumentException if a limit is less than 1.
+     */
+    public SolverPool(int threads, int maxQueued) throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads is less than 1");
+        }
+        if (maxQueued < 1) {
+            throw new IllegalArgumentException("maxQueued is less than 1");
+        }
+        this.maxQueued = maxQueued;
+        this.permits = new Semaphore(threads + maxQueued);
+
+        final AtomicInteger count = new AtomicInteger();
+        // no spare thread is added while a resolution waits for its nodes: it
+        // explores them itself
+        pool = new ForkJoinPool(threads, (forkJoinPool) -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+                    .newThread(forkJoinPool);
+            thread.setName("solver-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false, threads, threads, 1, (forkJoinPool) -> true, 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Run a resolution on the pool, and wait for it. What it throws is thrown
+     * again as is.
+     *
+     * @param <T>        The type of the result.
+     * @param resolution The resolution.
+     * @return The result of the resolution.
+     * @throws RejectedExecutionException if too many resolutions are waiting.
+     * @throws CancellationException      if the thread is interrupted while
+     *                                    waiting. The resolution is dropped if it
+     *                                    hasn't started yet.
+     * @throws Exception                  if the resolution fails.
+     */
+    public <T> T run(final Callable<T> resolution) throws RejectedExecutionException, Exception {
+        return run(resolution, null, false);
+    }
+
+    /**
+     * Run a resolution on the pool, and wait for it. What it throws is thrown
+     * again as is.
+     * <p>
+     * The threads of the pool don't stop on an interrupt, so a resolution already
+     * running when the thread waiting for it is interrupted is only stopped by
+     * the given cancel.
+     *
+     * @param <T>        The type of the result.
+     * @param resolution The resolution.
+     * @param cancel     Stops the resolution once it is running. Can be null.
+     * @param wait       Whether to wait for a place in the queue when it is full,
+     *                   instead of being refused.
+     * @return The result of the resolution.
+     * @throws RejectedExecutionException if too many resolutions are waiting, and
+     *                                    wait is false.
+     * @throws CancellationException      if the thread is interrupted while
+     *                                    waiting. The resolution is dropped if it
+     *                                    hasn't started yet, and cancelled
+     *                                    otherwise.
+     * @throws Exception                  if the resolution fails.
+     */
+    public <T> T run(final Callable<T> resolution, final Runnable cancel, final boolean wait)
+            throws RejectedExecutionException, Exception {
+        if (wait) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("interrupted while waiting for a place in the queue");
+            }
+        } else if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("too many resolutions are waiting");
+        }
+        // set by whichever comes first of the start and the cancellation
+        final AtomicBoolean claimed = new AtomicBoolean();
+        queued.incrementAndGet();
+        final ForkJoinTask<T> task = ForkJoinTask.adaptInterruptible(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            try {
+                return resolution.call();
+            } finally {
+                active.decrementAndGet();
+                permits.release();
+            }
+        });
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            permits.release();
+            throw e;
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            if (claimed.compareAndSet(false, true)) {
+                queued.decrementAndGet();
+                permits.release();
+            } else if (cancel != null) {
+                cancel.run();
+            }
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("interrupted while waiting for the resolution");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw (Error) e.getCause();
+        }
+    }
+
+    /**
+     * Pool on which the resolutions explore their branch and bound nodes. The
+     * nodes are run by the threads of the resolutions, so they count against the
+     * same amount of threads.
+     *
+     * @return The threads of the pool.
+     */
+    public ForkJoinPool getNodePool() {
+        return pool;
+    }
+
+    /**
+     * Getter for {@link #maxQueued}.
+     *
+     * @return Maximum amount of resolutions waiting.
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * Amount of resolutions waiting for a thread.
+     *
+     * @return The amount of resolutions queued.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Amount of resolutions running.
+     *
+     * @return The amount of resolutions running.
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /** Stop the threads. */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
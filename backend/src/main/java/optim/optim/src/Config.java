@@ -95,6 +95,126 @@ public abstract class Config {
                 50,
                 (v) -> v > 0);
 
+        Simplex_MaxThreads = parseInt(prop.getProperty(
+                "simplex.max_threads", "0"),
+                0,
+                (v) -> v >= 0);
+        if (Simplex_MaxThreads == 0) {
+            Simplex_MaxThreads = Runtime.getRuntime().availableProcessors();
+        }
+
+        Simplex_MaxHeuristicsTime = parseInt(prop.getProperty(
+                "simplex.max_heuristics_time", "1000"),
+                1000,
+                (v) -> v >= 0);
+
+        Solves_MaxStored = parseInt(prop.getProperty(
+                "solves.max_stored", "100"),
+                100,
+                (v) -> v > 0);
+
+        Solves_TimeToLive = parseInt(prop.getProperty(
+                "solves.time_to_live", "600000"),
+                600000,
+                (v) -> v > 0);
+
+        Solves_MaxPageSize = parseInt(prop.getProperty(
+                "solves.max_page_size", "100"),
+                100,
+                (v) -> v > 0);
+
+        Responses_Compression = Boolean.valueOf((String) prop.getProperty(
+                "responses.compression",
+                "true"));
+
+        Responses_CompressionMinSize = parseInt(prop.getProperty(
+                "responses.compression_min_size", "2048"),
+                2048,
+                (v) -> v >= 0);
+
+        Responses_MaxSteps = parseInt(prop.getProperty(
+                "responses.max_steps", "10000"),
+                10000,
+                (v) -> v >= 0);
+
+        Responses_MaxTableCells = parseInt(prop.getProperty(
+                "responses.max_table_cells", "250000"),
+                250000,
+                (v) -> v >= 0);
+
+        Responses_MaxBytes = parseInt(prop.getProperty(
+                "responses.max_bytes", "67108864"),
+                67108864,
+                (v) -> v >= 0);
+
+        Responses_LatexCacheSize = parseInt(prop.getProperty(
+                "responses.latex_cache_size", "10000"),
+                10000,
+                (v) -> v >= 0);
+
+        Cache_MaxSize = parseInt(prop.getProperty(
+                "cache.max_size", "1000"),
+                1000,
+                (v) -> v >= 0);
+
+        Cache_TimeToLive = parseInt(prop.getProperty(
+                "cache.time_to_live", "3600000"),
+                3600000,
+                (v) -> v > 0);
+
+        Jobs_Threads = parseInt(prop.getProperty(
+                "jobs.threads", "0"),
+                0,
+                (v) -> v >= 0);
+        if (Jobs_Threads == 0) {
+            Jobs_Threads = Runtime.getRuntime().availableProcessors();
+        }
+
+        Jobs_MaxQueued = parseInt(prop.getProperty(
+                "jobs.max_queued", "100"),
+                100,
+                (v) -> v > 0);
+
+        Jobs_MaxStored = parseInt(prop.getProperty(
+                "jobs.max_stored", "1000"),
+                1000,
+                (v) -> v > 0);
+
+        Jobs_TimeToLive = parseInt(prop.getProperty(
+                "jobs.time_to_live", "600000"),
+                600000,
+                (v) -> v > 0);
+
+        Solvers_VirtualThreads = Boolean.valueOf((String) prop.getProperty(
+                "solvers.virtual_threads",
+                "true"));
+
+        Solvers_Threads = parseInt(prop.getProperty(
+                "solvers.threads", "0"),
+                0,
+                (v) -> v >= 0);
+        if (Solvers_Threads == 0) {
+            Solvers_Threads = Runtime.getRuntime().availableProcessors();
+        }
+
+        Solvers_MaxQueued = parseInt(prop.getProperty(
+                "solvers.max_queued", "32"),
+                32,
+                (v) -> v > 0);
+
+        Batch_MaxSize = parseInt(prop.getProperty(
+                "batch.max_size", "10000"),
+                10000,
+                (v) -> v > 0);
+
+        Batch_Parallelism = parseInt(prop.getProperty(
+                "batch.parallelism", "0"),
+                0,
+                (v) -> v >= 0);
+        if (Batch_Parallelism == 0) {
+            Batch_Parallelism = Solvers_Threads;
+        }
+
         return res;
     }
 
@@ -235,6 +355,379 @@ public abstract class Config {
         return Simplex_MaxConstraints;
     }
 
+    /**
+     * The maximum number of threads a single request can use to explore a branch
+     * and bound tree. 0 means the amount of available processors.
+     * Default: 0
+     */
+    private static int Simplex_MaxThreads;
+
+    /**
+     * The maximum number of threads a single request can use to explore a branch
+     * and bound tree.
+     *
+     * @return Default: the amount of available processors.
+     */
+    public static int Simplex_MaxThreads() {
+        return Simplex_MaxThreads;
+    }
+
+    /**
+     * The maximum time, in milliseconds, a single request can give to the primal
+     * heuristics looking for an integer solution.
+     * Default: 1000
+     */
+    private static int Simplex_MaxHeuristicsTime;
+
+    /**
+     * The maximum time, in milliseconds, a single request can give to the primal
+     * heuristics looking for an integer solution.
+     *
+     * @return Default: 1000
+     */
+    public static int Simplex_MaxHeuristicsTime() {
+        return Simplex_MaxHeuristicsTime;
+    }
+
+    // #endregion
+
+    // #region Solves
+
+    /**
+     * The maximum number of solves kept, so their steps can be fetched later.
+     * Default: 100
+     */
+    private static int Solves_MaxStored;
+
+    /**
+     * The maximum number of solves kept, so their steps can be fetched later.
+     *
+     * @return Default: 100
+     */
+    public static int Solves_MaxStored() {
+        return Solves_MaxStored;
+    }
+
+    /**
+     * How long a solve is kept, in milliseconds.
+     * Default: 600000
+     */
+    private static int Solves_TimeToLive;
+
+    /**
+     * How long a solve is kept, in milliseconds.
+     *
+     * @return Default: 600000
+     */
+    public static int Solves_TimeToLive() {
+        return Solves_TimeToLive;
+    }
+
+    /**
+     * The maximum number of steps sent in a single page.
+     * Default: 100
+     */
+    private static int Solves_MaxPageSize;
+
+    /**
+     * The maximum number of steps sent in a single page.
+     *
+     * @return Default: 100
+     */
+    public static int Solves_MaxPageSize() {
+        return Solves_MaxPageSize;
+    }
+
+    // #endregion
+
+    // #region Responses
+
+    /**
+     * Whether the responses are compressed with gzip, when the client accepts it.
+     * Default: true
+     */
+    private static boolean Responses_Compression;
+
+    /**
+     * Whether the responses are compressed with gzip, when the client accepts it.
+     *
+     * @return Default: true
+     */
+    public static boolean Responses_Compression() {
+        return Responses_Compression;
+    }
+
+    /**
+     * The minimum size, in bytes, of a response to compress it. Smaller ones are
+     * sent as they are.
+     * Default: 2048
+     */
+    private static int Responses_CompressionMinSize;
+
+    /**
+     * The minimum size, in bytes, of a response to compress it.
+     *
+     * @return Default: 2048
+     */
+    public static int Responses_CompressionMinSize() {
+        return Responses_CompressionMinSize;
+    }
+
+    /**
+     * The maximum number of steps kept in a response. Past it, the steps are
+     * dropped and only the summary is sent. 0 means no limit.
+     * Default: 10000
+     */
+    private static int Responses_MaxSteps;
+
+    /**
+     * The maximum number of steps kept in a response. 0 means no limit.
+     *
+     * @return Default: 10000
+     */
+    public static int Responses_MaxSteps() {
+        return Responses_MaxSteps;
+    }
+
+    /**
+     * The maximum number of cells of a table kept in a step. Past it, the steps are
+     * dropped and only the summary is sent. 0 means no limit.
+     * Default: 250000
+     */
+    private static int Responses_MaxTableCells;
+
+    /**
+     * The maximum number of cells of a table kept in a step. 0 means no limit.
+     *
+     * @return Default: 250000
+     */
+    public static int Responses_MaxTableCells() {
+        return Responses_MaxTableCells;
+    }
+
+    /**
+     * The maximum estimated size, in bytes, of the steps kept in a response, once
+     * written as JSON. Past it, the steps are dropped and only the summary is
+     * sent. 0 means no limit.
+     * Default: 67108864
+     */
+    private static int Responses_MaxBytes;
+
+    /**
+     * The maximum estimated size, in bytes, of the steps kept in a response. 0
+     * means no limit.
+     *
+     * @return Default: 67108864
+     */
+    public static int Responses_MaxBytes() {
+        return Responses_MaxBytes;
+    }
+
+    /**
+     * The maximum number of LaTeX fragments of fractions kept, to render the
+     * tables on the server. 0 disables the cache.
+     * Default: 10000
+     */
+    private static int Responses_LatexCacheSize;
+
+    /**
+     * The maximum number of LaTeX fragments of fractions kept.
+     *
+     * @return Default: 10000
+     */
+    public static int Responses_LatexCacheSize() {
+        return Responses_LatexCacheSize;
+    }
+
+    // #endregion
+
+    // #region Cache
+
+    /**
+     * The maximum number of solved problems kept, to answer the same problem
+     * without solving it again. 0 disables the cache.
+     * Default: 1000
+     */
+    private static int Cache_MaxSize;
+
+    /**
+     * The maximum number of solved problems kept. 0 disables the cache.
+     *
+     * @return Default: 1000
+     */
+    public static int Cache_MaxSize() {
+        return Cache_MaxSize;
+    }
+
+    /**
+     * How long a solved problem is kept, in milliseconds.
+     * Default: 3600000
+     */
+    private static int Cache_TimeToLive;
+
+    /**
+     * How long a solved problem is kept, in milliseconds.
+     *
+     * @return Default: 3600000
+     */
+    public static int Cache_TimeToLive() {
+        return Cache_TimeToLive;
+    }
+
+    // #endregion
+
+    // #region Jobs
+
+    /**
+     * The number of jobs handed to the solver threads at the same time. 0 means
+     * the number of processors.
+     * Default: 0
+     */
+    private static int Jobs_Threads;
+
+    /**
+     * The number of jobs handed to the solver threads at the same time.
+     *
+     * @return Default: the number of processors
+     */
+    public static int Jobs_Threads() {
+        return Jobs_Threads;
+    }
+
+    /**
+     * The maximum number of jobs waiting to be solved. Past it, new jobs are
+     * refused.
+     * Default: 100
+     */
+    private static int Jobs_MaxQueued;
+
+    /**
+     * The maximum number of jobs waiting to be solved.
+     *
+     * @return Default: 100
+     */
+    public static int Jobs_MaxQueued() {
+        return Jobs_MaxQueued;
+    }
+
+    /**
+     * The maximum number of jobs kept, so their status can be fetched.
+     * Default: 1000
+     */
+    private static int Jobs_MaxStored;
+
+    /**
+     * The maximum number of jobs kept, so their status can be fetched.
+     *
+     * @return Default: 1000
+     */
+    public static int Jobs_MaxStored() {
+        return Jobs_MaxStored;
+    }
+
+    /**
+     * How long a finished job is kept, in milliseconds.
+     * Default: 600000
+     */
+    private static int Jobs_TimeToLive;
+
+    /**
+     * How long a finished job is kept, in milliseconds.
+     *
+     * @return Default: 600000
+     */
+    public static int Jobs_TimeToLive() {
+        return Jobs_TimeToLive;
+    }
+
+    // #endregion
+
+    // #region Solvers
+
+    /**
+     * Whether the requests are handled by virtual threads, the resolutions being
+     * run by the solver threads.
+     * Default: true
+     */
+    private static boolean Solvers_VirtualThreads;
+
+    /**
+     * Whether the requests are handled by virtual threads.
+     *
+     * @return Default: true
+     */
+    public static boolean Solvers_VirtualThreads() {
+        return Solvers_VirtualThreads;
+    }
+
+    /**
+     * The number of resolutions run at the same time, the jobs included. 0 means
+     * the number of processors.
+     * Default: 0
+     */
+    private static int Solvers_Threads;
+
+    /**
+     * The number of resolutions run at the same time, the jobs included.
+     *
+     * @return Default: the number of processors
+     */
+    public static int Solvers_Threads() {
+        return Solvers_Threads;
+    }
+
+    /**
+     * The maximum number of resolutions waiting for a solver thread. Past it, the
+     * requests are refused with 503.
+     * Default: 32
+     */
+    private static int Solvers_MaxQueued;
+
+    /**
+     * The maximum number of resolutions waiting for a solver thread.
+     *
+     * @return Default: 32
+     */
+    public static int Solvers_MaxQueued() {
+        return Solvers_MaxQueued;
+    }
+
+    // #endregion
+
+    // #region Batch
+
+    /**
+     * The maximum number of forms solved in a batch. Past it, the batch is ended
+     * with an error.
+     * Default: 10000
+     */
+    private static int Batch_MaxSize;
+
+    /**
+     * The maximum number of forms solved in a batch.
+     *
+     * @return Default: 10000
+     */
+    public static int Batch_MaxSize() {
+        return Batch_MaxSize;
+    }
+
+    /**
+     * The number of forms of a batch solved at the same time. 0 means the number
+     * of solver threads.
+     * Default: 0
+     */
+    private static int Batch_Parallelism;
+
+    /**
+     * The number of forms of a batch solved at the same time.
+     *
+     * @return Default: the number of solver threads
+     */
+    public static int Batch_Parallelism() {
+        return Batch_Parallelism;
+    }
+
     // #endregion
 
     /**
@@ -0,0 +1,1058 @@
+package optim.optim.src.simplex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.util.Pair;
+
+import optim.optim.response.SimplexResponse;
+import optim.optim.src.log.Logger;
+import optim.optim.src.simplex.data.BranchingRule;
+import optim.optim.src.simplex.data.Constraint;
+import optim.optim.src.simplex.data.IntegerMethod;
+import optim.optim.src.simplex.data.NodeSelectionRule;
+import optim.optim.src.simplex.data.ObjectiveFunction;
+import optim.optim.src.simplex.data.ParallelSearch;
+import optim.optim.src.simplex.data.TerminationCriteria;
+
+/**
+ * Branch and bound engine, solving the integer problem from the optimal table
+ * of the relaxed problem.
+ * <p>
+ * Each node of the tree is the relaxed problem with additional bounds on the
+ * decision variables. When the optimum of a node has a fractional decision
+ * variable {@code x = v}, two children are created, one with {@code x <= floor(v)}
+ * and one with {@code x >= floor(v) + 1}. A node is pruned as soon as its
+ * relaxed optimum can't beat the best integer solution found so far (the
+ * incumbent). An integer point must also leave the slack variables of the
+ * original constraints integer, so once every decision variable is integer, a
+ * fractional slack variable is branched on the same way.
+ * <p>
+ * Children are warm started: they copy the optimal table of their parent, add
+ * their bound as a new row, and only run the dual simplex from there, instead
+ * of solving the whole problem again from scratch.
+ * <p>
+ * Nodes can be explored by several threads at once (see {@link ParallelSearch}).
+ * The open nodes are kept in a shared priority queue, and the incumbent is
+ * shared, so a solution found by a thread prunes the nodes of the others right
+ * away. The steps of a node are recorded apart, and added to the resolution
+ * steps once the node is explored, so they are never interleaved.
+ * <p>
+ * The variable to branch on is chosen with a {@link BranchingRule}. The
+ * pseudo costs are only updated when the outcome of a node is merged, so the
+ * choices made in a deterministic round don't depend on the scheduling either.
+ * <p>
+ * With a {@link CutPool}, this is a branch and cut: Gomory cuts are generated
+ * from the root table and stored in the pool, then every node adds the cuts of
+ * the pool its point violates, before branching.
+ * <p>
+ * The search stops early with the {@link TerminationCriteria} of the solver: the
+ * nodes that can't beat the incumbent by more than the accepted gap are pruned,
+ * and when the time or the iterations run out, the incumbent is returned as is.
+ * In both cases, {@link #getBound()} tells how far from the optimum it may be.
+ *
+ * @see IntegerMethod#BRANCH_AND_BOUND
+ * @see IntegerMethod#BRANCH_AND_CUT
+ */
+public class BranchAndBound {
+    /** How long an idle thread waits for a new open node, in milliseconds. */
+    private static final long POLL_TIMEOUT = 1;
+
+    /** Maximum amount of cut rounds at the root. */
+    private static final int ROOT_CUT_ROUNDS = 10;
+
+    /** Maximum amount of cut rounds at the other nodes. */
+    private static final int NODE_CUT_ROUNDS = 2;
+
+    /** Maximum amount of cuts added to a table per round. */
+    private static final int MAX_CUTS_PER_ROUND = 10;
+
+    /** Maximum amount of dual simplex iterations when looking ahead at a child. */
+    private static final int LOOK_AHEAD_ITERATIONS = 10;
+
+    /** Maximum amount of variables looked ahead at per node. */
+    private static final int MAX_LOOK_AHEADS = 8;
+
+    /**
+     * Amount of observations in both directions after which the pseudo costs of a
+     * variable are trusted, and it isn't looked ahead at anymore.
+     */
+    private static final int RELIABILITY = 4;
+
+    /** Smallest change of the optimum used in a score, so a zero still counts. */
+    private static final double MIN_CHANGE = 1e-6;
+
+    /** Solver used to reoptimize the tables, and keep track of the steps. */
+    private final SimplexSolver solver;
+
+    /** Order in which the open nodes are explored. */
+    private final NodeSelectionRule nodeSelectionRule;
+
+    /** How the variable to branch on is chosen. */
+    private final BranchingRule branchingRule;
+
+    /** Pseudo costs of the decision variables. Null when not used. */
+    private PseudoCosts pseudoCosts = null;
+
+    /** Amount of threads exploring the nodes. */
+    private final int threads;
+
+    /** Whether the nodes are explored in a reproducible order. */
+    private final boolean deterministic;
+
+    /**
+     * Pool running the explorations, shared with other resolutions. Null to
+     * create one for each resolution.
+     */
+    private final ForkJoinPool pool;
+
+    /** The cuts shared by every node. Null when not cutting. */
+    private final CutPool cutPool;
+
+    /**
+     * Whether the objective function can only have integer values on integer
+     * points. If so, a node is also pruned when the floor of its optimum can't
+     * beat the incumbent.
+     */
+    private final boolean integerObjective;
+
+    /** The best integer solution found so far. Null if none have been found. */
+    private final AtomicReference<PointFractionPair> incumbent = new AtomicReference<PointFractionPair>();
+
+    /** Amount of nodes created, used as node indices. */
+    private final AtomicLong createdNodes = new AtomicLong();
+
+    /** Amount of nodes explored (not pruned before solving their table). */
+    private final AtomicLong exploredNodes = new AtomicLong();
+
+    /** Amount of nodes open or being explored, the search ends when it reaches 0. */
+    private final AtomicLong pendingNodes = new AtomicLong();
+
+    /** First error thrown by a thread, stopping the others. */
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+
+    /**
+     * The limit that stopped the search, time or iterations. Null while the
+     * search runs.
+     */
+    private final AtomicReference<RuntimeException> limit = new AtomicReference<RuntimeException>();
+
+    /**
+     * Largest relaxed optimum of the nodes pruned only thanks to the accepted gap.
+     * Null if there are none.
+     */
+    private final AtomicReference<Fraction> prunedBound = new AtomicReference<Fraction>();
+
+    /** Bound on the optimum once the search is over. */
+    private Fraction bound = null;
+
+    /**
+     * A node of the tree. It is not solved yet: it keeps the optimal table of
+     * its parent, and the bound to add on it.
+     */
+    private static class Node {
+        /** Optimal table of the parent. Shared between siblings, never edited. */
+        final SimplexTable parent;
+        /** The bound to add on the parent table. Null for the root. */
+        final Constraint branch;
+        /** Relaxed optimum of the parent, upper bound of this node. */
+        final Fraction bound;
+        /** Depth of the node in the tree, 0 for the root. */
+        final int depth;
+        /** Creation indice of the node, used to break ties. */
+        final long id;
+        /** Ages of the cuts of the parent table. Shared between siblings, never edited. */
+        final Map<Constraint, Integer> cutAges;
+
+        /**
+         * Create a new node.
+         *
+         * @param parent  The optimal table of the parent.
+         * @param branch  The bound to add, or null for the root.
+         * @param bound   The relaxed optimum of the parent.
+         * @param depth   The depth of the node.
+         * @param id      The creation indice of the node.
+         * @param cutAges The ages of the cuts of the parent table.
+         */
+        Node(SimplexTable parent, Constraint branch, Fraction bound, int depth, long id,
+                Map<Constraint, Integer> cutAges) {
+            this.parent = parent;
+            this.branch = branch;
+            this.bound = bound;
+            this.depth = depth;
+            this.id = id;
+            this.cutAges = cutAges;
+        }
+    }
+
+    /**
+     * A change of the optimum per unit, observed when branching on a variable,
+     * not yet recorded in the pseudo costs.
+     */
+    private static class Observation {
+        /** The indice of the decision variable. */
+        final int variable;
+        /** Whether it is the up child. */
+        final boolean up;
+        /** The change of the optimum, divided by the change of the variable. */
+        final double change;
+
+        /**
+         * Create a new observation.
+         *
+         * @param variable The indice of the decision variable.
+         * @param up       Whether it is the up child.
+         * @param change   The change of the optimum per unit.
+         */
+        Observation(int variable, boolean up, double change) {
+            this.variable = variable;
+            this.up = up;
+            this.change = change;
+        }
+    }
+
+    /**
+     * The result of the exploration of a node, not yet merged in the tree.
+     */
+    private static class Outcome {
+        /** The explored node. */
+        final Node node;
+        /** Steps made while exploring the node. */
+        final SimplexResponse steps;
+        /** Optimal table of the node. Null if the node has been pruned. */
+        SimplexTable table = null;
+        /** Relaxed optimum of the node. */
+        Fraction value = null;
+        /** Ages of the cuts of the optimal table. */
+        Map<Constraint, Integer> cutAges = Collections.emptyMap();
+        /** Integer solution of the node, null if it is fractional. */
+        PointFractionPair solution = null;
+        /** Bounds of the children, in their creation order. Empty if none. */
+        final List<Constraint> branches = new ArrayList<Constraint>(2);
+        /** Changes of the optimum observed while exploring the node. */
+        final List<Observation> observations = new ArrayList<Observation>();
+
+        /**
+         * Create an empty outcome.
+         *
+         * @param node  The explored node.
+         * @param steps The response where the steps will be added.
+         */
+        Outcome(Node node, SimplexResponse steps) {
+            this.node = node;
+            this.steps = steps.createPart();
+        }
+    }
+
+    /**
+     * Create a new sequential branch and bound engine.
+     *
+     * @param solver            The solver used to reoptimize the tables.
+     * @param objectiveFunction The objective function of the problem.
+     * @param nodeSelectionRule The order in which nodes are explored.
+     * @throws NullPointerException if any of the parameters is null.
+     */
+    public BranchAndBound(final SimplexSolver solver,
+            final ObjectiveFunction objectiveFunction,
+            final NodeSelectionRule nodeSelectionRule) throws NullPointerException {
+        this(solver, objectiveFunction, nodeSelectionRule, new ParallelSearch(1, true));
+    }
+
+    /**
+     * Create a new branch and bound engine.
+     *
+     * @param solver            The solver used to reoptimize the tables.
+     * @param objectiveFunction The objective function of the problem.
+     * @param nodeSelectionRule The order in which nodes are explored.
+     * @param parallelSearch    How the nodes are explored concurrently.
+     * @throws NullPointerException if any of the parameters is null.
+     */
+    public BranchAndBound(final SimplexSolver solver,
+            final ObjectiveFunction objectiveFunction,
+            final NodeSelectionRule nodeSelectionRule,
+            final ParallelSearch parallelSearch) throws NullPointerException {
+        this(solver, objectiveFunction, nodeSelectionRule, SimplexSolver.defaultBranchingRule, parallelSearch, null);
+    }
+
+    /**
+     * Create a new branch and cut engine.
+     *
+     * @param solver            The solver used to reoptimize the tables.
+     * @param objectiveFunction The objective function of the problem.
+     * @param nodeSelectionRule The order in which nodes are explored.
+     * @param branchingRule     How the variable to branch on is chosen.
+     * @param parallelSearch    How the nodes are explored concurrently.
+     * @param cutPool           The pool storing the cuts, or null to only branch.
+     * @throws NullPointerException if any of the parameters except cutPool is
+     *                              null.
+     */
+    public BranchAndBound(final SimplexSolver solver,
+            final ObjectiveFunction objectiveFunction,
+            final NodeSelectionRule nodeSelectionRule,
+            final BranchingRule branchingRule,
+            final ParallelSearch parallelSearch,
+            final CutPool cutPool) throws NullPointerException {
+        this.cutPool = cutPool;
+        this.solver = Objects.requireNonNull(solver, "solver can't be null");
+        this.nodeSelectionRule = Objects.requireNonNull(nodeSelectionRule, "nodeSelectionRule can't be null");
+        this.branchingRule = Objects.requireNonNull(branchingRule, "branchingRule can't be null");
+        Objects.requireNonNull(objectiveFunction, "objectiveFunction can't be null");
+        Objects.requireNonNull(parallelSearch, "parallelSearch can't be null");
+        this.threads = parallelSearch.getThreads();
+        this.deterministic = parallelSearch.getDeterministic();
+        this.pool = parallelSearch.getPool();
+
+        this.integerObjective = objectiveFunction.isInteger();
+    }
+
+    /**
+     * Explore the tree starting from the given optimal table of the relaxed
+     * problem.
+     *
+     * @param root The optimal table of the relaxed problem. It is not edited.
+     * @return The optimal integer solution.
+     * @throws NoFeasibleSolutionException if the problem has no integer solution.
+     * @throws TooManyIterationsException  if too many iterations have been made.
+     */
+    public PointFractionPair solve(final SimplexTable root)
+            throws NoFeasibleSolutionException, TooManyIterationsException {
+        return solve(root, null);
+    }
+
+    /**
+     * Explore the tree starting from the given optimal table of the relaxed
+     * problem, with a known integer solution, such as one found by the
+     * {@link PrimalHeuristics}, to prune the nodes that can't beat it.
+     *
+     * @param root  The optimal table of the relaxed problem. It is not edited.
+     * @param start A feasible integer solution, or null if there is none.
+     * @return The optimal integer solution, or the best one found if the search
+     *         stopped early.
+     * @throws NoFeasibleSolutionException if the problem has no integer solution.
+     * @throws TooManyIterationsException  if too many iterations have been made
+     *                                     before finding an integer solution.
+     * @throws TimeLimitExceededException  if the time ran out before finding an
+     *                                     integer solution.
+     */
+    public PointFractionPair solve(final SimplexTable root, final PointFractionPair start)
+            throws NoFeasibleSolutionException, TooManyIterationsException {
+        incumbent.set(start);
+        if (branchingRule == BranchingRule.PSEUDO_COST) {
+            pseudoCosts = new PseudoCosts(root.getNumDecisionVariables());
+        }
+        final PriorityBlockingQueue<Node> open = new PriorityBlockingQueue<Node>(11, getComparator());
+        enqueue(open, root, null, root.getEntry(0, 0).negate(), 0, Collections.emptyMap());
+
+        if (threads == 1) {
+            while (!open.isEmpty() && !isStopped()) {
+                final Node node = open.poll();
+                try {
+                    merge(explore(node, incumbent::get), open);
+                } catch (TooManyIterationsException e) {
+                    stop(node, open, e);
+                }
+            }
+        } else {
+            final ForkJoinPool pool = this.pool != null ? this.pool : new ForkJoinPool(threads);
+            try {
+                if (deterministic) {
+                    solveRounds(open, pool);
+                } else {
+                    solveConcurrent(open, pool);
+                }
+            } finally {
+                // a shared pool outlives the resolution
+                if (pool != this.pool) {
+                    pool.shutdownNow();
+                }
+            }
+        }
+
+        Logger.trace("Branch and bound: " + exploredNodes + " explored nodes out of " + createdNodes);
+
+        final PointFractionPair solution = incumbent.get();
+        if (solution == null) {
+            if (limit.get() != null) {
+                throw limit.get();
+            }
+            throw new NoFeasibleSolutionException();
+        }
+
+        // the nodes left open and the nodes pruned with a gap may still hold a better
+        // solution
+        bound = solution.getValue();
+        if (prunedBound.get() != null) {
+            bound = max(bound, prunedBound.get());
+        }
+        for (Node node : open) {
+            bound = max(bound, integerObjective ? node.bound.getWholePart() : node.bound);
+        }
+        if (limit.get() != null) {
+            Logger.warn("Branch and bound: " + limit.get().getMessage() + ", best solution " + solution.getValue()
+                    + " with bound " + bound);
+        }
+        return solution;
+    }
+
+    /**
+     * Get the bound on the optimum once the search is over. It is the value of the
+     * returned solution when it is proven optimal.
+     *
+     * @return The bound, or null if the search isn't over.
+     */
+    public Fraction getBound() {
+        return bound;
+    }
+
+    /**
+     * Check if the search stopped on the time limit, with the nodes left open.
+     *
+     * @return True if the time limit stopped the search.
+     */
+    public boolean isStoppedByTimeLimit() {
+        return limit.get() instanceof TimeLimitExceededException;
+    }
+
+    /**
+     * Check if the search must stop because a limit has been reached.
+     *
+     * @return True if a limit has been reached.
+     */
+    private boolean isStopped() {
+        if (limit.get() == null && solver.isTimeUp()) {
+            limit.compareAndSet(null,
+                    new TimeLimitExceededException(solver.getTerminationCriteria().getTimeLimit()));
+        }
+        return limit.get() != null;
+    }
+
+    /**
+     * Stop the search because the iterations ran out while exploring a node. The
+     * node is opened again, so its bound is still accounted for.
+     *
+     * @param node The node being explored.
+     * @param open The open nodes.
+     * @param e    The error thrown.
+     */
+    private void stop(final Node node, final PriorityBlockingQueue<Node> open, final TooManyIterationsException e) {
+        open.add(node);
+        limit.compareAndSet(null, e);
+    }
+
+    /**
+     * Explore the tree by rounds: the best open nodes are explored concurrently,
+     * against the incumbent known at the start of the round, then their outcomes
+     * are merged in the order of the queue. The explored nodes, their indices and
+     * the steps only depend on the problem, not on the threads scheduling.
+     *
+     * @param open The open nodes, containing the root.
+     * @param pool The pool running the explorations.
+     */
+    private void solveRounds(final PriorityBlockingQueue<Node> open, final ForkJoinPool pool) {
+        final List<Node> nodes = new ArrayList<Node>(threads);
+        final List<Callable<Outcome>> round = new ArrayList<Callable<Outcome>>(threads);
+        while (!open.isEmpty() && !isStopped()) {
+            final PointFractionPair best = incumbent.get();
+            nodes.clear();
+            round.clear();
+            while (round.size() < threads && !open.isEmpty()) {
+                final Node node = open.poll();
+                nodes.add(node);
+                round.add(() -> explore(node, () -> best));
+            }
+
+            final List<Future<Outcome>> outcomes = pool.invokeAll(round);
+            for (int i = 0; i < outcomes.size(); i++) {
+                try {
+                    merge(outcomes.get(i).get(), open);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                } catch (ExecutionException e) {
+                    final RuntimeException cause = unwrap(e);
+                    if (!(cause instanceof TooManyIterationsException)) {
+                        throw cause;
+                    }
+                    stop(nodes.get(i), open, (TooManyIterationsException) cause);
+                }
+            }
+        }
+    }
+
+    /**
+     * Explore the tree with every thread taking the best open node as soon as it
+     * is free. The incumbent is read when pruning, so it is always the latest
+     * one found.
+     *
+     * @param open The open nodes, containing the root.
+     * @param pool The pool running the explorations.
+     */
+    private void solveConcurrent(final PriorityBlockingQueue<Node> open, final ForkJoinPool pool) {
+        final List<ForkJoinTask<?>> workers = new ArrayList<ForkJoinTask<?>>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            workers.add(pool.submit(() -> work(open)));
+        }
+        // the calling thread explores too, so the search goes on even when every
+        // thread of a shared pool is busy
+        work(open);
+        for (ForkJoinTask<?> worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * Explore open nodes until there are none left, or another thread failed.
+     *
+     * @param open The open nodes.
+     */
+    private void work(final PriorityBlockingQueue<Node> open) {
+        try {
+            while (pendingNodes.get() > 0 && failure.get() == null && !isStopped()) {
+                final Node node = open.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (node == null) {
+                    // the other threads may still create nodes
+                    continue;
+                }
+                try {
+                    merge(explore(node, incumbent::get), open);
+                } catch (TooManyIterationsException e) {
+                    stop(node, open, e);
+                } finally {
+                    pendingNodes.decrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // the other threads stop too
+            failure.compareAndSet(null, new IllegalStateException(e));
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * Solve the table of the given node, and find whether it must be pruned, is
+     * a new integer solution, or must be branched on. The tree is not changed.
+     *
+     * @param node      The node to explore.
+     * @param incumbent Gives the incumbent to prune against.
+     * @return The outcome of the exploration.
+     */
+    private Outcome explore(final Node node, final Supplier<PointFractionPair> incumbent) {
+        final Outcome outcome = new Outcome(node, solver.getResolutionSteps());
+        // the incumbent may have changed since the node creation
+        if (isPruned(node.bound, incumbent.get())) {
+            return outcome;
+        }
+        exploredNodes.incrementAndGet();
+
+        // the parent table is shared, it is only edited once copied
+        SimplexTable table = node.parent;
+        if (node.branch != null || cutPool != null) {
+            table = new SimplexTable(node.parent);
+        }
+        if (node.branch != null) {
+            table.appendConstraint(node.branch, SimplexTable.BRANCH_CONSTRAINT);
+            outcome.steps.addStep(null, table.getHeight() - 1, table);
+            try {
+                solver.solveDual(table, outcome.steps);
+            } catch (NoFeasibleSolutionException e) {
+                // the bound emptied the node
+                return outcome;
+            }
+            if (pseudoCosts != null) {
+                observe(node, table.getEntry(0, 0).negate(), outcome);
+            }
+        }
+
+        if (isPruned(table.getEntry(0, 0).negate(), incumbent.get())) {
+            return outcome;
+        }
+
+        final Map<Constraint, Integer> cutAges = new HashMap<Constraint, Integer>(node.cutAges);
+        if (cutPool != null) {
+            try {
+                if (!addCuts(table, node.depth == 0, cutAges, outcome.steps, incumbent)) {
+                    return outcome;
+                }
+            } catch (NoFeasibleSolutionException e) {
+                // the cuts emptied the node
+                return outcome;
+            }
+        }
+
+        final Fraction value = table.getEntry(0, 0).negate();
+        outcome.table = table;
+        outcome.value = value;
+        outcome.cutAges = cutAges;
+
+        final int branchIndex = getBranchingVariable(table, value, outcome);
+        final Fraction branchValue;
+        final Constraint down;
+        final Constraint up;
+        if (branchIndex != -1) {
+            branchValue = getValue(table, branchIndex);
+            down = getBranch(table, branchIndex, false);
+            up = getBranch(table, branchIndex, true);
+        } else {
+            // every decision variable is integer, but the point must also leave the
+            // slack variables of the original constraints integer
+            final int slackCol = getFractionalSlack(table);
+            if (slackCol == -1) {
+                // new incumbent
+                outcome.solution = solver.getSolution(table);
+                return outcome;
+            }
+            branchValue = table.getEntry(table.getBasicVariableRow(slackCol), 0);
+            down = getSlackBranch(table, slackCol, false);
+            up = getSlackBranch(table, slackCol, true);
+        }
+
+        // the child closest to the fractional value is created last, so it is
+        // explored first when going depth first
+        if (branchValue.getDecimalPart().compareTo(Fraction.ONE_HALF) >= 0) {
+            outcome.branches.add(down);
+            outcome.branches.add(up);
+        } else {
+            outcome.branches.add(up);
+            outcome.branches.add(down);
+        }
+        return outcome;
+    }
+
+    /**
+     * Choose the decision variable to branch on, depending on the
+     * {@link #branchingRule}. The fractional variables are scored by the product
+     * of the changes of the optimum in both children, estimated either with
+     * their pseudo costs, or by looking ahead at the children.
+     *
+     * @param table   An optimal table.
+     * @param value   The relaxed optimum of the table.
+     * @param outcome The outcome where the look ahead observations are added.
+     * @return The indice of the decision variable, or -1 if they are all integer.
+     */
+    private int getBranchingVariable(final SimplexTable table, final Fraction value, final Outcome outcome) {
+        // the most fractional first
+        final List<Integer> candidates = new ArrayList<Integer>();
+        for (int i = 0; i < table.getNumDecisionVariables(); i++) {
+            if (!getValue(table, i).isInteger()) {
+                candidates.add(i);
+            }
+        }
+        candidates.sort(Comparator.comparing(i -> getValue(table, i).getDecimalPart()
+                .subtract(Fraction.ONE_HALF).abs()));
+        if (candidates.size() <= 1 || branchingRule == BranchingRule.MOST_FRACTIONAL) {
+            return candidates.isEmpty() ? -1 : candidates.get(0);
+        }
+
+        int branchIndex = candidates.get(0);
+        double bestScore = -1;
+        int lookAheads = 0;
+        for (int variable : candidates) {
+            final boolean reliable = pseudoCosts != null && pseudoCosts.getReliability(variable) >= RELIABILITY;
+            if (!reliable && lookAheads >= MAX_LOOK_AHEADS && branchingRule == BranchingRule.STRONG) {
+                break;
+            }
+
+            final double f = getValue(table, variable).getDecimalPart().doubleValue();
+            final double down;
+            final double up;
+            if (!reliable && lookAheads < MAX_LOOK_AHEADS) {
+                lookAheads++;
+                down = lookAhead(table, value, variable, false, outcome);
+                up = lookAhead(table, value, variable, true, outcome);
+            } else {
+                down = pseudoCosts.get(variable, false) * f;
+                up = pseudoCosts.get(variable, true) * (1 - f);
+            }
+
+            final double score = Math.max(down, MIN_CHANGE) * Math.max(up, MIN_CHANGE);
+            if (score > bestScore) {
+                bestScore = score;
+                branchIndex = variable;
+            }
+            // a child is empty, the node can't be split any better
+            if (score == Double.POSITIVE_INFINITY) {
+                break;
+            }
+        }
+        return branchIndex;
+    }
+
+    /**
+     * Estimate the change of the optimum in a child, with a few dual simplex
+     * iterations on a copy of the table.
+     *
+     * @param table    An optimal table, not edited.
+     * @param value    The relaxed optimum of the table.
+     * @param variable The indice of the decision variable to branch on.
+     * @param up       Whether it is the up child.
+     * @param outcome  The outcome where the observation is added, if the pseudo
+     *                 costs are used.
+     * @return A lower bound of the change of the optimum, infinite if the child
+     *         is empty.
+     */
+    private double lookAhead(final SimplexTable table, final Fraction value, final int variable, final boolean up,
+            final Outcome outcome) {
+        final SimplexTable child = new SimplexTable(table);
+        child.appendConstraint(getBranch(table, variable, up), SimplexTable.BRANCH_CONSTRAINT);
+        try {
+            solver.lookAheadDual(child, LOOK_AHEAD_ITERATIONS);
+        } catch (NoFeasibleSolutionException e) {
+            return Double.POSITIVE_INFINITY;
+        }
+        final double change = value.subtract(child.getEntry(0, 0).negate()).doubleValue();
+        if (pseudoCosts != null) {
+            final double f = getValue(table, variable).getDecimalPart().doubleValue();
+            outcome.observations.add(new Observation(variable, up, change / (up ? 1 - f : f)));
+        }
+        return change;
+    }
+
+    /**
+     * Observe the change of the optimum between a node and its parent, for the
+     * pseudo costs of the variable it has been branched on.
+     *
+     * @param node    A node with a branch.
+     * @param value   The relaxed optimum of the node.
+     * @param outcome The outcome where the observation is added.
+     */
+    private void observe(final Node node, final Fraction value, final Outcome outcome) {
+        int variable = 0;
+        while (node.branch.getCoefficients()[variable].isZero()) {
+            variable++;
+        }
+        // the branches on a slack variable are only made once every decision
+        // variable is integer, and don't tell anything about them
+        final Fraction parentValue = getValue(node.parent, variable);
+        if (parentValue.isInteger()) {
+            return;
+        }
+        final boolean up = node.branch.getRelationship() == Relationship.GEQ;
+        final double f = parentValue.getDecimalPart().doubleValue();
+        final double change = node.bound.subtract(value).doubleValue();
+        outcome.observations.add(new Observation(variable, up, change / (up ? 1 - f : f)));
+    }
+
+    /**
+     * Check if every decision variable of a table, and every slack variable of
+     * the original constraints, has an integer value.
+     *
+     * @param table The table.
+     * @return True if the point of the table is integer.
+     */
+    private static boolean isInteger(final SimplexTable table) {
+        for (int i = 0; i < table.getNumDecisionVariables(); i++) {
+            if (!getValue(table, i).isInteger()) {
+                return false;
+            }
+        }
+        return getFractionalSlack(table) == -1;
+    }
+
+    /**
+     * Get a slack variable of the original constraints with a fractional value.
+     * The slack variables of the cuts and branches are not looked at, they may be
+     * fractional on an integer point.
+     *
+     * @param table The table.
+     * @return The column of the slack variable, or -1 if they are all integer.
+     */
+    private static int getFractionalSlack(final SimplexTable table) {
+        final int firstSlack = table.getColOffset() + table.getNumDecisionVariables();
+        for (int col = firstSlack; col < table.getFirstAppendedCol(); col++) {
+            final Integer row = table.getBasicVariableRow(col);
+            if (row != null && !table.getEntry(row, 0).isInteger()) {
+                return col;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the value of a decision variable in a table.
+     *
+     * @param table    The table.
+     * @param variable The indice of the decision variable.
+     * @return Its value, 0 if it isn't basic.
+     */
+    static Fraction getValue(final SimplexTable table, final int variable) {
+        final Integer row = table.getBasicVariableRow(table.getColOffset() + variable);
+        return row == null ? Fraction.ZERO : table.getEntry(row, 0);
+    }
+
+    /**
+     * Get the bound of a child: {@code x <= floor(v)} for the down child, and
+     * {@code x >= floor(v) + 1} for the up child.
+     *
+     * @param table    The table of the parent.
+     * @param variable The indice of the decision variable to branch on.
+     * @param up       Whether it is the up child.
+     * @return The bound to add on the table of the parent.
+     */
+    static Constraint getBranch(final SimplexTable table, final int variable, final boolean up) {
+        final Fraction[] coefficients = new Fraction[table.getNumDecisionVariables()];
+        for (int i = 0; i < coefficients.length; i++) {
+            coefficients[i] = i == variable ? Fraction.ONE : Fraction.ZERO;
+        }
+        final Fraction floor = getValue(table, variable).getWholePart();
+        return up ? new Constraint(coefficients, Relationship.GEQ, floor.add(1))
+                : new Constraint(coefficients, Relationship.LEQ, floor);
+    }
+
+    /**
+     * Get the bound of a child on a slack variable {@code s = v} of an original
+     * constraint: {@code s <= floor(v)} for the down child, and
+     * {@code s >= floor(v) + 1} for the up child, written on the decision
+     * variables.
+     *
+     * @param table The table of the parent.
+     * @param col   The column of the slack variable to branch on.
+     * @param up    Whether it is the up child.
+     * @return The bound to add on the table of the parent.
+     */
+    static Constraint getSlackBranch(final SimplexTable table, final int col, final boolean up) {
+        final Fraction[] coefficients = new Fraction[table.getWidth() - 1];
+        Arrays.fill(coefficients, Fraction.ZERO);
+        final Fraction floor = table.getEntry(table.getBasicVariableRow(col), 0).getWholePart();
+        // s >= floor + 1 is written -s <= -(floor + 1)
+        coefficients[col - 1] = up ? Fraction.ONE.negate() : Fraction.ONE;
+        return table.toDecisionVariables(coefficients, up ? floor.add(1).negate() : floor);
+    }
+
+    /**
+     * Run cut rounds on the optimal table of a node. Each round ages out the cuts
+     * slack for too long, stores the cuts of every fractional row in the pool
+     * when at the root,
+     * then adds the most violated cuts of the pool, and reoptimizes the table.
+     * <p>
+     * New cuts are only made at the root, because the cuts made from a node
+     * table depend on its bounds, and are not valid in the other nodes.
+     *
+     * @param table     An optimal table, edited in place.
+     * @param root      Whether the table is the one of the root.
+     * @param cutAges   The ages of the cuts of the table, updated in place.
+     * @param steps     The response where the steps are added.
+     * @param incumbent Gives the incumbent to prune against.
+     * @return False if the node has been pruned.
+     * @throws NoFeasibleSolutionException if the cuts emptied the node.
+     */
+    private boolean addCuts(final SimplexTable table, final boolean root, final Map<Constraint, Integer> cutAges,
+            final SimplexResponse steps, final Supplier<PointFractionPair> incumbent)
+            throws NoFeasibleSolutionException {
+        final int rounds = root ? ROOT_CUT_ROUNDS : NODE_CUT_ROUNDS;
+        for (int round = 0; round < rounds && !isInteger(table); round++) {
+            ageCuts(table, cutAges, steps);
+
+            if (root) {
+                for (Pair<Integer, Constraint> cut : new CutGenerator(table).getCuts(Integer.MAX_VALUE)) {
+                    cutPool.add(cut.getSecond());
+                }
+            }
+
+            final Fraction[] point = solver.getSolution(table).getPoint();
+            final List<Constraint> violated = cutPool.separate(point, getActiveCuts(table), MAX_CUTS_PER_ROUND);
+            if (violated.isEmpty()) {
+                return true;
+            }
+            for (Constraint cut : violated) {
+                table.appendConstraint(cut, SimplexTable.INTEGER_CONSTRAINT);
+                steps.addStep(null, table.getHeight() - 1, table);
+            }
+            solver.solveDual(table, steps);
+
+            if (isPruned(table.getEntry(0, 0).negate(), incumbent.get())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the cuts of the pool that are in the given table.
+     *
+     * @param table The table to look into.
+     * @return The cuts of the table, as stored in the pool.
+     */
+    private List<Constraint> getActiveCuts(final SimplexTable table) {
+        final List<Constraint> active = new ArrayList<Constraint>();
+        for (int col = table.getFirstAppendedCol(); col < table.getWidth(); col++) {
+            final Constraint constraint = table.getColumnConstraint(col);
+            if (cutPool.contains(constraint)) {
+                active.add(constraint);
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Update the age of the cuts of the table, and remove the ones slack for too
+     * long.
+     *
+     * @param table   The table to clean, edited in place.
+     * @param cutAges The ages of the cuts of the table, updated in place.
+     * @param steps   The response where the steps are added.
+     */
+    private void ageCuts(final SimplexTable table, final Map<Constraint, Integer> cutAges,
+            final SimplexResponse steps) {
+        if (cutPool.removeAgedCuts(table, cutAges) > 0) {
+            steps.addStep(null, null, table);
+        }
+    }
+
+    /**
+     * Merge the outcome of an explored node in the tree: record its steps and
+     * observations, and either update the incumbent or add its children to the
+     * open nodes.
+     *
+     * @param outcome The outcome of the explored node.
+     * @param open    The open nodes.
+     */
+    private void merge(final Outcome outcome, final PriorityBlockingQueue<Node> open) {
+        solver.getResolutionSteps().addSteps(outcome.steps);
+        for (Observation observation : outcome.observations) {
+            pseudoCosts.record(observation.variable, observation.up, observation.change);
+        }
+
+        if (outcome.solution != null) {
+            final PointFractionPair previous = incumbent.getAndAccumulate(outcome.solution,
+                    (current, candidate) -> current == null
+                            || candidate.getValue().compareTo(current.getValue()) > 0 ? candidate : current);
+            if (previous == null || outcome.solution.getValue().compareTo(previous.getValue()) > 0) {
+                Logger.trace("Branch and bound: new incumbent " + outcome.value + " at depth "
+                        + outcome.node.depth);
+            }
+            return;
+        }
+
+        if (outcome.branches.isEmpty() || isPruned(outcome.value, incumbent.get())) {
+            return;
+        }
+        for (Constraint branch : outcome.branches) {
+            enqueue(open, outcome.table, branch, outcome.value, outcome.node.depth + 1, outcome.cutAges);
+        }
+    }
+
+    /**
+     * Create a new node and add it to the open nodes.
+     *
+     * @param open    The open nodes.
+     * @param parent  The optimal table of the parent.
+     * @param branch  The bound to add, or null for the root.
+     * @param bound   The relaxed optimum of the parent.
+     * @param depth   The depth of the node.
+     * @param cutAges The ages of the cuts of the parent table.
+     */
+    private void enqueue(final PriorityBlockingQueue<Node> open, final SimplexTable parent,
+            final Constraint branch, final Fraction bound, final int depth, final Map<Constraint, Integer> cutAges) {
+        // counted before being visible, so no thread can see an empty tree
+        pendingNodes.incrementAndGet();
+        open.add(new Node(parent, branch, bound, depth, createdNodes.getAndIncrement(), cutAges));
+    }
+
+    /**
+     * Check if a node with the given relaxed optimum can be pruned, because it
+     * can't beat the incumbent by more than the accepted gap.
+     *
+     * @param bound     The relaxed optimum of the node.
+     * @param incumbent The incumbent, or null if there is none.
+     * @return True if the node can be pruned.
+     */
+    private boolean isPruned(final Fraction bound, final PointFractionPair incumbent) {
+        if (incumbent == null) {
+            return false;
+        }
+        final Fraction best = integerObjective ? bound.getWholePart() : bound;
+        final Fraction gap = best.subtract(incumbent.getValue());
+        if (!solver.getTerminationCriteria().isAccepted(gap, incumbent.getValue())) {
+            return false;
+        }
+        if (gap.isPositive()) {
+            // the node may hold a better solution, its bound is kept
+            prunedBound.accumulateAndGet(best, (a, b) -> a == null ? b : max(a, b));
+        }
+        return true;
+    }
+
+    /**
+     * Get the largest of two fractions.
+     *
+     * @param a A fraction.
+     * @param b Another fraction.
+     * @return The largest one.
+     */
+    private static Fraction max(final Fraction a, final Fraction b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    /**
+     * Get the error thrown while exploring a node.
+     *
+     * @param e The error thrown by the pool.
+     * @return The cause of the error.
+     */
+    private static RuntimeException unwrap(final ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+            return (RuntimeException) e.getCause();
+        }
+        if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+        }
+        return new IllegalStateException(e.getCause());
+    }
+
+    /**
+     * Get the comparator giving the next node to explore first, depending on the
+     * {@link #nodeSelectionRule}.
+     *
+     * @return The node comparator.
+     */
+    private Comparator<Node> getComparator() {
+        if (nodeSelectionRule == NodeSelectionRule.DEPTH_FIRST) {
+            return Comparator.<Node>comparingInt(n -> n.depth).reversed()
+                    .thenComparing(Comparator.<Node>comparingLong(n -> n.id).reversed());
+        }
+        return Comparator.<Node, Fraction>comparing(n -> n.bound).reversed()
+                .thenComparingLong(n -> n.id);
+    }
+
+    /**
+     * Get the amount of explored nodes.
+     *
+     * @return The amount of nodes whose table has been solved.
+     */
+    public long getExploredNodes() {
+        return exploredNodes.get();
+    }
+
+    /**
+     * Get the amount of created nodes, including pruned ones.
+     *
+     * @return The amount of created nodes.
+     */
+    public long getCreatedNodes() {
+        return createdNodes.get();
+    }
+}
@@ -0,0 +1,344 @@
+package optim.optim.src.simplex;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.util.Pair;
+
+import optim.optim.src.simplex.data.Constraint;
+import optim.optim.src.simplex.data.IntegerMethod;
+import optim.optim.src.simplex.data.ObjectiveFunction;
+
+/**
+ * Make the cuts of an optimal table, to remove its fractional point without
+ * removing any integer point.
+ * <p>
+ * A cut is made from a row {@code x + sum(a_j * v_j) = b}, where {@code x} is
+ * an integer basic variable with a fractional value {@code b}. Two kinds of
+ * cuts are made, and the one with the best efficacy is kept:
+ * <ul>
+ * <li>The strengthened Chvátal–Gomory cut, only when every non basic variable
+ * of the row is integer. It is the fractional Gomory cut, with the
+ * coefficients above {@code frac(b)} lowered.</li>
+ * <li>The Gomory mixed integer cut, that also handles the non basic variables
+ * that can have non integer values.</li>
+ * </ul>
+ * The objective row can be cut too: since every decision variable is an
+ * integer, the objective bound {@code c.x <= z} is rounded down like any other
+ * cut once normalized, which cuts the point when only the optimum is
+ * fractional.
+ * <p>
+ * Cuts are returned as {@code LEQ} constraints on the decision variables,
+ * normalized with {@link #normalize(Constraint)}.
+ *
+ * @see "Strengthening Chvátal–Gomory cuts and Gomory fractional cuts" by Adam
+ *      N. Letchford and Andrea Lodi
+ * @see https://en.wikipedia.org/wiki/Cutting-plane_method
+ * @see IntegerMethod#GOMORY
+ */
+public class CutGenerator {
+    /**
+     * Maximum amount of bits of the coefficients of a normalized cut. Bigger cuts
+     * are dropped: they barely cut anything, and make every later pivot slower as
+     * the fractions of the table grow.
+     */
+    private static final int MAX_COEFFICIENT_BITS = 32;
+
+    /** The table to cut. */
+    private final SimplexTable table;
+
+    /** Current value of the decision variables. */
+    private final Fraction[] point;
+
+    /**
+     * Create a cut generator for the given table.
+     *
+     * @param table An optimal table, in phase 2. It is not edited.
+     */
+    public CutGenerator(final SimplexTable table) {
+        this.table = table;
+        this.point = new Fraction[table.getNumDecisionVariables()];
+        for (int i = 0; i < point.length; i++) {
+            final Integer row = table.getBasicVariableRow(table.getColOffset() + i);
+            point[i] = row == null ? Fraction.ZERO : table.getEntry(row, 0);
+        }
+    }
+
+    /**
+     * Get the cuts of every row that can be cut, the one with the best efficacy
+     * first. The objective row is only cut when no other row can be: its cut is
+     * nearly parallel to the objective, and mostly stalls the dual simplex.
+     *
+     * @param max The maximum amount of cuts returned.
+     * @return Pairs of the row each cut is made from, and the cut.
+     * @throws NoFeasibleSolutionException if a row proves there is no integer
+     *                                     point.
+     */
+    public List<Pair<Integer, Constraint>> getCuts(final int max) throws NoFeasibleSolutionException {
+        final List<Pair<Integer, Constraint>> cuts = new ArrayList<Pair<Integer, Constraint>>();
+        final Map<Constraint, Double> efficacies = new HashMap<Constraint, Double>();
+        for (int row = table.getRowOffset(); row < table.getHeight(); row++) {
+            final Constraint cut = getCut(row);
+            if (cut != null && !efficacies.containsKey(cut) && getEfficacy(cut) > 0) {
+                efficacies.put(cut, getEfficacy(cut));
+                cuts.add(new Pair<Integer, Constraint>(row, cut));
+            }
+        }
+        if (cuts.isEmpty()) {
+            final Constraint cut = getObjectiveCut();
+            if (cut != null && getEfficacy(cut) > 0) {
+                return List.of(new Pair<Integer, Constraint>(0, cut));
+            }
+            return cuts;
+        }
+        // stable sort, the first rows first in case of ties
+        cuts.sort(Comparator.comparing(cut -> efficacies.get(cut.getSecond()), Comparator.reverseOrder()));
+        return cuts.size() > max ? new ArrayList<Pair<Integer, Constraint>>(cuts.subList(0, max)) : cuts;
+    }
+
+    /**
+     * Get the best cut of the given row.
+     *
+     * @param row The row to cut, 0 for the objective row.
+     * @return The cut with the best efficacy, or null if the row can't be cut:
+     *         its basic variable is not integer, already has an integer value,
+     *         or its cuts are redundant.
+     * @throws NoFeasibleSolutionException if the row proves there is no integer
+     *                                     point.
+     * @see #getObjectiveCut()
+     */
+    public Constraint getCut(final int row) throws NoFeasibleSolutionException {
+        if (row == 0) {
+            return getObjectiveCut();
+        }
+        final Integer basicCol = table.getBasicVariableCol(row);
+        final Fraction b = table.getEntry(row, 0);
+        if (basicCol == null || b.isInteger() || !table.isIntegerColumn(basicCol)) {
+            return null;
+        }
+
+        final Constraint mixed = getMixedIntegerCut(row);
+        final Constraint strengthened = getStrengthenedCut(row);
+        if (mixed == null || strengthened == null) {
+            return mixed == null ? strengthened : mixed;
+        }
+        return getEfficacy(mixed) > getEfficacy(strengthened) ? mixed : strengthened;
+    }
+
+    /**
+     * Get the cut of the objective row: the objective bound
+     * {@code c.x <= z - constant} used as a constraint. Once normalized, its value
+     * is rounded down, so it cuts the current point when the scaled optimum is
+     * fractional, even if every basic decision variable is an integer.
+     *
+     * @return The cut, or null if it is redundant, or if its coefficients are too
+     *         big.
+     */
+    protected Constraint getObjectiveCut() {
+        final ObjectiveFunction f = table.getObjectiveFunction();
+        // the RHS of the objective row holds the negated optimum
+        final Fraction bound = table.getEntry(0, 0).negate().subtract(f.getConstant());
+        return checkSize(normalize(new Constraint(f.getCoefficients(), Relationship.LEQ, bound)));
+    }
+
+    /**
+     * Get the strengthened Chvátal–Gomory cut of a row. With
+     * {@code f0 = frac(b)}, {@code f_j = frac(a_j)}, and {@code k} such that
+     * {@code 1/(k+1) <= f0 < 1/k}, the interval {@code ]f0, 1[} is split in
+     * {@code k} parts, and {@code p_j} is the part {@code f_j} belongs to (0 if
+     * {@code f_j <= f0}). The cut is:
+     *
+     * <pre>
+     * sum((f_j - p_j / (k + 1)) * v_j) &gt;= f0
+     * </pre>
+     *
+     * @param row A row with an integer basic variable and a fractional value.
+     * @return The cut, or null if a non basic variable of the row is not integer,
+     *         or if the cut is redundant.
+     * @throws NoFeasibleSolutionException if the cut is empty.
+     */
+    protected Constraint getStrengthenedCut(final int row) throws NoFeasibleSolutionException {
+        final Fraction f0 = table.getEntry(row, 0).getDecimalPart();
+        // smallest k with 1/(k+1) <= f0
+        final Fraction inverse = f0.reciprocal();
+        final Fraction k = inverse.isInteger() ? inverse.subtract(1) : inverse.getWholePart();
+        final Fraction width = Fraction.ONE.subtract(f0).divide(k);
+
+        final Fraction[] coefficients = new Fraction[table.getWidth() - 1];
+        for (int j = 1; j < table.getWidth(); j++) {
+            final Fraction a = table.getEntry(row, j);
+            if (table.isBasicCol(j) || a.isZero()) {
+                coefficients[j - 1] = Fraction.ZERO;
+                continue;
+            }
+            if (!table.isIntegerColumn(j)) {
+                return null;
+            }
+            final Fraction f = a.getDecimalPart();
+            if (f.compareTo(f0) <= 0) {
+                coefficients[j - 1] = f.negate();
+            } else {
+                // p = ceil((f - f0) / width)
+                final Fraction part = f.subtract(f0).divide(width);
+                final Fraction p = part.isInteger() ? part : part.getWholePart().add(1);
+                coefficients[j - 1] = f.subtract(p.divide(k.add(1))).negate();
+            }
+        }
+        return toCut(coefficients, f0.negate());
+    }
+
+    /**
+     * Get the Gomory mixed integer cut of a row. With {@code f0 = frac(b)} and
+     * {@code f_j = frac(a_j)}, each non basic variable gets the coefficient:
+     * <ul>
+     * <li>integer, {@code f_j <= f0}: {@code f_j}</li>
+     * <li>integer, {@code f_j > f0}: {@code f0 * (1 - f_j) / (1 - f0)}</li>
+     * <li>not integer, {@code a_j > 0}: {@code a_j}</li>
+     * <li>not integer, {@code a_j < 0}: {@code -f0 * a_j / (1 - f0)}</li>
+     * </ul>
+     * and the cut is {@code sum(c_j * v_j) >= f0}.
+     *
+     * @param row A row with an integer basic variable and a fractional value.
+     * @return The cut, or null if it is redundant.
+     * @throws NoFeasibleSolutionException if the cut is empty.
+     */
+    protected Constraint getMixedIntegerCut(final int row) throws NoFeasibleSolutionException {
+        final Fraction f0 = table.getEntry(row, 0).getDecimalPart();
+        final Fraction ratio = f0.divide(Fraction.ONE.subtract(f0));
+
+        final Fraction[] coefficients = new Fraction[table.getWidth() - 1];
+        for (int j = 1; j < table.getWidth(); j++) {
+            final Fraction a = table.getEntry(row, j);
+            if (table.isBasicCol(j) || a.isZero()) {
+                coefficients[j - 1] = Fraction.ZERO;
+                continue;
+            }
+            final Fraction c;
+            if (table.isIntegerColumn(j)) {
+                final Fraction f = a.getDecimalPart();
+                c = f.compareTo(f0) <= 0 ? f : Fraction.ONE.subtract(f).multiply(ratio);
+            } else {
+                c = a.isPositive() ? a : a.negate().multiply(ratio);
+            }
+            coefficients[j - 1] = c.negate();
+        }
+        return toCut(coefficients, f0.negate());
+    }
+
+    /**
+     * Rewrite an inequality on the table variables as a normalized cut on the
+     * decision variables.
+     *
+     * @param coefficients The coefficients of the {@code LEQ} inequality, where
+     *                     the indice {@code i} is the column {@code i + 1}.
+     * @param value        The right hand side of the inequality.
+     * @return The normalized cut, or null if it is empty but satisfied, or if its
+     *         coefficients are too big.
+     * @throws NoFeasibleSolutionException if the cut is empty, and can't be
+     *                                     satisfied.
+     */
+    private Constraint toCut(final Fraction[] coefficients, final Fraction value)
+            throws NoFeasibleSolutionException {
+        final Constraint cut = table.toDecisionVariables(coefficients, value);
+        final Constraint normalized = normalize(cut);
+        if (normalized == null) {
+            if (cut.getValue().isNegative()) {
+                throw new NoFeasibleSolutionException();
+            }
+            return null;
+        }
+        return checkSize(normalized);
+    }
+
+    /**
+     * Drop a normalized cut whose coefficients are too big.
+     *
+     * @param cut A normalized cut, can be null.
+     * @return The cut, or null if it is null or if one of its coefficients has
+     *         more than {@link #MAX_COEFFICIENT_BITS} bits.
+     */
+    private static Constraint checkSize(final Constraint cut) {
+        if (cut == null || cut.getValue().getNumerator().bitLength() > MAX_COEFFICIENT_BITS) {
+            return null;
+        }
+        for (Fraction coef : cut.getCoefficients()) {
+            if (coef.getNumerator().bitLength() > MAX_COEFFICIENT_BITS) {
+                return null;
+            }
+        }
+        return cut;
+    }
+
+    /**
+     * Get the efficacy of a cut: the distance between the current point and the
+     * cut hyperplane. It is negative if the point doesn't violate the cut.
+     *
+     * @param cut A {@code LEQ} constraint on the decision variables.
+     * @return The efficacy of the cut.
+     */
+    public double getEfficacy(final Constraint cut) {
+        return getEfficacy(cut, point);
+    }
+
+    /**
+     * Get the efficacy of a cut: the distance between the given point and the
+     * cut hyperplane. It is negative if the point doesn't violate the cut.
+     *
+     * @param cut   A {@code LEQ} constraint on the decision variables.
+     * @param point The value of the decision variables.
+     * @return The efficacy of the cut.
+     */
+    public static double getEfficacy(final Constraint cut, final Fraction[] point) {
+        Fraction lhs = Fraction.ZERO;
+        double norm = 0;
+        for (int i = 0; i < point.length; i++) {
+            lhs = lhs.add(cut.getCoefficients()[i].multiply(point[i]));
+            norm += Math.pow(cut.getCoefficients()[i].doubleValue(), 2);
+        }
+        return lhs.subtract(cut.getValue()).doubleValue() / Math.sqrt(norm);
+    }
+
+    /**
+     * Normalize a cut: scale it so its coefficients are coprime integers, then
+     * round its value down. This is valid since every decision variable is an
+     * integer, and it makes the slack variable of the cut an integer too.
+     *
+     * @param cut The cut to normalize.
+     * @return The normalized cut, or null if all its coefficients are zero.
+     */
+    public static Constraint normalize(final Constraint cut) {
+        final Constraint leq = cut.normalize()[0];
+        final Fraction[] coefficients = leq.getCoefficients();
+
+        // least common multiple of the denominators
+        BigInteger lcm = BigInteger.ONE;
+        boolean empty = true;
+        for (Fraction coef : coefficients) {
+            lcm = lcm.divide(lcm.gcd(coef.getDenominator())).multiply(coef.getDenominator());
+            empty &= coef.isZero();
+        }
+        if (empty) {
+            return null;
+        }
+
+        // integer coefficients, then divided by their greatest common divisor
+        final BigInteger[] numerators = new BigInteger[coefficients.length];
+        BigInteger gcd = BigInteger.ZERO;
+        for (int i = 0; i < coefficients.length; i++) {
+            numerators[i] = coefficients[i].getNumerator().multiply(lcm.divide(coefficients[i].getDenominator()));
+            gcd = gcd.gcd(numerators[i]);
+        }
+        final Fraction[] scaled = new Fraction[coefficients.length];
+        for (int i = 0; i < coefficients.length; i++) {
+            scaled[i] = new Fraction(numerators[i].divide(gcd));
+        }
+        final Fraction value = leq.getValue().multiply(new Fraction(lcm, gcd)).getWholePart();
+        return new Constraint(scaled, Relationship.LEQ, value);
+    }
+}
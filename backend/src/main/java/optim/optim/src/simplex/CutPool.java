@@ -0,0 +1,188 @@
+package optim.optim.src.simplex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import optim.optim.src.simplex.data.Constraint;
+import optim.optim.src.simplex.data.IntegerMethod;
+
+/**
+ * Pool of the cuts found while solving an integer problem, shared by every node
+ * of a branch and cut tree.
+ * <p>
+ * Cuts are stored as {@code LEQ} constraints on the decision variables, so
+ * they are valid in any table of the problem. They are normalized before being
+ * stored (see {@link CutGenerator#normalize(Constraint)}), and two cuts with
+ * the same normalized form are the same cut, only stored once.
+ * <p>
+ * Only the cuts violated by the current point are added to a table. A cut that
+ * has been slack for {@link #maxAge} rounds in a row in a table is aged out of
+ * that table, and the oldest cuts are forgotten once the pool is full, so
+ * neither the tables nor the pool grow without bound. The ages are kept per
+ * table by the caller, and a node starts with the ages of its parent: a cut
+ * slack in a subtree can still be binding in another one.
+ * <p>
+ * Every method is synchronized, the pool can be used by several threads. The
+ * cuts are only added to the pool from a single table, so the ones separated
+ * only depend on the point, and ties are broken by the order the cuts have been
+ * added in.
+ *
+ * @see IntegerMethod#BRANCH_AND_CUT
+ */
+public class CutPool {
+    /** Default amount of rounds a cut can stay slack before being aged out. */
+    public static final int defaultMaxAge = 3;
+
+    /** Default maximum amount of cuts kept in the pool. */
+    public static final int defaultCapacity = 500;
+
+    /** Amount of rounds a cut can stay slack before being aged out. */
+    private final int maxAge;
+
+    /** Maximum amount of cuts kept in the pool. */
+    private final int capacity;
+
+    /** The stored cuts, by their normalized form, from the oldest. */
+    private final Set<Constraint> cuts = new LinkedHashSet<Constraint>();
+
+    /** Create a new pool with the default settings. */
+    public CutPool() {
+        this(defaultMaxAge, defaultCapacity);
+    }
+
+    /**
+     * Create a new pool.
+     *
+     * @param maxAge   Amount of rounds a cut can stay slack before being aged out.
+     * @param capacity Maximum amount of cuts kept in the pool.
+     * @throws IllegalArgumentException if a parameter is less than 1.
+     */
+    public CutPool(final int maxAge, final int capacity) throws IllegalArgumentException {
+        if (maxAge < 1) {
+            throw new IllegalArgumentException("maxAge is less than 1");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity is less than 1");
+        }
+        this.maxAge = maxAge;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Add a cut to the pool, if it isn't already stored.
+     *
+     * @param cut A {@code LEQ} constraint on the decision variables.
+     * @return True if the cut is new, false if it was already stored or if it is
+     *         empty.
+     */
+    public synchronized boolean add(final Constraint cut) {
+        final Constraint normalized = CutGenerator.normalize(cut);
+        if (normalized == null || cuts.contains(normalized)) {
+            return false;
+        }
+        if (cuts.size() >= capacity) {
+            // forget the oldest cut, the tables holding it still age it
+            final Iterator<Constraint> oldest = cuts.iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        cuts.add(normalized);
+        return true;
+    }
+
+    /**
+     * Check if the given constraint is a cut of the pool.
+     *
+     * @param constraint The constraint to check, as stored in the pool.
+     * @return True if the constraint is a cut of the pool.
+     */
+    public synchronized boolean contains(final Constraint constraint) {
+        return cuts.contains(constraint);
+    }
+
+    /**
+     * Get the cuts violated by the given point, the most violated first, and the
+     * oldest first among equally violated ones. The violation is the distance
+     * between the point and the cut hyperplane.
+     *
+     * @param point  The values of the decision variables.
+     * @param active The cuts already in the table, which are skipped.
+     * @param max    The maximum amount of cuts returned.
+     * @return The violated cuts, as stored in the pool.
+     */
+    public synchronized List<Constraint> separate(final Fraction[] point, final Collection<Constraint> active,
+            final int max) {
+        final Set<Constraint> skipped = new HashSet<Constraint>(active);
+        final Map<Constraint, Double> violations = new HashMap<Constraint, Double>();
+        final List<Constraint> result = new ArrayList<Constraint>();
+        for (Constraint cut : cuts) {
+            if (skipped.contains(cut)) {
+                continue;
+            }
+            final double violation = CutGenerator.getEfficacy(cut, point);
+            if (violation > 0) {
+                violations.put(cut, violation);
+                result.add(cut);
+            }
+        }
+
+        // the sort is stable, the cuts stay from the oldest among the ties
+        result.sort(Comparator.comparing(violations::get, Comparator.reverseOrder()));
+        return result.size() > max ? new ArrayList<Constraint>(result.subList(0, max)) : result;
+    }
+
+    /**
+     * Update the age of every cut of the pool in the given table, and remove from
+     * the table the ones slack for too long: their slack variable is basic with a
+     * strictly positive value, so the current point doesn't depend on them, and
+     * the table stays optimal. The age of a cut grows when it is slack, and is
+     * reset when it is tight.
+     * <p>
+     * The cuts are only removed from the table, they stay in the pool and can be
+     * added again later.
+     *
+     * @param table The table to compact, edited in place.
+     * @param ages  The ages of the cuts in the table, by cut, updated in place.
+     *              The cuts removed from the table leave it.
+     * @return The amount of rows removed from the table.
+     */
+    public synchronized int removeAgedCuts(final SimplexTable table, final Map<Constraint, Integer> ages) {
+        int removed = 0;
+        // from the end, so removing a row doesn't move the next columns
+        for (int col = table.getWidth() - 1; col >= table.getFirstAppendedCol(); col--) {
+            final Constraint constraint = table.getColumnConstraint(col);
+            // a cut forgotten by the pool is still aged out of the table
+            if (!cuts.contains(constraint) && !ages.containsKey(constraint)) {
+                continue;
+            }
+            final Integer row = table.getBasicVariableRow(col);
+            final boolean slack = row != null && table.getEntry(row, 0).isPositive();
+            final int age = slack ? ages.getOrDefault(constraint, 0) + 1 : 0;
+            if (slack && age >= maxAge) {
+                table.removeRow(row);
+                ages.remove(constraint);
+                removed++;
+            } else {
+                ages.put(constraint, age);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Get the amount of cuts in the pool.
+     *
+     * @return The amount of stored cuts.
+     */
+    public synchronized int size() {
+        return cuts.size();
+    }
+}
@@ -0,0 +1,431 @@
+package optim.optim.src.simplex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.math3.optim.linear.Relationship;
+
+import optim.optim.src.simplex.data.Constraint;
+import optim.optim.src.simplex.data.IntegerMethod;
+
+/**
+ * Make the cover and clique cuts of the knapsack rows of a problem. Unlike the
+ * Gomory cuts, they only depend on the original constraints, so they are valid
+ * in every node of a branch and bound tree.
+ * <p>
+ * A variable is binary when a constraint bounds it by 1. A knapsack row is an
+ * original constraint on binary variables only. Its variables with a negative
+ * coefficient are complemented ({@code x' = 1 - x}), so the row becomes
+ * {@code sum(a_j * y_j) <= b} with positive weights, on literals {@code y_j}
+ * that are either {@code x_j} or {@code 1 - x_j}.
+ * <ul>
+ * <li>Lifted cover cuts: a cover {@code C} is a set of literals whose weights
+ * exceed {@code b}, so they can't all be 1: {@code sum(y_j, j in C) <= |C| - 1}.
+ * The cover is chosen greedily to be violated by the point, made minimal, then
+ * lifted: with {@code mu_h} the sum of the {@code h} largest weights of the
+ * cover, a literal outside of it with {@code mu_h <= a_j < mu_(h+1)} gets the
+ * coefficient {@code h}.</li>
+ * <li>Clique cuts: two literals conflict when their weights exceed {@code b} in
+ * a row, so they can't both be 1. In a clique of the conflict graph, at most
+ * one literal is 1: {@code sum(y_j, j in clique) <= 1}. The cliques are grown
+ * greedily from each fractional literal.</li>
+ * </ul>
+ * Cuts are returned as {@code LEQ} constraints on the decision variables,
+ * normalized with {@link CutGenerator#normalize(Constraint)}.
+ *
+ * @see "Solving Large-Scale Zero-One Linear Programming Problems" by Harlan
+ *      Crowder, Ellis L. Johnson and Manfred Padberg
+ * @see "Facets of the knapsack polytope" by Egon Balas
+ * @see IntegerMethod#GOMORY
+ */
+public class KnapsackSeparator {
+    /**
+     * A knapsack row: {@code sum(a_j * y_j) <= b}, with {@code y_j = x_j}, or
+     * {@code 1 - x_j} when complemented.
+     */
+    private static class Row {
+        /** The indices of the decision variables of the row. */
+        final int[] variables;
+        /** Whether each variable is complemented. */
+        final boolean[] complemented;
+        /** The positive weight of each literal. */
+        final Fraction[] weights;
+        /** The capacity of the row, once complemented. */
+        final Fraction capacity;
+
+        /**
+         * Create a new knapsack row.
+         *
+         * @param variables    The indices of the decision variables.
+         * @param complemented Whether each variable is complemented.
+         * @param weights      The positive weights of the literals.
+         * @param capacity     The capacity of the row.
+         */
+        Row(int[] variables, boolean[] complemented, Fraction[] weights, Fraction capacity) {
+            this.variables = variables;
+            this.complemented = complemented;
+            this.weights = weights;
+            this.capacity = capacity;
+        }
+    }
+
+    /** The amount of decision variables. */
+    private final int numDecisionVariables;
+
+    /** The knapsack rows of the problem. */
+    private final List<Row> rows = new ArrayList<Row>();
+
+    /**
+     * The conflict graph. Literal {@code 2 * j} is {@code x_j}, and literal
+     * {@code 2 * j + 1} is {@code 1 - x_j}. Each literal maps to the ones it
+     * conflicts with.
+     */
+    private final Map<Integer, Set<Integer>> conflicts = new HashMap<Integer, Set<Integer>>();
+
+    /**
+     * Find the knapsack rows of a problem, and build its conflict graph.
+     *
+     * @param constraints          The original constraints, as {@code LEQ}
+     *                             constraints on the decision variables.
+     * @param numDecisionVariables The amount of decision variables.
+     */
+    public KnapsackSeparator(final List<Constraint> constraints, final int numDecisionVariables) {
+        this.numDecisionVariables = numDecisionVariables;
+
+        final boolean[] binary = new boolean[numDecisionVariables];
+        for (Constraint constraint : constraints) {
+            final int variable = getBoundedVariable(constraint);
+            // every decision variable is an integer, so x <= b with b < 2 makes it binary
+            if (variable != -1 && constraint.getValue()
+                    .divide(constraint.getCoefficients()[variable]).compareTo(new Fraction(2)) < 0) {
+                binary[variable] = true;
+            }
+        }
+
+        for (Constraint constraint : constraints) {
+            final Row row = toRow(constraint, binary);
+            if (row != null) {
+                rows.add(row);
+                addConflicts(row);
+            }
+        }
+    }
+
+    /**
+     * Check if the problem has no knapsack row, so no cut can ever be made.
+     *
+     * @return True if there is no knapsack row.
+     */
+    public boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    /**
+     * Get the cover and clique cuts violated by a point, the one with the best
+     * efficacy first.
+     *
+     * @param point The value of the decision variables.
+     * @param max   The maximum amount of cuts returned.
+     * @return The violated cuts.
+     */
+    public List<Constraint> getCuts(final Fraction[] point, final int max) {
+        final Set<Constraint> found = new LinkedHashSet<Constraint>();
+        for (Row row : rows) {
+            final Constraint cut = getCoverCut(row, point);
+            if (cut != null) {
+                found.add(cut);
+            }
+        }
+        found.addAll(getCliqueCuts(point));
+
+        final Map<Constraint, Double> efficacies = new HashMap<Constraint, Double>();
+        final List<Constraint> cuts = new ArrayList<Constraint>();
+        for (Constraint cut : found) {
+            final double efficacy = CutGenerator.getEfficacy(cut, point);
+            if (efficacy > 0) {
+                efficacies.put(cut, efficacy);
+                cuts.add(cut);
+            }
+        }
+        // stable sort, the cover cuts first in case of ties
+        cuts.sort(Comparator.comparing(cut -> efficacies.get(cut), Comparator.reverseOrder()));
+        return cuts.size() > max ? new ArrayList<Constraint>(cuts.subList(0, max)) : cuts;
+    }
+
+    /**
+     * Get the lifted cover cut of a row. The cover is built greedily, the
+     * literals with the smallest {@code (1 - y_j) / a_j} first, until their
+     * weights exceed the capacity. It is then made minimal by removing the
+     * literals with the smallest value while it stays a cover.
+     *
+     * @param row   The knapsack row.
+     * @param point The value of the decision variables.
+     * @return The cut, or null if the row has no cover.
+     */
+    private Constraint getCoverCut(final Row row, final Fraction[] point) {
+        final int size = row.variables.length;
+        final Fraction[] values = new Fraction[size];
+        final List<Integer> order = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++) {
+            values[i] = getLiteralValue(point, row.variables[i], row.complemented[i]);
+            order.add(i);
+        }
+        order.sort(Comparator.comparing((Integer i) -> Fraction.ONE.subtract(values[i]).divide(row.weights[i])));
+
+        final List<Integer> cover = new ArrayList<Integer>();
+        Fraction weight = Fraction.ZERO;
+        for (int i : order) {
+            cover.add(i);
+            weight = weight.add(row.weights[i]);
+            if (weight.compareTo(row.capacity) > 0) {
+                break;
+            }
+        }
+        if (weight.compareTo(row.capacity) <= 0) {
+            return null;
+        }
+
+        // minimal cover: remove the literals the furthest from 1 first
+        final List<Integer> byValue = new ArrayList<Integer>(cover);
+        byValue.sort(Comparator.comparing((Integer i) -> values[i]));
+        for (int i : byValue) {
+            final Fraction remaining = weight.subtract(row.weights[i]);
+            if (remaining.compareTo(row.capacity) > 0) {
+                cover.remove(Integer.valueOf(i));
+                weight = remaining;
+            }
+        }
+
+        // partial sums of the weights of the cover, the largest first
+        final int r = cover.size();
+        final Fraction[] sums = new Fraction[r + 1];
+        final List<Fraction> coverWeights = new ArrayList<Fraction>(r);
+        for (int i : cover) {
+            coverWeights.add(row.weights[i]);
+        }
+        coverWeights.sort(Comparator.reverseOrder());
+        sums[0] = Fraction.ZERO;
+        for (int h = 0; h < r; h++) {
+            sums[h + 1] = sums[h].add(coverWeights.get(h));
+        }
+
+        final int[] coefficients = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (cover.contains(i)) {
+                coefficients[i] = 1;
+                continue;
+            }
+            int h = 0;
+            while (h < r - 1 && sums[h + 1].compareTo(row.weights[i]) <= 0) {
+                h++;
+            }
+            coefficients[i] = h;
+        }
+        return toCut(row.variables, row.complemented, coefficients, r - 1);
+    }
+
+    /**
+     * Get the clique cuts violated by a point. From each fractional literal, a
+     * clique is grown with the conflicting literals of largest value, then with
+     * the ones of value 0, which strengthen the cut without changing its
+     * violation.
+     *
+     * @param point The value of the decision variables.
+     * @return The violated clique cuts.
+     */
+    protected List<Constraint> getCliqueCuts(final Fraction[] point) {
+        final List<Constraint> cuts = new ArrayList<Constraint>();
+        final Set<Set<Integer>> cliques = new HashSet<Set<Integer>>();
+        final List<Integer> literals = new ArrayList<Integer>(conflicts.keySet());
+        literals.sort(Comparator.comparing((Integer l) -> getLiteralValue(point, l), Comparator.reverseOrder())
+                .thenComparing(Comparator.naturalOrder()));
+
+        for (int seed : literals) {
+            if (getLiteralValue(point, seed).isInteger()) {
+                continue;
+            }
+            final Set<Integer> clique = new LinkedHashSet<Integer>();
+            clique.add(seed);
+            Fraction sum = getLiteralValue(point, seed);
+            // the literals are sorted by value, so the zero ones come last
+            for (int literal : literals) {
+                if (!clique.contains(literal) && conflicts.get(literal).containsAll(clique)) {
+                    clique.add(literal);
+                    sum = sum.add(getLiteralValue(point, literal));
+                }
+            }
+            if (clique.size() < 2 || sum.compareTo(Fraction.ONE) <= 0 || !cliques.add(clique)) {
+                continue;
+            }
+
+            final int[] variables = new int[clique.size()];
+            final boolean[] complemented = new boolean[clique.size()];
+            final int[] coefficients = new int[clique.size()];
+            int i = 0;
+            for (int literal : clique) {
+                variables[i] = literal / 2;
+                complemented[i] = literal % 2 == 1;
+                coefficients[i] = 1;
+                i++;
+            }
+            final Constraint cut = toCut(variables, complemented, coefficients, 1);
+            if (cut != null) {
+                cuts.add(cut);
+            }
+        }
+        return cuts;
+    }
+
+    /**
+     * Get the variable bounded by a constraint {@code a * x <= b} with
+     * {@code a > 0}.
+     *
+     * @param constraint A {@code LEQ} constraint.
+     * @return The indice of the bounded variable, or -1 if the constraint is not
+     *         a bound.
+     */
+    private static int getBoundedVariable(final Constraint constraint) {
+        int variable = -1;
+        final Fraction[] coefficients = constraint.getCoefficients();
+        for (int i = 0; i < coefficients.length; i++) {
+            if (coefficients[i].isZero()) {
+                continue;
+            }
+            if (variable != -1 || coefficients[i].isNegative()) {
+                return -1;
+            }
+            variable = i;
+        }
+        return variable;
+    }
+
+    /**
+     * Make a knapsack row from a constraint, complementing its variables with a
+     * negative coefficient.
+     *
+     * @param constraint A {@code LEQ} constraint.
+     * @param binary     Whether each decision variable is binary.
+     * @return The knapsack row, or null if the constraint has a variable that is
+     *         not binary, is a bound, or can never be tight.
+     */
+    private static Row toRow(final Constraint constraint, final boolean[] binary) {
+        final Fraction[] coefficients = constraint.getCoefficients();
+        int size = 0;
+        for (int i = 0; i < coefficients.length; i++) {
+            if (coefficients[i].isZero()) {
+                continue;
+            }
+            if (!binary[i]) {
+                return null;
+            }
+            size++;
+        }
+        if (size < 2) {
+            return null;
+        }
+
+        final int[] variables = new int[size];
+        final boolean[] complemented = new boolean[size];
+        final Fraction[] weights = new Fraction[size];
+        Fraction capacity = constraint.getValue();
+        Fraction total = Fraction.ZERO;
+        int j = 0;
+        for (int i = 0; i < coefficients.length; i++) {
+            if (coefficients[i].isZero()) {
+                continue;
+            }
+            variables[j] = i;
+            complemented[j] = coefficients[i].isNegative();
+            weights[j] = coefficients[i].abs();
+            // a * x = a - a * (1 - x), the constant goes to the capacity
+            if (complemented[j]) {
+                capacity = capacity.subtract(coefficients[i]);
+            }
+            total = total.add(weights[j]);
+            j++;
+        }
+        if (capacity.isNegative() || total.compareTo(capacity) <= 0) {
+            return null;
+        }
+        return new Row(variables, complemented, weights, capacity);
+    }
+
+    /**
+     * Add the conflicts of a row: the pairs of literals whose weights exceed its
+     * capacity.
+     *
+     * @param row The knapsack row.
+     */
+    private void addConflicts(final Row row) {
+        for (int i = 0; i < row.variables.length; i++) {
+            for (int j = i + 1; j < row.variables.length; j++) {
+                if (row.weights[i].add(row.weights[j]).compareTo(row.capacity) <= 0) {
+                    continue;
+                }
+                final int a = 2 * row.variables[i] + (row.complemented[i] ? 1 : 0);
+                final int b = 2 * row.variables[j] + (row.complemented[j] ? 1 : 0);
+                conflicts.computeIfAbsent(a, key -> new HashSet<Integer>()).add(b);
+                conflicts.computeIfAbsent(b, key -> new HashSet<Integer>()).add(a);
+            }
+        }
+    }
+
+    /**
+     * Get the value of a literal.
+     *
+     * @param point        The value of the decision variables.
+     * @param variable     The indice of the decision variable.
+     * @param complemented Whether the literal is {@code 1 - x}.
+     * @return The value of the literal.
+     */
+    private static Fraction getLiteralValue(final Fraction[] point, final int variable,
+            final boolean complemented) {
+        return complemented ? Fraction.ONE.subtract(point[variable]) : point[variable];
+    }
+
+    /**
+     * Get the value of a literal of the conflict graph.
+     *
+     * @param point   The value of the decision variables.
+     * @param literal The literal, {@code 2 * j} or {@code 2 * j + 1}.
+     * @return The value of the literal.
+     */
+    private static Fraction getLiteralValue(final Fraction[] point, final int literal) {
+        return getLiteralValue(point, literal / 2, literal % 2 == 1);
+    }
+
+    /**
+     * Make a cut on the decision variables from a cut on literals
+     * {@code sum(c_j * y_j) <= value}.
+     *
+     * @param variables    The indices of the decision variables.
+     * @param complemented Whether each variable is complemented.
+     * @param coefficients The coefficient of each literal.
+     * @param value        The value of the cut.
+     * @return The normalized cut, or null if all its coefficients are zero.
+     */
+    private Constraint toCut(final int[] variables, final boolean[] complemented, final int[] coefficients,
+            final int value) {
+        final Fraction[] cut = new Fraction[numDecisionVariables];
+        Arrays.fill(cut, Fraction.ZERO);
+        Fraction rhs = new Fraction(value);
+        for (int i = 0; i < variables.length; i++) {
+            final Fraction coef = new Fraction(coefficients[i]);
+            // c * (1 - x) = c - c * x
+            if (complemented[i]) {
+                rhs = rhs.subtract(coef);
+                cut[variables[i]] = cut[variables[i]].subtract(coef);
+            } else {
+                cut[variables[i]] = cut[variables[i]].add(coef);
+            }
+        }
+        return CutGenerator.normalize(new Constraint(cut, Relationship.LEQ, rhs));
+    }
+}
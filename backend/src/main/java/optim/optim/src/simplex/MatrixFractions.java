@@ -26,6 +26,8 @@
 package optim.optim.src.simplex;
 
 import java.io.Serializable;
+import java.util.Arrays;
+
 
 import org.apache.commons.math3.exception.DimensionMismatchException;
 import org.apache.commons.math3.exception.MathIllegalStateException;
@@ -54,6 +56,14 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
     /** Entries of the matrix. */
     private Fraction data[][];
 
+    /**
+     * Rows shared with a snapshot, cloned before being modified. Null if no
+     * snapshot has been taken since the data was set.
+     *
+     * @see #snapshot()
+     */
+    private transient boolean shared[];
+
     /**
      * Creates a matrix with no data
      */
@@ -282,13 +292,50 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
 
     /**
      * Get a reference to the underlying data array.
+     * <p>
+     * The rows may be shared with snapshots, so they must not be modified
+     * directly. Use the setters instead.
      *
      * @return 2-dimensional array of entries.
+     * @see #snapshot()
      */
     public Fraction[][] getDataRef() {
         return data;
     }
 
+    /**
+     * Returns matrix entries as a two-dimensional array, sharing its rows with
+     * this matrix. A row is only cloned when this matrix modifies it, so the
+     * snapshot keeps the current entries while only costing the rows modified
+     * afterwards.
+     *
+     * @return 2-dimensional array of entries. Must not be modified.
+     */
+    public Fraction[][] snapshot() {
+        if (data == null) {
+            return new Fraction[0][];
+        }
+        if (shared == null || shared.length != data.length) {
+            shared = new boolean[data.length];
+        }
+        Arrays.fill(shared, true);
+        return data.clone();
+    }
+
+    /**
+     * Get a row to modify, cloning it first if it is shared with a snapshot.
+     *
+     * @param row Row index.
+     * @return The row, owned by this matrix only.
+     */
+    private Fraction[] writableRow(final int row) {
+        if (shared != null && shared[row]) {
+            data[row] = data[row].clone();
+            shared[row] = false;
+        }
+        return data[row];
+    }
+
     /**
      * Replace the submatrix starting at {@code row, column} using data in the
      * input {@code subMatrix} array. Indexes are 0-based.
@@ -345,6 +392,7 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
                 throw new NoDataException(LocalizedFormats.AT_LEAST_ONE_COLUMN);
             }
             data = new Fraction[subMatrix.length][nCols];
+            shared = null;
             for (int i = 0; i < data.length; ++i) {
                 if (subMatrix[i].length != nCols) {
                     throw new DimensionMismatchException(subMatrix[i].length, nCols);
@@ -392,7 +440,7 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
     public void setEntry(final int row, final int column, final double value)
             throws OutOfRangeException {
         MatrixUtils.checkMatrixIndex(this, row, column);
-        data[row][column] = new Fraction(value);
+        writableRow(row)[column] = new Fraction(value);
     }
 
     /**
@@ -407,7 +455,7 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
     public void setEntryFraction(final int row, final int column, final Fraction value)
             throws OutOfRangeException {
         MatrixUtils.checkMatrixIndex(this, row, column);
-        data[row][column] = value;
+        writableRow(row)[column] = value;
     }
 
     /** {@inheritDoc} */
@@ -416,7 +464,7 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
             final double increment)
             throws OutOfRangeException {
         MatrixUtils.checkMatrixIndex(this, row, column);
-        data[row][column] = data[row][column].add(new Fraction(increment));
+        writableRow(row)[column] = data[row][column].add(new Fraction(increment));
     }
 
     /**
@@ -432,7 +480,7 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
             final Fraction increment)
             throws OutOfRangeException {
         MatrixUtils.checkMatrixIndex(this, row, column);
-        data[row][column] = data[row][column].add(increment);
+        writableRow(row)[column] = data[row][column].add(increment);
     }
 
     /** {@inheritDoc} */
@@ -441,7 +489,7 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
             final double factor)
             throws OutOfRangeException {
         MatrixUtils.checkMatrixIndex(this, row, column);
-        data[row][column] = data[row][column].multiply(new Fraction(factor));
+        writableRow(row)[column] = data[row][column].multiply(new Fraction(factor));
     }
 
     /**
@@ -457,7 +505,7 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
             final Fraction factor)
             throws OutOfRangeException {
         MatrixUtils.checkMatrixIndex(this, row, column);
-        data[row][column] = data[row][column].multiply(factor);
+        writableRow(row)[column] = data[row][column].multiply(factor);
     }
 
     /** {@inheritDoc} */
@@ -579,7 +627,7 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
         final int columns = getColumnDimension();
         visitor.start(rows, columns, 0, rows - 1, 0, columns - 1);
         for (int i = 0; i < rows; ++i) {
-            final Fraction[] rowI = data[i];
+            final Fraction[] rowI = writableRow(i);
             for (int j = 0; j < columns; ++j) {
                 rowI[j] = new Fraction(visitor.visit(i, j, rowI[j].doubleValue()));
             }
@@ -612,7 +660,7 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
         visitor.start(getRowDimension(), getColumnDimension(),
                 startRow, endRow, startColumn, endColumn);
         for (int i = startRow; i <= endRow; ++i) {
-            final Fraction[] rowI = data[i];
+            final Fraction[] rowI = writableRow(i);
             for (int j = startColumn; j <= endColumn; ++j) {
                 rowI[j] = new Fraction(visitor.visit(i, j, rowI[j].doubleValue()));
             }
@@ -646,7 +694,7 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
         visitor.start(rows, columns, 0, rows - 1, 0, columns - 1);
         for (int j = 0; j < columns; ++j) {
             for (int i = 0; i < rows; ++i) {
-                final Fraction[] rowI = data[i];
+                final Fraction[] rowI = writableRow(i);
                 rowI[j] = new Fraction(visitor.visit(i, j, rowI[j].doubleValue()));
             }
         }
@@ -678,7 +726,7 @@ public class MatrixFractions extends AbstractRealMatrix implements Serializable
                 startRow, endRow, startColumn, endColumn);
         for (int j = startColumn; j <= endColumn; ++j) {
             for (int i = startRow; i <= endRow; ++i) {
-                final Fraction[] rowI = data[i];
+                final Fraction[] rowI = writableRow(i);
                 rowI[j] = new Fraction(visitor.visit(i, j, rowI[j].doubleValue()));
             }
         }
@@ -0,0 +1,423 @@
+package optim.optim.src.simplex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.optim.linear.UnboundedSolutionException;
+
+import optim.optim.src.log.Logger;
+import optim.optim.src.simplex.data.Constraint;
+import optim.optim.src.simplex.data.ConstraintSet;
+import optim.optim.src.simplex.data.GoalType;
+import optim.optim.src.simplex.data.HeuristicBudget;
+import optim.optim.src.simplex.data.NonNegativeValues;
+import optim.optim.src.simplex.data.ObjectiveFunction;
+import optim.optim.src.simplex.data.StepRetention;
+import optim.optim.src.simplex.data.StepRetention.Policy;
+
+/**
+ * Primal heuristics, looking for a good integer solution from the optimal
+ * table of the relaxed problem, before (or while) the integer method proves
+ * the optimality. A good solution found early prunes the branch and bound
+ * nodes, and stops the cut rounds once the relaxed optimum can't beat it.
+ * <p>
+ * Three heuristics are run, until the time budget is spent:
+ * <ul>
+ * <li>Rounding: the point is rounded to the nearest integers, or else each
+ * variable is rounded in the direction no constraint forbids.</li>
+ * <li>Fractional diving: the variable the closest to an integer is bounded to
+ * it, and the table reoptimized with the dual simplex, until every variable is
+ * integer, or the table is empty.</li>
+ * <li>Feasibility pump: only if nothing has been found yet. The point of the
+ * relaxed problem the closest to the rounded point is rounded again, until the
+ * rounded point is feasible.</li>
+ * </ul>
+ * None of these steps are recorded in the resolution steps.
+ *
+ * @see HeuristicBudget
+ * @see "The feasibility pump" by Matteo Fischetti, Fred Glover and Andrea Lodi
+ */
+public class PrimalHeuristics {
+    /** Maximum amount of variables bounded by a dive. */
+    private static final int MAX_DIVE_DEPTH = 100;
+
+    /** Maximum amount of dual simplex iterations after each bound of a dive. */
+    private static final int MAX_DIVE_ITERATIONS = 1000;
+
+    /** Maximum amount of rounds of the feasibility pump. */
+    private static final int PUMP_ROUNDS = 20;
+
+    /** Maximum amount of iterations to find the closest point of a pump round. */
+    private static final int PUMP_MAX_ITERATIONS = 1000;
+
+    /** Amount of variables rounded the other way when the pump cycles. */
+    private static final int PUMP_FLIPS = 3;
+
+    /** Solver used to reoptimize the tables. */
+    private final SimplexSolver solver;
+
+    /** The objective function of the problem. */
+    private final ObjectiveFunction objectiveFunction;
+
+    /** Time the heuristics can take, in milliseconds. */
+    private final long budget;
+
+    /**
+     * Whether the time budget is ignored, so the solution found only depends on
+     * the problem. The heuristics are then only bounded by their amount of work.
+     */
+    private final boolean deterministic;
+
+    /** Time at which the heuristics must stop. */
+    private long deadline;
+
+    /** The best integer solution found. */
+    private PointFractionPair best = null;
+
+    /**
+     * Create new primal heuristics.
+     *
+     * @param solver            The solver used to reoptimize the tables.
+     * @param objectiveFunction The objective function of the problem.
+     * @param budget            The time the heuristics can take.
+     * @param deterministic     Whether to ignore the time budget, so the solution
+     *                          found doesn't depend on the machine. A budget of 0
+     *                          still disables the heuristics.
+     */
+    public PrimalHeuristics(final SimplexSolver solver, final ObjectiveFunction objectiveFunction,
+            final HeuristicBudget budget, final boolean deterministic) {
+        this.solver = solver;
+        this.objectiveFunction = objectiveFunction;
+        this.budget = budget.getTime();
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Run the heuristics on the optimal table of the relaxed problem.
+     *
+     * @param table An optimal table, in phase 2. It is not edited.
+     * @return The best integer solution found, or null if none has been found.
+     */
+    public PointFractionPair find(final SimplexTable table) {
+        if (budget == 0) {
+            return null;
+        }
+        deadline = System.currentTimeMillis() + budget;
+        best = null;
+
+        update(round(table));
+        if (!isTimeUp()) {
+            dive(table);
+        }
+        if (best == null && !isTimeUp()) {
+            pump(table);
+        }
+
+        if (best != null) {
+            Logger.trace("Primal heuristics: found " + best.getValue());
+        }
+        return best;
+    }
+
+    /**
+     * Round the point of a table. The variables are rounded to their nearest
+     * integer, or if this point isn't feasible, each variable is rounded down if
+     * no constraint prevents it from decreasing, or up if none prevents it from
+     * increasing.
+     *
+     * @param table An optimal table. It is not edited.
+     * @return The rounded point if it is feasible, null otherwise.
+     */
+    public PointFractionPair round(final SimplexTable table) {
+        final List<Constraint> constraints = table.getConstraints();
+        final Fraction[] point = new Fraction[table.getNumDecisionVariables()];
+        for (int i = 0; i < point.length; i++) {
+            point[i] = BranchAndBound.getValue(table, i);
+        }
+
+        final Fraction[] nearest = getNearest(point);
+        if (isFeasible(constraints, nearest)) {
+            return toSolution(nearest);
+        }
+
+        final Fraction[] rounded = new Fraction[point.length];
+        for (int i = 0; i < point.length; i++) {
+            if (point[i].isInteger()) {
+                rounded[i] = point[i];
+                continue;
+            }
+            // a LEQ constraint prevents decreasing the variables with a negative
+            // coefficient, and increasing the ones with a positive coefficient
+            boolean downLocked = false;
+            boolean upLocked = false;
+            for (Constraint constraint : constraints) {
+                downLocked |= constraint.getCoefficients()[i].isNegative();
+                upLocked |= constraint.getCoefficients()[i].isPositive();
+            }
+            if (!downLocked) {
+                rounded[i] = point[i].getWholePart();
+            } else if (!upLocked) {
+                rounded[i] = point[i].getWholePart().add(1);
+            } else {
+                return null;
+            }
+        }
+        return isFeasible(constraints, rounded) ? toSolution(rounded) : null;
+    }
+
+    /**
+     * Fractional diving: bound the variable the closest to an integer to this
+     * integer, reoptimize, and start again until the point is integer. The other
+     * bound is tried if the first empties the table, and the dive stops if both
+     * do, or if the relaxed optimum can't beat the best solution anymore.
+     *
+     * @param root An optimal table. It is not edited.
+     */
+    private void dive(final SimplexTable root) {
+        SimplexTable table = root;
+        for (int depth = 0; depth < MAX_DIVE_DEPTH && !isTimeUp(); depth++) {
+            if (best != null && table.getEntry(0, 0).negate().compareTo(best.getValue()) <= 0) {
+                return;
+            }
+            update(round(table));
+
+            int variable = -1;
+            Fraction closest = null;
+            for (int i = 0; i < table.getNumDecisionVariables(); i++) {
+                final Fraction decimal = BranchAndBound.getValue(table, i).getDecimalPart();
+                if (decimal.isZero()) {
+                    continue;
+                }
+                final Fraction distance = decimal.compareTo(Fraction.ONE_HALF) <= 0 ? decimal
+                        : Fraction.ONE.subtract(decimal);
+                if (closest == null || distance.compareTo(closest) < 0) {
+                    closest = distance;
+                    variable = i;
+                }
+            }
+            if (variable == -1) {
+                update(round(table));
+                return;
+            }
+
+            final boolean up = BranchAndBound.getValue(table, variable).getDecimalPart()
+                    .compareTo(Fraction.ONE_HALF) >= 0;
+            SimplexTable next = bound(table, variable, up);
+            if (next == null) {
+                next = bound(table, variable, !up);
+            }
+            if (next == null) {
+                return;
+            }
+            table = next;
+        }
+    }
+
+    /**
+     * Bound a variable of a table, and reoptimize it.
+     *
+     * @param table    An optimal table. It is not edited.
+     * @param variable The indice of the decision variable to bound.
+     * @param up       Whether the variable is bounded up or down.
+     * @return The new optimal table, or null if it is empty, or too long to
+     *         reoptimize.
+     */
+    private SimplexTable bound(final SimplexTable table, final int variable, final boolean up) {
+        final SimplexTable child = new SimplexTable(table);
+        child.appendConstraint(BranchAndBound.getBranch(table, variable, up), SimplexTable.BRANCH_CONSTRAINT);
+        try {
+            return solver.lookAheadDual(child, MAX_DIVE_ITERATIONS) ? child : null;
+        } catch (NoFeasibleSolutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Feasibility pump: the rounded point is replaced by the rounding of the
+     * point of the relaxed problem the closest to it (with the L1 norm), until it
+     * is feasible. When the rounding doesn't change, the variables the furthest
+     * from their rounding are rounded the other way.
+     *
+     * @param root An optimal table. It is not edited.
+     */
+    private void pump(final SimplexTable root) {
+        final List<Constraint> constraints = root.getConstraints();
+        final Fraction[] start = new Fraction[root.getNumDecisionVariables()];
+        for (int i = 0; i < start.length; i++) {
+            start[i] = BranchAndBound.getValue(root, i);
+        }
+
+        Fraction[] rounded = getNearest(start);
+        for (int round = 0; round < PUMP_ROUNDS && !isTimeUp(); round++) {
+            if (isFeasible(constraints, rounded)) {
+                update(toSolution(rounded));
+                return;
+            }
+            final Fraction[] point = getClosestPoint(constraints, rounded);
+            if (point == null) {
+                return;
+            }
+            final Fraction[] next = getNearest(point);
+            if (Arrays.equals(next, rounded)) {
+                flip(next, point);
+            }
+            rounded = next;
+        }
+    }
+
+    /**
+     * Get the point satisfying the constraints the closest to the given integer
+     * point, by solving:
+     *
+     * <pre>
+     * max -sum(d)
+     * A.x &lt;= b
+     * x - d &lt;= r
+     * -x - d &lt;= -r
+     * </pre>
+     *
+     * @param constraints The constraints of the problem.
+     * @param rounded     The integer point.
+     * @return The closest point, or null if it couldn't be found.
+     */
+    private Fraction[] getClosestPoint(final List<Constraint> constraints, final Fraction[] rounded) {
+        final int n = rounded.length;
+        final Fraction[] objective = new Fraction[2 * n];
+        Arrays.fill(objective, 0, n, Fraction.ZERO);
+        Arrays.fill(objective, n, 2 * n, Fraction.MINUS_ONE);
+
+        final List<Constraint> distanceConstraints = new ArrayList<Constraint>(constraints.size() + 2 * n);
+        for (Constraint constraint : constraints) {
+            final Fraction[] coefficients = Arrays.copyOf(constraint.getCoefficients(), 2 * n);
+            Arrays.fill(coefficients, n, 2 * n, Fraction.ZERO);
+            distanceConstraints.add(new Constraint(coefficients, Relationship.LEQ, constraint.getValue()));
+        }
+        for (int i = 0; i < n; i++) {
+            final Fraction[] above = new Fraction[2 * n];
+            final Fraction[] below = new Fraction[2 * n];
+            Arrays.fill(above, Fraction.ZERO);
+            Arrays.fill(below, Fraction.ZERO);
+            above[i] = Fraction.ONE;
+            above[n + i] = Fraction.MINUS_ONE;
+            below[i] = Fraction.MINUS_ONE;
+            below[n + i] = Fraction.MINUS_ONE;
+            distanceConstraints.add(new Constraint(above, Relationship.LEQ, rounded[i]));
+            distanceConstraints.add(new Constraint(below, Relationship.LEQ, rounded[i].negate()));
+        }
+
+        try {
+            final PointFractionPair closest = new SimplexSolver(PUMP_MAX_ITERATIONS).solve(
+                    new ObjectiveFunction(objective),
+                    new ConstraintSet(distanceConstraints),
+                    GoalType.MAXIMIZE,
+                    new NonNegativeValues(true),
+                    // the steps of the distance problem are never shown
+                    new StepRetention(Policy.NONE, 1));
+            return Arrays.copyOf(closest.getPoint(), n);
+        } catch (TooManyIterationsException | NoFeasibleSolutionException | UnboundedSolutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Round the other way the variables the furthest from their rounding, to get
+     * the pump out of a cycle.
+     *
+     * @param rounded The rounded point, edited in place.
+     * @param point   The point that has been rounded.
+     */
+    private static void flip(final Fraction[] rounded, final Fraction[] point) {
+        final List<Integer> variables = new ArrayList<Integer>();
+        for (int i = 0; i < rounded.length; i++) {
+            if (!point[i].equals(rounded[i])) {
+                variables.add(i);
+            }
+        }
+        variables.sort(Comparator.comparing((Integer i) -> point[i].subtract(rounded[i]).abs()).reversed());
+        for (int i = 0; i < Math.min(PUMP_FLIPS, variables.size()); i++) {
+            final int variable = variables.get(i);
+            if (point[variable].compareTo(rounded[variable]) > 0) {
+                rounded[variable] = rounded[variable].add(1);
+            } else if (rounded[variable].isPositive()) {
+                rounded[variable] = rounded[variable].subtract(1);
+            }
+        }
+    }
+
+    /**
+     * Round each value to its nearest integer, up in case of ties.
+     *
+     * @param point The values to round.
+     * @return The rounded values.
+     */
+    private static Fraction[] getNearest(final Fraction[] point) {
+        final Fraction[] nearest = new Fraction[point.length];
+        for (int i = 0; i < point.length; i++) {
+            final Fraction floor = point[i].getWholePart();
+            nearest[i] = point[i].getDecimalPart().compareTo(Fraction.ONE_HALF) >= 0 ? floor.add(1) : floor;
+        }
+        return nearest;
+    }
+
+    /**
+     * Check if a point is non negative and satisfies every constraint, leaving
+     * their slack variables integer.
+     *
+     * @param constraints The {@code LEQ} constraints of the problem.
+     * @param point       The point to check.
+     * @return True if the point is feasible.
+     */
+    private static boolean isFeasible(final List<Constraint> constraints, final Fraction[] point) {
+        for (Fraction value : point) {
+            if (value.isNegative()) {
+                return false;
+            }
+        }
+        for (Constraint constraint : constraints) {
+            Fraction lhs = Fraction.ZERO;
+            for (int i = 0; i < point.length; i++) {
+                lhs = lhs.add(constraint.getCoefficients()[i].multiply(point[i]));
+            }
+            final Fraction slack = constraint.getValue().subtract(lhs);
+            if (slack.isNegative() || !slack.isInteger()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Make a solution from an integer point.
+     *
+     * @param point A feasible integer point.
+     * @return The point with its objective value.
+     */
+    private PointFractionPair toSolution(final Fraction[] point) {
+        return new PointFractionPair(point, objectiveFunction.getValue(point));
+    }
+
+    /**
+     * Keep the given solution if it is better than the best one.
+     *
+     * @param solution A solution, or null.
+     */
+    private void update(final PointFractionPair solution) {
+        if (solution != null && (best == null || solution.getValue().compareTo(best.getValue()) > 0)) {
+            best = solution;
+        }
+    }
+
+    /**
+     * Check if the time budget has been spent.
+     *
+     * @return True if the heuristics must stop.
+     */
+    private boolean isTimeUp() {
+        return !deterministic && System.currentTimeMillis() >= deadline;
+    }
+}
@@ -0,0 +1,88 @@
+package optim.optim.src.simplex;
+
+import optim.optim.src.simplex.data.BranchingRule;
+
+/**
+ * Pseudo costs of the decision variables of a branch and bound tree: for each
+ * variable and each direction, the average change of the relaxed optimum per
+ * unit of change of the variable, observed when branching on it.
+ * <p>
+ * With {@code f} the decimal part of a variable, its down child lowers the
+ * optimum by about {@code f * down}, and its up child by about
+ * {@code (1 - f) * up}.
+ * <p>
+ * Every method is synchronized, the pseudo costs can be shared by several
+ * threads.
+ *
+ * @see BranchingRule#PSEUDO_COST
+ */
+public class PseudoCosts {
+    /** Sum of the observed changes per unit, down then up, for each variable. */
+    private final double[][] sums;
+
+    /** Amount of observations, down then up, for each variable. */
+    private final int[][] counts;
+
+    /**
+     * Create empty pseudo costs.
+     *
+     * @param numDecisionVariables The amount of decision variables.
+     */
+    public PseudoCosts(final int numDecisionVariables) {
+        this.sums = new double[2][numDecisionVariables];
+        this.counts = new int[2][numDecisionVariables];
+    }
+
+    /**
+     * Record the change of the optimum caused by branching on a variable.
+     *
+     * @param variable The indice of the decision variable.
+     * @param up       Whether it is the up child.
+     * @param change   The change of the optimum, divided by the change of the
+     *                 variable. Ignored if not finite.
+     */
+    public synchronized void record(final int variable, final boolean up, final double change) {
+        if (!Double.isFinite(change)) {
+            return;
+        }
+        final int direction = up ? 1 : 0;
+        sums[direction][variable] += Math.max(change, 0);
+        counts[direction][variable]++;
+    }
+
+    /**
+     * Get the amount of observations of a variable in its least observed
+     * direction.
+     *
+     * @param variable The indice of the decision variable.
+     * @return The amount of observations.
+     */
+    public synchronized int getReliability(final int variable) {
+        return Math.min(counts[0][variable], counts[1][variable]);
+    }
+
+    /**
+     * Get the pseudo cost of a variable in a direction. A variable never observed
+     * in this direction gets the average pseudo cost of the other variables, or 1
+     * if none have been observed.
+     *
+     * @param variable The indice of the decision variable.
+     * @param up       Whether it is the up direction.
+     * @return The average change of the optimum per unit.
+     */
+    public synchronized double get(final int variable, final boolean up) {
+        final int direction = up ? 1 : 0;
+        if (counts[direction][variable] > 0) {
+            return sums[direction][variable] / counts[direction][variable];
+        }
+        double sum = 0;
+        int observed = 0;
+        for (int i = 0; i < counts[direction].length; i++) {
+            if (counts[direction][i] > 0) {
+                sum += sums[direction][i] / counts[direction][i];
+                observed++;
+            }
+        }
+        return observed == 0 ? 1 : sum / observed;
+    }
+}
@@ -2,7 +2,9 @@ package optim.optim.src.simplex;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.apache.commons.math3.exception.DimensionMismatchException;
@@ -17,14 +19,21 @@ import org.apache.commons.math3.util.Pair;
 
 import optim.optim.response.SimplexResponse;
 import optim.optim.src.log.Logger;
+import optim.optim.src.simplex.data.BranchingRule;
 import optim.optim.src.simplex.data.Constraint;
 import optim.optim.src.simplex.data.ConstraintSet;
 import optim.optim.src.simplex.data.GoalType;
+import optim.optim.src.simplex.data.HeuristicBudget;
 import optim.optim.src.simplex.data.IntegerMethod;
+import optim.optim.src.simplex.data.NodeSelectionRule;
 import optim.optim.src.simplex.data.NonNegativeValues;
 import optim.optim.src.simplex.data.ObjectiveFunction;
+import optim.optim.src.simplex.data.ParallelSearch;
 import optim.optim.src.simplex.data.PivotSelectionRule;
 import optim.optim.src.simplex.data.SimplexData;
+import optim.optim.src.simplex.data.StepRetention;
+import optim.optim.src.simplex.data.StepRetention.Policy;
+import optim.optim.src.simplex.data.TerminationCriteria;
 
 /**
  * This class enable to solve a linear problem that is the simplex. It keeps
@@ -56,6 +65,35 @@ public class SimplexSolver {
     /** Default method to solve the integer problem. */
     public static final IntegerMethod defaultIntgerMethod = IntegerMethod.NONE;
 
+    /** Default node selection rule for the branch and bound. */
+    public static final NodeSelectionRule defaultNodeSelectionRule = NodeSelectionRule.BEST_BOUND;
+
+    /** Default branching variable selection for the branch and bound. */
+    public static final BranchingRule defaultBranchingRule = BranchingRule.PSEUDO_COST;
+
+    /** Default parallel search: a single thread. */
+    public static final ParallelSearch defaultParallelSearch = new ParallelSearch(1, true);
+
+    /** Default time the primal heuristics can take: 100ms. */
+    public static final HeuristicBudget defaultHeuristicBudget = new HeuristicBudget(100);
+
+    /** Default termination: prove the optimum, without any time limit. */
+    public static final TerminationCriteria defaultTerminationCriteria = new TerminationCriteria(Fraction.ZERO,
+            Fraction.ZERO, 0);
+
+    /** Default step retention: every step is kept. */
+    public static final StepRetention defaultStepRetention = new StepRetention(Policy.FULL, 1);
+
+    /** Maximum amount of Gomory cuts added per integer iteration. */
+    private static final int maxCutsPerRound = 10;
+
+    /**
+     * Amount of Gomory rounds a cut can stay slack before being removed from the
+     * table. Removing them sooner makes the pivots cheaper, but the same cuts are
+     * then found again and again, and the rounds don't converge.
+     */
+    private static final int cutMaxAge = 20;
+
     /** Default maximum amount of iterations. */
     public static final int defaultMaxIterations = Integer.MAX_VALUE;
 
@@ -80,6 +118,42 @@ public class SimplexSolver {
     /** Whether we solve for the integer problem, and if yes, with which method. */
     private IntegerMethod integerMethod = defaultIntgerMethod;
 
+    /** Order in which the branch and bound nodes are explored. */
+    private NodeSelectionRule nodeSelectionRule = defaultNodeSelectionRule;
+
+    /** How the branch and bound tree is explored concurrently. */
+    private ParallelSearch parallelSearch = defaultParallelSearch;
+
+    /** How the branch and bound chooses the variable to branch on. */
+    private BranchingRule branchingRule = defaultBranchingRule;
+
+    /** How long the primal heuristics can search for an integer solution. */
+    private HeuristicBudget heuristicBudget = defaultHeuristicBudget;
+
+    /** When the integer problem can stop before its optimum is proven. */
+    private TerminationCriteria terminationCriteria = defaultTerminationCriteria;
+
+    /** Which resolution steps are kept. */
+    private StepRetention stepRetention = defaultStepRetention;
+
+    /** Time at which the resolution must stop. */
+    private long deadline = Long.MAX_VALUE;
+
+    /**
+     * Whether the resolution has been cancelled. It can be set from any thread,
+     * and is checked at each iteration.
+     */
+    private volatile boolean cancelled = false;
+
+    /** Bound on the optimum of the last problem solved. */
+    private Fraction bound = null;
+
+    /**
+     * Whether the last integer resolution stopped on its time limit, returning
+     * the best solution found.
+     */
+    private boolean stoppedByTimeLimit = false;
+
     /** True if we are currently trying to solve the integer problem. */
     private boolean solvingInteger = false;
 
@@ -156,6 +230,76 @@ public class SimplexSolver {
         return maxIterations;
     }
 
+    /**
+     * Get the bound on the optimum of the last problem solved. It is equal to the
+     * optimum returned, unless the integer problem stopped early, because of the
+     * {@link TerminationCriteria}, or because too many iterations have been made
+     * after finding an integer solution.
+     *
+     * @return The bound, or null if the last resolution failed.
+     */
+    public Fraction getBound() {
+        return bound;
+    }
+
+    /**
+     * Get the termination criteria of the current resolution.
+     *
+     * @return The termination criteria.
+     */
+    protected TerminationCriteria getTerminationCriteria() {
+        return terminationCriteria;
+    }
+
+    /**
+     * Check if the time limit of the current resolution has been reached.
+     *
+     * @return True if the resolution must stop.
+     */
+    protected boolean isTimeUp() {
+        return System.currentTimeMillis() >= deadline;
+    }
+
+    /**
+     * Getter for {@link #stoppedByTimeLimit}. An integer problem stopped by the
+     * time limit returns its best solution with a gap that more time may close,
+     * so it depends on the speed of the resolution.
+     *
+     * @return True if the last resolution stopped on its time limit.
+     */
+    public boolean isStoppedByTimeLimit() {
+        return stoppedByTimeLimit;
+    }
+
+    /**
+     * Cancel the resolution. It stops at the next iteration with a
+     * {@link SolveCancelledException}, and so will the next resolutions of this
+     * solver. Can be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check if the resolution has been cancelled.
+     *
+     * @return True if {@link #cancel()} has been called.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Stop the resolution if it has been cancelled.
+     *
+     * @throws SolveCancelledException if {@link #cancel()} has been called.
+     */
+    private void checkCancelled() throws SolveCancelledException {
+        if (cancelled) {
+            throw new SolveCancelledException();
+        }
+    }
+
     /**
      * Returns the column with the most positive coefficient in the objective
      * function row, excluding negative coefficient.
@@ -447,8 +591,10 @@ public class SimplexSolver {
      * pivoting.
      *
      * @param table The simplex table before the iteration.
+     * @throws SolveCancelledException if the resolution has been cancelled.
      */
     protected void doIteration(final SimplexTable table) {
+        checkCancelled();
         iterations.increment();
 
         Integer pivotCol = null;
@@ -493,6 +639,7 @@ public class SimplexSolver {
             return;
         }
 
+        checkCancelled();
         iterations.increment();
 
         final int LambdaCol = table.getLabels().indexOf(SimplexTable.LAMBDA);
@@ -528,72 +675,374 @@ public class SimplexSolver {
     }
 
     /**
-     * Solve the integer problem. It will run until all value on the RHS column are
-     * integers.
+     * Restore the primal feasibility of an optimal table with the dual simplex
+     * method, for example after adding a constraint violated by the current point.
+     * <p>
+     * While a basic variable is negative, the row with the most negative RHS
+     * leaves the base, and the entering variable is the one with the minimum ratio
+     * between the objective row and the (negative) leaving row coefficient, so the
+     * table stays optimal.
+     *
+     * @param table An optimal table, in phase 2.
+     * @throws NoFeasibleSolutionException if a negative row has no negative
+     *                                     coefficient, meaning the constraints
+     *                                     can't be satisfied.
+     * @throws TooManyIterationsException  if too many iterations have been made.
+     */
+    protected void solveDual(final SimplexTable table)
+            throws NoFeasibleSolutionException, TooManyIterationsException {
+        solveDual(table, resolutionSteps);
+    }
+
+    /**
+     * Reoptimize the given table with the dual simplex, recording the steps in the
+     * given response instead of the resolution steps. Several tables can be
+     * reoptimized at once this way, as long as each one has its own response.
+     *
+     * @param table An optimal table, in phase 2.
+     * @param steps The response where the steps are added.
+     * @throws NoFeasibleSolutionException if a negative row has no negative
+     *                                     coefficient, meaning the constraints
+     *                                     can't be satisfied.
+     * @throws TooManyIterationsException  if too many iterations have been made.
+     * @see #solveDual(SimplexTable)
+     */
+    protected void solveDual(final SimplexTable table, final SimplexResponse steps)
+            throws NoFeasibleSolutionException, TooManyIterationsException {
+        while (true) {
+            final Integer pivotRow = getDualPivotRow(table);
+            if (pivotRow == null) {
+                return;
+            }
+
+            incrementIterations();
+
+            final int pivotCol = getDualPivotColumn(table, pivotRow);
+            table.performRowOperations(pivotCol, pivotRow);
+            // add a step
+            steps.addStep(pivotCol, pivotRow, table);
+        }
+    }
+
+    /**
+     * Make a few dual simplex iterations on the given table, to estimate the
+     * optimum of a new node without solving it. The table stays optimal (dual
+     * feasible) after each iteration, so its optimum is already an upper bound of
+     * the one of the node. The iterations are not counted, and no steps are
+     * recorded.
+     *
+     * @param table         An optimal table, in phase 2, edited in place.
+     * @param maxIterations The maximum amount of iterations to make.
+     * @return True if the table is feasible, and its optimum is the one of the
+     *         node.
+     * @throws NoFeasibleSolutionException if the node has no feasible point.
+     * @see #solveDual(SimplexTable)
+     */
+    protected boolean lookAheadDual(final SimplexTable table, final int maxIterations)
+            throws NoFeasibleSolutionException {
+        for (int i = 0; i < maxIterations; i++) {
+            final Integer pivotRow = getDualPivotRow(table);
+            if (pivotRow == null) {
+                return true;
+            }
+            table.performRowOperations(getDualPivotColumn(table, pivotRow), pivotRow);
+        }
+        return getDualPivotRow(table) == null;
+    }
+
+    /**
+     * Get the leaving row of a dual simplex iteration: the row with the most
+     * negative RHS.
+     *
+     * @param table An optimal table, in phase 2.
+     * @return The leaving row, or null if the table is feasible.
+     */
+    private Integer getDualPivotRow(final SimplexTable table) {
+        Integer pivotRow = null;
+        Fraction minValue = Fraction.ZERO;
+        for (int i = table.getRowOffset(); i < table.getHeight(); i++) {
+            final Fraction entry = table.getEntry(i, 0);
+            if (entry.compareTo(minValue) < 0) {
+                minValue = entry;
+                pivotRow = i;
+            }
+        }
+        return pivotRow;
+    }
+
+    /**
+     * Get the entering column of a dual simplex iteration: the minimum ratio
+     * between the objective row and the negative coefficients of the leaving row,
+     * the first one in case of ties.
+     *
+     * @param table    An optimal table, in phase 2.
+     * @param pivotRow The leaving row.
+     * @return The entering column.
+     * @throws NoFeasibleSolutionException if the leaving row has no negative
+     *                                     coefficient.
+     */
+    private int getDualPivotColumn(final SimplexTable table, final int pivotRow)
+            throws NoFeasibleSolutionException {
+        Integer pivotCol = null;
+        Fraction minRatio = null;
+        for (int i = table.getColOffset(); i < table.getWidth(); i++) {
+            final Fraction entry = table.getEntry(pivotRow, i);
+            if (!entry.isNegative()) {
+                continue;
+            }
+            final Fraction ratio = table.getEntry(0, i).divide(entry);
+            if (minRatio == null || ratio.compareTo(minRatio) < 0) {
+                minRatio = ratio;
+                pivotCol = i;
+            }
+        }
+        if (pivotCol == null) {
+            throw new NoFeasibleSolutionException();
+        }
+        return pivotCol;
+    }
+
+    /**
+     * Count an iteration. Unlike the other iterations, the dual simplex ones can
+     * be made by several threads at once.
+     *
+     * @throws TooManyIterationsException if too many iterations have been made.
+     * @throws SolveCancelledException    if the resolution has been cancelled.
+     */
+    private synchronized void incrementIterations() throws TooManyIterationsException {
+        checkCancelled();
+        iterations.increment();
+    }
+
+    /**
+     * Solve the integer problem. The {@link PrimalHeuristics} first look for an
+     * integer solution from the relaxed optimum. With the {@code GOMORY} method, it
+     * will then run until all value on the RHS column are integers, or until the
+     * relaxed optimum can't beat the best integer solution found by more than the
+     * accepted gap. If every cut found has coefficients too big to be used, the
+     * cut table is handed to a {@link BranchAndBound} tree. With the
+     * {@code BRANCH_AND_BOUND} and {@code BRANCH_AND_CUT} methods, the table is
+     * left untouched and a {@link BranchAndBound} tree is explored from it, with a
+     * {@link CutPool} for the later, pruning against the solution of the
+     * heuristics.
+     *
+     * When a limit is reached after an integer solution has been found, the best
+     * one is returned, and {@link #bound} tells how far from the optimum it may be.
      *
      * @param table The final table of the relaxed problem.
+     * @return The optimal integer solution, or the best one found.
      * @throws NoFeasibleSolutionException if we can't perform an iteration.
-     * @throws TooManyIterationsException  if too many iterations have been made.
+     * @throws TooManyIterationsException  if too many iterations have been made
+     *                                     before finding an integer solution.
      *                                     Pay special attention to
      *                                     {@link #maxIterations}, since solving the
      *                                     integer problem is NP hard, and
      *                                     exponentially costly.
+     * @throws TimeLimitExceededException  if the time ran out before finding an
+     *                                     integer solution.
      * @see IntegerMethod
+     * @see TerminationCriteria
      */
-    protected void solveInteger(final SimplexTable table)
+    protected PointFractionPair solveInteger(final SimplexTable table)
             throws NoFeasibleSolutionException, TooManyIterationsException {
         solvingInteger = true;
 
+        // an integer point must leave the slack variables of the original
+        // constraints integer, which some constraints never allow
+        for (Constraint constraint : table.getConstraints()) {
+            if (!allowsIntegerSlack(constraint)) {
+                throw new NoFeasibleSolutionException();
+            }
+        }
+
+        // the time budget is ignored by a deterministic search, so the tree explored
+        // doesn't depend on the machine
+        final PrimalHeuristics heuristics = new PrimalHeuristics(this, objectiveFunction, heuristicBudget,
+                parallelSearch.getDeterministic());
+        PointFractionPair incumbent = getIntegerSolution(table) == null ? heuristics.find(table) : null;
+
+        if (integerMethod == IntegerMethod.BRANCH_AND_BOUND || integerMethod == IntegerMethod.BRANCH_AND_CUT) {
+            return branch(table, incumbent, integerMethod == IntegerMethod.BRANCH_AND_CUT ? new CutPool() : null);
+        }
+
+        // the cuts added to the table, and how long they have been slack
+        final CutPool cutPool = new CutPool(cutMaxAge, CutPool.defaultCapacity);
+        final Map<Constraint, Integer> cutAges = new HashMap<Constraint, Integer>();
+        final KnapsackSeparator knapsackSeparator = new KnapsackSeparator(table.getConstraints(),
+                table.getNumDecisionVariables());
+
         // check if integer, if not, continue
         while (getIntegerSolution(table) == null) {
+            // the cuts can only lower the relaxed optimum, so the rounds can stop once it
+            // can't beat the incumbent by more than the accepted gap
+            final Fraction roundBound = getIntegerBound(table);
+            if (incumbent != null
+                    && terminationCriteria.isAccepted(roundBound.subtract(incumbent.getValue()), incumbent.getValue())) {
+                Logger.info("Gap closed by the incumbent: " + incumbent.getValue());
+                bound = roundBound;
+                return incumbent;
+            }
+
             Logger.info("New integer step:");
             Logger.debugTable(table);
 
-            iterations.increment();
-
-            // add constraint to table depending on the method
-            if (integerMethod == IntegerMethod.GOMORY) {
-                int maxRow = 0;
-                Fraction max = Fraction.ZERO;
-                // we loop through each basic variables and get the maximal decimal parts of the
-                // variable RHS
-                for (int i = table.getRowOffset(); i < table.getHeight(); i++) {
-                    final Fraction entry = table.getEntry(i, 0).getDecimalPart();
-                    if (entry.compareTo(max) == 1) {
-                        max = entry;
-                        maxRow = i;
-                    }
+            try {
+                if (isTimeUp()) {
+                    throw new TimeLimitExceededException(terminationCriteria.getTimeLimit());
                 }
-                // if no not integer basic variable found, check if we can use the objective
-                // line, if not, somethings wrong
-                if (maxRow == 0) {
-                    if (table.getEntry(0, 0).isInteger()) {
-                        throw new NoFeasibleSolutionException();
-                    } else {
-                        throw new UnsupportedOperationException("using objective as constraint not yet implemented");
-                    }
+                checkCancelled();
+                iterations.increment();
+                if (!addGomoryCuts(table, cutPool, cutAges, knapsackSeparator)) {
+                    // every cut is too big to be used, the rest is left to branching
+                    Logger.info("Gomory: no usable cut, branching from the cut table");
+                    return branch(table, incumbent, null);
                 }
-
-                table.addIntegerConstraint(maxRow);
-
-                // add a step
-                resolutionSteps.addStep(null, maxRow, table);
-
-                if (!table.isOptimal()) {
-                    Logger.warn("not optimal after cut");
+            } catch (TooManyIterationsException | TimeLimitExceededException e) {
+                if (incumbent == null) {
+                    throw e;
                 }
-            } else {
-                // TODO implement other integer methods
-                throw new UnsupportedOperationException("IntegerMethod = " + integerMethod.name() + " not implemented");
+                Logger.warn("Gomory: " + e.getMessage() + ", best solution " + incumbent.getValue()
+                        + " with bound " + roundBound);
+                stoppedByTimeLimit = e instanceof TimeLimitExceededException;
+                bound = roundBound;
+                return incumbent;
+            }
+
+            // the rounding of the new point may be a better incumbent
+            final PointFractionPair rounded = heuristics.round(table);
+            if (rounded != null && (incumbent == null
+                    || rounded.getValue().compareTo(incumbent.getValue()) > 0)) {
+                incumbent = rounded;
             }
         }
         Logger.info("Last integer step:");
         Logger.debugTable(table);
+        final PointFractionPair solution = getSolution(table);
+        bound = solution.getValue();
+        return solution;
+    }
+
+    /**
+     * Run a round of the cutting plane method: add cuts to the table, and
+     * reoptimize it. The violated cover and clique cuts of the knapsack rows are
+     * added first, then the Gomory cuts, up to {@link #maxCutsPerRound}.
+     *
+     * @param table             An optimal table, with a fractional point.
+     * @param cutPool           The cuts added to the table.
+     * @param cutAges           The ages of the cuts of the table, updated in
+     *                          place.
+     * @param knapsackSeparator The separator of the knapsack rows of the problem.
+     * @return False if no cut has been added, as every cut found has
+     *         coefficients too big to be used.
+     * @throws NoFeasibleSolutionException if the cuts emptied the table.
+     * @throws TooManyIterationsException  if too many iterations have been made.
+     */
+    private boolean addGomoryCuts(final SimplexTable table, final CutPool cutPool,
+            final Map<Constraint, Integer> cutAges, final KnapsackSeparator knapsackSeparator)
+            throws NoFeasibleSolutionException, TooManyIterationsException {
+        // the knapsack cuts are cheap to find, and much stronger than the Gomory
+        // cuts on binary rows
+        final List<Constraint> knapsackCuts = knapsackSeparator.getCuts(getSolution(table).getPoint(),
+                maxCutsPerRound);
+        // cut the rows with the most efficient cuts, not only the one with the
+        // maximal decimal part, so less rounds are needed
+        final List<Pair<Integer, Constraint>> cuts = knapsackCuts.size() < maxCutsPerRound
+                ? new CutGenerator(table).getCuts(maxCutsPerRound - knapsackCuts.size())
+                : List.of();
+        // when no row can be cut, the objective bound is used as a constraint, so
+        // there is no cut only if every cut found is too big to be used
+        if (knapsackCuts.isEmpty() && cuts.isEmpty()) {
+            return false;
+        }
+
+        for (Constraint cut : knapsackCuts) {
+            cutPool.add(cut);
+            table.appendConstraint(cut, SimplexTable.INTEGER_CONSTRAINT);
+            resolutionSteps.addStep(null, table.getHeight() - 1, table);
+        }
+        for (Pair<Integer, Constraint> cut : cuts) {
+            cutPool.add(cut.getSecond());
+            table.appendConstraint(cut.getSecond(), SimplexTable.INTEGER_CONSTRAINT);
+            // add a step
+            resolutionSteps.addStep(null, cut.getFirst(), table);
+        }
+
+        // the cuts are violated, get back to a feasible table
+        solveDual(table);
+
+        // drop the cuts the point hasn't been lying on for a few rounds, so the
+        // table doesn't grow with every round
+        if (cutPool.removeAgedCuts(table, cutAges) > 0) {
+            resolutionSteps.addStep(null, null, table);
+        }
+        return true;
+    }
+
+    /**
+     * Explore a {@link BranchAndBound} tree from an optimal table, pruning against
+     * the given incumbent, and set {@link #bound} from it.
+     *
+     * @param table     An optimal table, left untouched.
+     * @param incumbent The best integer solution known, or null.
+     * @param cutPool   The pool of a branch and cut, or null to only branch.
+     * @return The optimal integer solution, or the best one found.
+     * @throws NoFeasibleSolutionException if there is no integer solution.
+     * @throws TooManyIterationsException  if too many iterations have been made
+     *                                     before finding an integer solution.
+     */
+    private PointFractionPair branch(final SimplexTable table, final PointFractionPair incumbent,
+            final CutPool cutPool) throws NoFeasibleSolutionException, TooManyIterationsException {
+        final BranchAndBound branchAndBound = new BranchAndBound(this, objectiveFunction, nodeSelectionRule,
+                branchingRule, parallelSearch, cutPool);
+        final PointFractionPair solution = branchAndBound.solve(table, incumbent);
+        bound = branchAndBound.getBound();
+        stoppedByTimeLimit = branchAndBound.isStoppedByTimeLimit();
+        return solution;
+    }
+
+    /**
+     * Get the bound a table gives on the integer optimum: its relaxed optimum,
+     * rounded down when the objective function is integer.
+     *
+     * @param table An optimal table.
+     * @return The bound on the integer optimum.
+     */
+    private Fraction getIntegerBound(final SimplexTable table) {
+        final Fraction optimum = table.getEntry(0, 0).negate();
+        return objectiveFunction.isInteger() ? optimum.getWholePart() : optimum;
+    }
+
+    /**
+     * Check if a constraint can have an integer slack variable on an integer
+     * point. With {@code g} the greatest common divisor of its coefficients, the
+     * left hand side only takes the multiples of {@code g = p/q}, so the slack
+     * {@code b - a.x} can only be integer if {@code b} is a multiple of
+     * {@code 1/q}.
+     *
+     * @param constraint A {@code LEQ} constraint on the decision variables.
+     * @return False if no integer point leaves its slack variable integer.
+     */
+    static boolean allowsIntegerSlack(final Constraint constraint) {
+        BigInteger lcm = BigInteger.ONE;
+        for (Fraction coef : constraint.getCoefficients()) {
+            lcm = lcm.divide(lcm.gcd(coef.getDenominator())).multiply(coef.getDenominator());
+        }
+        BigInteger gcd = BigInteger.ZERO;
+        for (Fraction coef : constraint.getCoefficients()) {
+            gcd = gcd.gcd(coef.getNumerator().multiply(lcm.divide(coef.getDenominator())));
+        }
+        final BigInteger q = lcm.divide(gcd.gcd(lcm));
+        return constraint.getValue().multiply(new Fraction(q)).isInteger();
     }
 
     /**
      * Get the integer solution of the given table. If the coefficients found are
      * not integers, return null.
+     * <p>
+     * The slack variables of the original constraints must be integers too, an
+     * integer point leaving a fractional slack is not feasible. Only the slack
+     * variables of the appended cuts and branches may be fractional, as they are
+     * not part of the problem.
      *
      * @param table The table to get the solution from.
      * @return A pair of the optimum and the solution point. Null if solution is not
@@ -602,8 +1051,11 @@ public class SimplexSolver {
     protected PointFractionPair getIntegerSolution(final SimplexTable table) {
         // check if the col contains only integer, otherwise return null
         for (int i = 0; i < table.getHeight(); i++) {
-            final Fraction entry = table.getEntry(i, 0);
-            if (!entry.isInteger()) {
+            final Integer basicCol = table.getBasicVariableCol(i);
+            if (basicCol != null && basicCol >= table.getFirstAppendedCol()) {
+                continue;
+            }
+            if (!table.getEntry(i, 0).isInteger()) {
                 return null;
             }
         }
@@ -650,11 +1102,35 @@ public class SimplexSolver {
      *              positive values only. Default: {@code true}</li>
      *              <li>(Optionnal) {@link GoalType}: If we want to maximize or
      *              minimize the objective function. Default: {@code MAXIMIZE}</li>
+     *              <li>(Optionnal) {@link IntegerMethod}: The method to solve the
+     *              integer problem. Default: {@code NONE}</li>
+     *              <li>(Optionnal) {@link NodeSelectionRule}: The order in which
+     *              the branch and bound nodes are explored. Default:
+     *              {@code BEST_BOUND}</li>
+     *              <li>(Optionnal) {@link BranchingRule}: How the branch and
+     *              bound chooses the variable to branch on. Default:
+     *              {@code PSEUDO_COST}</li>
+     *              <li>(Optionnal) {@link ParallelSearch}: How the branch and
+     *              bound nodes are explored concurrently. Default: a single
+     *              thread</li>
+     *              <li>(Optionnal) {@link HeuristicBudget}: How long the primal
+     *              heuristics can search for an integer solution. Default:
+     *              100ms</li>
+     *              <li>(Optionnal) {@link TerminationCriteria}: When the integer
+     *              problem can stop before its optimum is proven. Default: prove
+     *              the optimum, without time limit</li>
+     *              <li>(Optionnal) {@link StepRetention}: Which resolution steps
+     *              are kept. Default: every step</li>
      *              </ul>
      * @return A pair of values, the optimal point coordinates and the optimum
-     *         value.
+     *         value. If the integer problem stopped early, the best integer
+     *         solution found, see {@link #getBound()}.
      * @throws TooManyIterationsException  if the maximum number of iterations is
-     *                                     exceeded.
+     *                                     exceeded before finding a solution.
+     * @throws TimeLimitExceededException  if the time limit is reached before
+     *                                     finding an integer solution.
+     * @throws SolveCancelledException     if the resolution has been cancelled
+     *                                     with {@link #cancel()}.
      * @throws UnboundedSolutionException  if the solution escapes to infinity
      *                                     (constraints too loose).
      * @throws NoFeasibleSolutionException if no solution fulfills the constraints
@@ -673,9 +1149,40 @@ public class SimplexSolver {
         // check everything is set to solve
         checkDatas();
 
+        // the time limit counts from the start of the resolution
+        if (terminationCriteria.getTimeLimit() > 0) {
+            deadline = System.currentTimeMillis() + terminationCriteria.getTimeLimit();
+        }
+
         // create a new response if none have been made
         resolutionSteps = setResolutionSteps(resolutionSteps);
+        resolutionSteps.setStepRetention(stepRetention);
+
+        final long start = System.currentTimeMillis();
+        try {
+            return solveProblem();
+        } finally {
+            // the last step is added even if the resolution failed
+            resolutionSteps.finish(System.currentTimeMillis() - start);
+        }
+    }
 
+    /**
+     * Solve the problem once the datas have been parsed and checked: the phase 1
+     * if needed, the phase 2, and then the integer problem if needed.
+     *
+     * @return A pair of values, the optimal point coordinates and the optimum
+     *         value.
+     * @throws TooManyIterationsException  if the maximum number of iterations is
+     *                                     exceeded before finding a solution.
+     * @throws UnboundedSolutionException  if the solution escapes to infinity.
+     * @throws NoFeasibleSolutionException if no solution fulfills the constraints.
+     * @see #solve(SimplexData...)
+     */
+    private PointFractionPair solveProblem()
+            throws TooManyIterationsException,
+            UnboundedSolutionException,
+            NoFeasibleSolutionException {
         // create the simplex table
         final SimplexTable table = new SimplexTable(objectiveFunction, linearConstraints, goal, nonNegative);
 
@@ -702,12 +1209,14 @@ public class SimplexSolver {
 
         if (integerMethod != IntegerMethod.NONE) {
             Logger.trace("Solving integer: " + integerMethod.name());
-            solveInteger(table);
+            return solveInteger(table);
         } else {
             Logger.info("Not solving integer");
         }
 
-        return getSolution(table);
+        final PointFractionPair solution = getSolution(table);
+        bound = solution.getValue();
+        return solution;
     }
 
     /**
@@ -726,6 +1235,25 @@ public class SimplexSolver {
      *              positive values only. Default: {@code true}</li>
      *              <li>(Optionnal) {@link GoalType}: If we want to maximize or
      *              minimize the objective function. Default: {@code MAXIMIZE}</li>
+     *              <li>(Optionnal) {@link IntegerMethod}: The method to solve the
+     *              integer problem. Default: {@code NONE}</li>
+     *              <li>(Optionnal) {@link NodeSelectionRule}: The order in which
+     *              the branch and bound nodes are explored. Default:
+     *              {@code BEST_BOUND}</li>
+     *              <li>(Optionnal) {@link BranchingRule}: How the branch and
+     *              bound chooses the variable to branch on. Default:
+     *              {@code PSEUDO_COST}</li>
+     *              <li>(Optionnal) {@link ParallelSearch}: How the branch and
+     *              bound nodes are explored concurrently. Default: a single
+     *              thread</li>
+     *              <li>(Optionnal) {@link HeuristicBudget}: How long the primal
+     *              heuristics can search for an integer solution. Default:
+     *              100ms</li>
+     *              <li>(Optionnal) {@link TerminationCriteria}: When the integer
+     *              problem can stop before its optimum is proven. Default: prove
+     *              the optimum, without time limit</li>
+     *              <li>(Optionnal) {@link StepRetention}: Which resolution steps
+     *              are kept. Default: every step</li>
      *              </ul>
      */
     private void parseDatas(SimplexData[] datas) {
@@ -761,6 +1289,30 @@ public class SimplexSolver {
                 this.goal = (GoalType) data;
                 continue;
             }
+            if (data instanceof NodeSelectionRule) {
+                this.nodeSelectionRule = (NodeSelectionRule) data;
+                continue;
+            }
+            if (data instanceof BranchingRule) {
+                this.branchingRule = (BranchingRule) data;
+                continue;
+            }
+            if (data instanceof ParallelSearch) {
+                this.parallelSearch = (ParallelSearch) data;
+                continue;
+            }
+            if (data instanceof HeuristicBudget) {
+                this.heuristicBudget = (HeuristicBudget) data;
+                continue;
+            }
+            if (data instanceof TerminationCriteria) {
+                this.terminationCriteria = (TerminationCriteria) data;
+                continue;
+            }
+            if (data instanceof StepRetention) {
+                this.stepRetention = (StepRetention) data;
+                continue;
+            }
         }
     }
 
@@ -823,5 +1375,14 @@ public class SimplexSolver {
         nonNegative = defaultNonNegative;
         goal = defaultGoal;
         integerMethod = defaultIntgerMethod;
+        nodeSelectionRule = defaultNodeSelectionRule;
+        parallelSearch = defaultParallelSearch;
+        branchingRule = defaultBranchingRule;
+        heuristicBudget = defaultHeuristicBudget;
+        terminationCriteria = defaultTerminationCriteria;
+        stepRetention = defaultStepRetention;
+        deadline = Long.MAX_VALUE;
+        bound = null;
+        stoppedByTimeLimit = false;
     }
 }
@@ -64,6 +64,13 @@ public class SimplexTable {
     /** The variables each column represents */
     private List<String> columnLabels;
 
+    /**
+     * Constraints on the decision variables whose slack variables are the columns
+     * added after the original slack variables, in the same order. Unmodifiable,
+     * like {@link #columnLabels}.
+     */
+    private List<Constraint> appendedConstraints = List.of();
+
     /** Value of the lambda label. */
     public final static String LAMBDA = "L";
 
@@ -85,6 +92,12 @@ public class SimplexTable {
      */
     public final static String INTEGER_CONSTRAINT = "i";
 
+    /**
+     * Value of the branching constraint label. They will be followed by their
+     * indice.
+     */
+    public final static String BRANCH_CONSTRAINT = "b";
+
     /** Simplex table. */
     private transient MatrixFractions table;
 
@@ -140,6 +153,33 @@ public class SimplexTable {
         this.table = createTable(goalType == GoalType.MAXIMIZE);
     }
 
+    /**
+     * Create a copy of the given table. The copy shares the immutable problem
+     * definition (objective function and constraints), but has its own inner
+     * table, basic variables and labels, so it can be edited without changing the
+     * original one. This is used to warm start a new resolution from an already
+     * optimal table, like in a branch and bound tree.
+     *
+     * @param other The table to copy.
+     * @throws NullPointerException If the given table is null.
+     */
+    public SimplexTable(final SimplexTable other) throws NullPointerException {
+        Objects.requireNonNull(other, "other can't be null");
+        this.f = other.f;
+        this.constraints = other.constraints;
+        this.restrictToNonNegative = other.restrictToNonNegative;
+        this.numDecisionVariables = other.numDecisionVariables;
+        this.numSlackVariables = other.numSlackVariables;
+        this.isPhase1 = other.isPhase1;
+        // labels and appended constraints are unmodifiable, we can share them
+        this.columnLabels = other.columnLabels;
+        this.appendedConstraints = other.appendedConstraints;
+        this.basicMap = new HashMap<Integer, Integer>(other.basicMap);
+        this.invertedBasicMap = new HashMap<Integer, Integer>(other.invertedBasicMap);
+        // fractions are immutable, copying the rows is enough
+        this.table = new MatrixFractions(other.table.getDataFraction(), false);
+    }
+
     /**
      * Get new versions of the constraints which have LEQ relationship.
      *
@@ -383,6 +423,15 @@ public class SimplexTable {
             constraint = normalized[0];
         }
 
+        // the constraint of the new slack variable, on the decision variables
+        final Constraint appended = isPreformated
+                ? toDecisionVariables(Arrays.copyOf(constraint.getCoefficients(), getWidth() - 1),
+                        constraint.getValue())
+                : constraint;
+        ArrayList<Constraint> newAppendedConstraints = new ArrayList<>(appendedConstraints);
+        newAppendedConstraints.add(appended);
+        appendedConstraints = Collections.unmodifiableList(newAppendedConstraints);
+
         // a new line and a new column
         final int newWidth = getWidth() + 1;
         final int newHeight = getHeight() + 1;
@@ -540,7 +589,8 @@ public class SimplexTable {
         final int width = getWidth() - 1;
 
         // we write the new objective function with the non basic variables
-        Fraction constant = f.getConstant();
+        // the RHS holds the negated objective value, so the constant is negated too
+        Fraction constant = f.getConstant().negate();
         Fraction[] coeff = new Fraction[width - 1];
         Arrays.fill(coeff, Fraction.ZERO);
 
@@ -580,6 +630,9 @@ public class SimplexTable {
                             coeff[i] = coeff[i].subtract(getEntry(row, I).multiply(fCoef));
                         }
                     }
+                } else {
+                    // non basic, the coefficient is kept as is
+                    coeff[coefIndex] = coeff[coefIndex].add(fCoef);
                 }
             }
         } else {
@@ -629,73 +682,279 @@ public class SimplexTable {
     }
 
     /**
-     * Add a special constraint in the table to solve the integer problem. It will
-     * only constraint the a basic constrinat depending of the non basic variables.
-     * This is only for the Gomory method.
+     * Add a special constraint in the table to solve the integer problem: the
+     * best cut of the given row, made by a {@link CutGenerator}. This is only for
+     * the Gomory method.
+     * <p>
+     * The cut is appended with
+     * {@link #appendConstraint(Constraint, String)}, so it is violated by the
+     * current point, and the table must be reoptimized with the dual simplex.
      *
-     * @param row The basic slack variable row to constraint.
+     * @param row The basic variable row to constraint, or 0 to use the objective
+     *            bound as a constraint.
+     * @throws IllegalArgumentException    if the given row is not basic, or can't
+     *                                     be cut.
+     * @throws NoFeasibleSolutionException if the row proves there is no integer
+     *                                     point.
      */
-    public void addIntegerConstraint(int row) {
+    public void addIntegerConstraint(int row) throws IllegalArgumentException, NoFeasibleSolutionException {
         MatrixUtils.checkRowIndex(table, row);
-        // check if the given row is basic, or teh objective function line
-        if (!isBasicRow(row) || (row == 0 && !getEntry(0, 0).isInteger())) {
+        if (row != 0 && !isBasicRow(row)) {
             throw new IllegalArgumentException("Given row is not basic: " + row);
         }
 
-        Logger.debug("DEBUG",
-                "New integer constraint from row " + row + " (" + columnLabels.get(getBasicVariableCol(row)) + ")");
+        Logger.debug("DEBUG", "New integer constraint from row " + row + " ("
+                + (row == 0 ? "objective" : columnLabels.get(getBasicVariableCol(row))) + ")");
 
-        // create the new variable label with the correct indice
-        final String integerConstraintLabel = INTEGER_CONSTRAINT
-                // current table width
-                + (getWidth() -
-                // minus the width expected without any integer constraint
-                        (getNumDecisionVariables() +
-                                getNumSlackVariables() +
-                                getColOffset())
-                        // +1 to start the indices at 1
-                        + 1);
+        final Constraint cut = new CutGenerator(this).getCut(row);
+        if (cut == null) {
+            throw new IllegalArgumentException("Given row can't be cut: " + row);
+        }
+        appendConstraint(cut, INTEGER_CONSTRAINT);
+    }
 
-        // a new line and a new column
+    /**
+     * Append a constraint on the decision variables to the table, without
+     * performing any pivot. The constraint is rewritten in terms of the non basic
+     * variables, and its new slack variable is added as basic on the new last row
+     * and last column.
+     * <p>
+     * Contrary to {@link #addConstraint(Constraint, boolean)}, the table is not
+     * reoptimized: if the current point violates the constraint, the new row will
+     * have a negative RHS, and the caller is expected to restore the primal
+     * feasibility, with the dual simplex for example.
+     *
+     * @param constraint The new constraint, on the decision variables only. A
+     *                   {@code EQ} constraint adds two rows.
+     * @param label      The label prefix of the new slack variable. It will be
+     *                   followed by its indice.
+     * @throws NullPointerException       if the given constraint is null.
+     * @throws IllegalCallerException     if the table is in phase 1.
+     * @throws DimensionMismatchException if the given constraint has not the same
+     *                                    amount of coefficients than {@link #f}.
+     */
+    public void appendConstraint(final Constraint constraint, final String label)
+            throws NullPointerException,
+            IllegalCallerException,
+            DimensionMismatchException {
+        Objects.requireNonNull(constraint);
+        Objects.requireNonNull(label);
+        if (isPhase1()) {
+            throw new IllegalCallerException("the table is in phase 1");
+        }
+        if (constraint.getCoefficients().length != getNumDecisionVariables()) {
+            throw new DimensionMismatchException(LocalizedFormats.DIMENSIONS_MISMATCH,
+                    constraint.getCoefficients().length, getNumDecisionVariables());
+        }
+
+        for (Constraint normalized : constraint.normalize()) {
+            final Fraction[] coefficients = normalized.getCoefficients();
+            // the new row, without the new slack column
+            Fraction[] line = new Fraction[getWidth()];
+            Arrays.fill(line, Fraction.ZERO);
+            line[0] = normalized.getValue();
+
+            for (int i = 0; i < getNumDecisionVariables(); i++) {
+                final Fraction coef = coefficients[i];
+                if (coef.isZero()) {
+                    continue;
+                }
+                final int col = getColOffset() + i;
+                final Integer basicRow = getBasicVariableRow(col);
+                if (basicRow == null) {
+                    // non basic, the coefficient stays as is
+                    line[col] = line[col].add(coef);
+                } else {
+                    // basic, rewrite it with the non basic variables of its row
+                    final Fraction[] row = getRow(basicRow);
+                    line[0] = line[0].subtract(coef.multiply(row[0]));
+                    for (int j = 1; j < getWidth(); j++) {
+                        if (j != col && !row[j].isZero()) {
+                            line[j] = line[j].subtract(coef.multiply(row[j]));
+                        }
+                    }
+                }
+            }
+
+            appendRow(line, label, normalized);
+        }
+    }
+
+    /**
+     * Append a row already expressed in terms of the non basic variables, and a
+     * new basic slack column for it.
+     *
+     * @param line       The new row, of length {@link #getWidth()}. The first
+     *                   value is the RHS.
+     * @param label      The label prefix of the new slack variable.
+     * @param constraint The constraint on the decision variables the new row
+     *                   stands for.
+     */
+    protected void appendRow(final Fraction[] line, final String label, final Constraint constraint) {
         final int newWidth = getWidth() + 1;
+        final int newHeight = getHeight() + 1;
 
-        // edit the column labels
+        // take the indice after the highest one with the same prefix, since rows can
+        // be removed
+        int indice = 1;
+        for (String existing : columnLabels) {
+            if (existing.startsWith(label)) {
+                try {
+                    indice = Math.max(indice, Integer.parseInt(existing.substring(label.length())) + 1);
+                } catch (NumberFormatException e) {
+                    // another prefix starting the same way
+                }
+            }
+        }
         ArrayList<String> newColumnLabels = new ArrayList<>(columnLabels);
-        newColumnLabels.add(integerConstraintLabel);
+        newColumnLabels.add(label + indice);
         columnLabels = Collections.unmodifiableList(newColumnLabels);
 
-        // the new constraint line for this new variable
-        Fraction[] constraint = new Fraction[newWidth - 1];
-        // get the negated decimal value of the RHS
-        final Fraction value = getEntry(row, 0).getDecimalPart().negate();
+        ArrayList<Constraint> newAppendedConstraints = new ArrayList<>(appendedConstraints);
+        newAppendedConstraints.add(constraint);
+        appendedConstraints = Collections.unmodifiableList(newAppendedConstraints);
 
-        // TODO multiply the whole constraint with an integer to make it stronger
-        // from "Strengthening Chvátal–Gomory cuts" by Adam N. Letchforda, Andrea Lodi
+        final Fraction[][] data = new Fraction[newHeight][];
+        for (int i = 0; i < newHeight - 1; i++) {
+            data[i] = Arrays.copyOf(getRow(i), newWidth);
+            data[i][newWidth - 1] = Fraction.ZERO;
+        }
+        data[newHeight - 1] = Arrays.copyOf(line, newWidth);
+        data[newHeight - 1][newWidth - 1] = Fraction.ONE;
 
-        // get the last col as 1, since this new variable is basic on the last row and
-        // last col (it's future table position)
-        constraint[newWidth - 2] = Fraction.ONE;
+        table = new MatrixFractions(data, false);
+        basicMap.put(newHeight - 1, newWidth - 1);
+        invertedBasicMap.put(newWidth - 1, newHeight - 1);
+    }
 
-        // for each non basic variables, get the negated decimal parts
-        // if the constraint it only made of zero, that means we can't add a cut, and
-        // the problem is unfeasible
-        boolean fullZero = true;
-        for (int i = 1; i < newWidth - 1; i++) {
-            if (!isBasicCol(i)) {
-                constraint[i - 1] = getEntry(row, i).getDecimalPart().negate();
-                if (fullZero && !constraint[i - 1].isZero()) {
-                    fullZero = false;
-                }
-            } else {
-                constraint[i - 1] = Fraction.ZERO;
+    /**
+     * Remove an added constraint from the table: its row, and the column of its
+     * slack variable. The slack variable must be basic on this row, so removing
+     * it keeps the other basic variables, and the table stays optimal.
+     *
+     * @param row The row to remove.
+     * @throws IllegalArgumentException if the row isn't one of an added
+     *                                  constraint, with its own slack variable
+     *                                  basic.
+     */
+    public void removeRow(final int row) throws IllegalArgumentException {
+        final Integer col = getBasicVariableCol(row);
+        final int firstAppended = getFirstAppendedCol();
+        if (col == null || col < firstAppended) {
+            throw new IllegalArgumentException("Given row is not an added constraint: " + row);
+        }
+
+        final Fraction[][] data = new Fraction[getHeight() - 1][];
+        for (int i = 0, k = 0; i < getHeight(); i++) {
+            if (i == row) {
+                continue;
             }
+            final Fraction[] line = getRow(i);
+            final Fraction[] newLine = new Fraction[getWidth() - 1];
+            System.arraycopy(line, 0, newLine, 0, col);
+            System.arraycopy(line, col + 1, newLine, col, getWidth() - col - 1);
+            data[k++] = newLine;
         }
+        table = new MatrixFractions(data, false);
+
+        // move the rows and columns after the removed ones
+        HashMap<Integer, Integer> newBasicMap = HashMap.newHashMap(basicMap.size() - 1);
+        HashMap<Integer, Integer> newInvertedBasicMap = HashMap.newHashMap(basicMap.size() - 1);
+        basicMap.forEach((r, c) -> {
+            if (r != row) {
+                final int newRow = r > row ? r - 1 : r;
+                final int newCol = c > col ? c - 1 : c;
+                newBasicMap.put(newRow, newCol);
+                newInvertedBasicMap.put(newCol, newRow);
+            }
+        });
+        basicMap = newBasicMap;
+        invertedBasicMap = newInvertedBasicMap;
 
-        if (fullZero) {
-            throw new NoFeasibleSolutionException();
+        ArrayList<String> newColumnLabels = new ArrayList<>(columnLabels);
+        newColumnLabels.remove((int) col);
+        columnLabels = Collections.unmodifiableList(newColumnLabels);
+
+        ArrayList<Constraint> newAppendedConstraints = new ArrayList<>(appendedConstraints);
+        newAppendedConstraints.remove(col - firstAppended);
+        appendedConstraints = Collections.unmodifiableList(newAppendedConstraints);
+    }
+
+    /**
+     * Get the constraint on the decision variables whose slack variable is the
+     * given column.
+     *
+     * @param col The column of a slack variable.
+     * @return The constraint, or null if the column is a decision variable.
+     */
+    public Constraint getColumnConstraint(final int col) {
+        final int slack = col - getColOffset() - getNumDecisionVariables();
+        if (slack < 0) {
+            return null;
+        }
+        if (slack < getNumSlackVariables()) {
+            return constraints.get(slack);
         }
+        return appendedConstraints.get(slack - getNumSlackVariables());
+    }
 
-        addConstraint(new Constraint(constraint, Relationship.LEQ, value), true);
+    /**
+     * Check if the variable of the given column can only have integer values on
+     * an integer point. This is the case of the decision variables and of the
+     * slack variables of the original constraints, which an integer point must
+     * leave integer. The slack variables of the appended constraints are integer
+     * only if their constraint has only integer coefficients and value.
+     *
+     * @param col The column of the variable.
+     * @return True if the variable is integer.
+     */
+    public boolean isIntegerColumn(final int col) {
+        final Constraint constraint = getColumnConstraint(col);
+        if (constraint == null || col < getFirstAppendedCol()) {
+            return true;
+        }
+        if (!constraint.getValue().isInteger()) {
+            return false;
+        }
+        for (Fraction coef : constraint.getCoefficients()) {
+            if (!coef.isInteger()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rewrite an inequality on the variables of the table as a constraint on the
+     * decision variables only, by replacing each slack variable with its
+     * definition: the slack of {@code a.x <= b} is {@code b - a.x}.
+     *
+     * @param coefficients The coefficients of the inequality, where the indice
+     *                     {@code i} is the coefficient of the column {@code i + 1}.
+     * @param value        The right hand side of the inequality.
+     * @return The {@code LEQ} constraint on the decision variables.
+     */
+    public Constraint toDecisionVariables(final Fraction[] coefficients, final Fraction value) {
+        final Fraction[] result = new Fraction[getNumDecisionVariables()];
+        Arrays.fill(result, Fraction.ZERO);
+        Fraction rhs = value;
+        for (int i = 0; i < coefficients.length; i++) {
+            final Fraction coef = coefficients[i];
+            final int col = i + 1;
+            if (coef.isZero() || col < getColOffset()) {
+                continue;
+            }
+            final Constraint constraint = getColumnConstraint(col);
+            if (constraint == null) {
+                result[col - getColOffset()] = result[col - getColOffset()].add(coef);
+                continue;
+            }
+            rhs = rhs.subtract(coef.multiply(constraint.getValue()));
+            for (int j = 0; j < result.length; j++) {
+                result[j] = result[j].subtract(coef.multiply(constraint.getCoefficients()[j]));
+            }
+        }
+        return new Constraint(result, Relationship.LEQ, rhs);
     }
 
     /**
@@ -952,6 +1211,26 @@ public class SimplexTable {
         return basicMap.values().stream().toList();
     }
 
+    /**
+     * Return the original constraints of the problem, as {@code LEQ}
+     * constraints on the decision variables. The added constraints are not
+     * included.
+     *
+     * @return The unmodifiable list of constraints.
+     */
+    protected final List<Constraint> getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * Return the objective function of the problem, which is maximized.
+     *
+     * @return The objective function.
+     */
+    protected final ObjectiveFunction getObjectiveFunction() {
+        return f;
+    }
+
     /**
      * Return the number of decision variables, which is equals to the number of
      * coefficients of the objective function and of each constraints.
@@ -962,6 +1241,17 @@ public class SimplexTable {
         return numDecisionVariables;
     }
 
+    /**
+     * Return the column of the first constraint added after the original ones,
+     * like the cuts and the branching constraints.
+     *
+     * @return The column of the first added slack variable, which is the width of
+     *         the table if none has been added.
+     */
+    protected final int getFirstAppendedCol() {
+        return getColOffset() + numDecisionVariables + numSlackVariables;
+    }
+
     /**
      * Return the number of slack variables, which is also the number of
      * constraints. Those are added columns to use the simplex resolution method.
@@ -992,6 +1282,17 @@ public class SimplexTable {
         return table.getDataFraction();
     }
 
+    /**
+     * Get a snapshot of the inner table, sharing the rows this table doesn't
+     * modify afterwards.
+     *
+     * @return The inner table at this state. Must not be modified.
+     * @see MatrixFractions#snapshot()
+     */
+    public final Fraction[][] getSimplexTableSnapshot() {
+        return table.snapshot();
+    }
+
     /**
      * Get the row from the table.
      *
@@ -1046,6 +1347,21 @@ public class SimplexTable {
         return true;
     }
 
+    /**
+     * Check if the current table is primal feasible, meaning every basic variable
+     * has a non negative value on the RHS column.
+     *
+     * @return True if every constraint RHS is positive or zero.
+     */
+    public boolean isPrimalFeasible() {
+        for (int i = getRowOffset(); i < getHeight(); i++) {
+            if (getEntry(i, 0).isNegative()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Get the list of column labels.
      *
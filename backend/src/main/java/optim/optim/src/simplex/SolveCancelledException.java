@@ -0,0 +1,19 @@
+package optim.optim.src.simplex;
+
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+
+/**
+ * Thrown when the resolution has been cancelled with
+ * {@link SimplexSolver#cancel()}. Nothing is returned, even if an integer
+ * solution has been found.
+ */
+public class SolveCancelledException extends MathIllegalStateException {
+    /** Serializable version Id. */
+    private static final long serialVersionUID = 1L;
+
+    /** Create a new exception. */
+    public SolveCancelledException() {
+        super(LocalizedFormats.SIMPLE_MESSAGE, "resolution cancelled");
+    }
+}
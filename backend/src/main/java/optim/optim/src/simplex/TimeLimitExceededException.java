@@ -0,0 +1,39 @@
+package optim.optim.src.simplex;
+
+import org.apache.commons.math3.exception.MathIllegalStateException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+
+import optim.optim.src.simplex.data.TerminationCriteria;
+
+/**
+ * Thrown when the time limit of the resolution is reached before any integer
+ * solution has been found. When one has been found, it is returned instead.
+ *
+ * @see TerminationCriteria
+ */
+public class TimeLimitExceededException extends MathIllegalStateException {
+    /** Serializable version Id. */
+    private static final long serialVersionUID = 1L;
+
+    /** The time limit, in milliseconds. */
+    private final long timeLimit;
+
+    /**
+     * Create a new exception.
+     *
+     * @param timeLimit The time limit reached, in milliseconds.
+     */
+    public TimeLimitExceededException(final long timeLimit) {
+        super(LocalizedFormats.SIMPLE_MESSAGE, "time limit of " + timeLimit + "ms exceeded");
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Getter for {@link #timeLimit}.
+     *
+     * @return The time limit in milliseconds.
+     */
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+}
@@ -0,0 +1,31 @@
+package optim.optim.src.simplex.data;
+
+/**
+ * How the branch and bound chooses the fractional decision variable to branch
+ * on. Only used with the {@link IntegerMethod#BRANCH_AND_BOUND} and
+ * {@link IntegerMethod#BRANCH_AND_CUT} methods.
+ * <p>
+ * A variable is scored by how much each of its two children would lower the
+ * relaxed optimum, and the variable with the best product of both is chosen:
+ * the smaller the tree below it, the better.
+ */
+public enum BranchingRule implements SimplexData {
+    /**
+     * The variable whose decimal part is the closest to 1/2. Free to compute,
+     * but often a poor choice.
+     */
+    MOST_FRACTIONAL,
+    /**
+     * The variable with the best estimate, from the average change of the
+     * optimum per unit each variable caused when branched on so far. Variables
+     * branched on too few times are evaluated like with {@link #STRONG} first,
+     * and these results start their estimate.
+     */
+    PSEUDO_COST,
+    /**
+     * Each fractional variable is evaluated by a few dual simplex iterations on
+     * both of its children. It makes the smallest trees, but each node is
+     * costlier.
+     */
+    STRONG
+}
@@ -146,8 +146,9 @@ public class Constraint implements SimplexData {
 
     @Override
     public int hashCode() {
+        // the ordinal, as the hash of an enum changes between runs
         return Arrays.hashCode(coefficients) ^
-                relationship.hashCode() ^
+                relationship.ordinal() ^
                 value.hashCode();
     }
 }
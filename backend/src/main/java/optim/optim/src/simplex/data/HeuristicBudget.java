@@ -0,0 +1,33 @@
+package optim.optim.src.simplex.data;
+
+/**
+ * How long the primal heuristics can search for an integer solution before the
+ * integer method starts. Only used when an {@link IntegerMethod} is set.
+ */
+public class HeuristicBudget implements SimplexData {
+    /** Time the heuristics can take, in milliseconds. 0 disables them. */
+    private long time;
+
+    /**
+     * Default constructor.
+     *
+     * @param time Time the heuristics can take, in milliseconds. 0 disables
+     *             them.
+     * @throws IllegalArgumentException if time is negative.
+     */
+    public HeuristicBudget(long time) throws IllegalArgumentException {
+        if (time < 0) {
+            throw new IllegalArgumentException("time is negative");
+        }
+        this.time = time;
+    }
+
+    /**
+     * Getter for {@link #time}.
+     *
+     * @return The time in milliseconds.
+     */
+    public final long getTime() {
+        return time;
+    }
+}
@@ -21,16 +21,20 @@ public enum IntegerMethod implements SimplexData {
      */
     GOMORY,
     /**
-     * TODO
-     * Create a tree with a lower and upper bound of [SOME VARIABLE], to have a
-     * pruning of solutions.
+     * Create a tree where each node adds a lower or upper bound on a fractional
+     * decision variable, and prune the nodes whose relaxed optimum can't beat the
+     * best integer solution found so far.
+     *
+     * @see optim.optim.src.simplex.BranchAndBound
      */
     BRANCH_AND_BOUND,
     /**
-     * TODO
-     * Nearly the same as {@link #BRANCH_AND_BOUND}, but if the current optimisic
-     * evaluation is way higher than [ANOTHER ONE], "cut", by evaluating more
-     * precisely the branch.
+     * Nearly the same as {@link #BRANCH_AND_BOUND}, but the relaxed optimum of
+     * each node is tightened with cuts before branching. The cuts are kept in a
+     * pool shared by the whole tree, and only the ones violated by the node point
+     * are added to its table.
+     *
+     * @see optim.optim.src.simplex.CutPool
      */
     BRANCH_AND_CUT
 }
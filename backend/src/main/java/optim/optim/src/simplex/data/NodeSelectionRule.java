@@ -0,0 +1,20 @@
+package optim.optim.src.simplex.data;
+
+/**
+ * Order in which the open nodes of the branch and bound tree are explored. Only
+ * used with the {@link IntegerMethod#BRANCH_AND_BOUND} method.
+ */
+public enum NodeSelectionRule implements SimplexData {
+    /**
+     * The node with the best relaxed optimum is explored first. It tends to
+     * explore the fewest nodes to prove the optimality, but may find a first
+     * integer solution later.
+     */
+    BEST_BOUND,
+    /**
+     * The most recently created node is explored first, going as deep as possible
+     * in the tree before backtracking. It finds integer solutions quickly, and
+     * keeps few nodes open at once.
+     */
+    DEPTH_FIRST
+}
@@ -69,4 +69,36 @@ public class ObjectiveFunction implements SimplexData {
     public final Fraction getConstant() {
         return constant;
     }
+
+    /**
+     * Get the value of the function at the given point.
+     *
+     * @param point The values of the variables.
+     * @return The value of the function.
+     */
+    public Fraction getValue(final Fraction[] point) {
+        Fraction value = constant;
+        for (int i = 0; i < coefficients.length; i++) {
+            value = value.add(coefficients[i].multiply(point[i]));
+        }
+        return value;
+    }
+
+    /**
+     * Check if the function can only have integer values on integer points: its
+     * coefficients and its constant are integers.
+     *
+     * @return True if the function is integer.
+     */
+    public boolean isInteger() {
+        if (!constant.isInteger()) {
+            return false;
+        }
+        for (Fraction coef : coefficients) {
+            if (!coef.isInteger()) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,84 @@
+package optim.optim.src.simplex.data;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * How the branch and bound tree is explored concurrently. Only used with the
+ * {@link IntegerMethod#BRANCH_AND_BOUND} method.
+ */
+public class ParallelSearch implements SimplexData {
+    /** Amount of threads exploring the nodes. */
+    private int threads;
+
+    /**
+     * Whether the nodes are explored in a reproducible order, whatever the
+     * scheduling of the threads.
+     */
+    private boolean deterministic;
+
+    /**
+     * Pool running the explorations, shared with other resolutions. Null to
+     * create one for the resolution.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Default constructor. The nodes are explored on a pool created for the
+     * resolution.
+     *
+     * @param threads       Amount of threads exploring the nodes, at least 1.
+     * @param deterministic Whether the exploration order must be reproducible.
+     * @throws IllegalArgumentException if threads is less than 1.
+     */
+    public ParallelSearch(int threads, boolean deterministic) throws IllegalArgumentException {
+        this(threads, deterministic, null);
+    }
+
+    /**
+     * Constructor exploring the nodes on a long-lived pool. The pool is not shut
+     * down by the resolution, and at most {@code threads} of its threads explore
+     * the nodes of the resolution.
+     *
+     * @param threads       Amount of threads exploring the nodes, at least 1.
+     * @param deterministic Whether the exploration order must be reproducible.
+     * @param pool          Pool running the explorations. Null to create one for
+     *                      the resolution.
+     * @throws IllegalArgumentException if threads is less than 1.
+     */
+    public ParallelSearch(int threads, boolean deterministic, ForkJoinPool pool) throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads is less than 1");
+        }
+        this.threads = threads;
+        this.deterministic = deterministic;
+        this.pool = pool;
+    }
+
+    /**
+     * Getter for {@link #threads}.
+     *
+     * @return The amount of threads.
+     */
+    public final int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Getter for {@link #deterministic}.
+     *
+     * @return Whether the exploration order must be reproducible.
+     */
+    public final boolean getDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * Getter for {@link #pool}.
+     *
+     * @return The pool running the explorations, or null if the resolution
+     *         creates its own.
+     */
+    public final ForkJoinPool getPool() {
+        return pool;
+    }
+}
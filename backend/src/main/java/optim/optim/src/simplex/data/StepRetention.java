@@ -0,0 +1,80 @@
+package optim.optim.src.simplex.data;
+
+/**
+ * Which resolution steps are kept in the response. Keeping a step copies the
+ * whole table, so callers only wanting the optimum should not keep any.
+ */
+public class StepRetention implements SimplexData {
+    /**
+     * The steps kept.
+     */
+    public enum Policy {
+        /** No step, and no summary. */
+        NONE,
+        /** No step, only the amount of steps made and the resolution time. */
+        SUMMARY,
+        /** Every size-th step, plus the first and the last ones. */
+        SAMPLED,
+        /** The last size steps. */
+        LAST_N,
+        /** Every step. */
+        FULL;
+    }
+
+    /** The steps kept. */
+    private Policy policy;
+
+    /**
+     * The interval between two steps kept with {@link Policy#SAMPLED}, or the
+     * amount of steps kept with {@link Policy#LAST_N}.
+     */
+    private int size;
+
+    /**
+     * Default constructor.
+     *
+     * @param policy The steps kept.
+     * @param size   The interval between two steps kept with
+     *               {@link Policy#SAMPLED}, or the amount of steps kept with
+     *               {@link Policy#LAST_N}, at least 1. Unused otherwise.
+     * @throws NullPointerException     if policy is null.
+     * @throws IllegalArgumentException if size is less than 1.
+     */
+    public StepRetention(Policy policy, int size) throws NullPointerException, IllegalArgumentException {
+        if (policy == null) {
+            throw new NullPointerException("policy is null");
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("size is less than 1");
+        }
+        this.policy = policy;
+        this.size = size;
+    }
+
+    /**
+     * Getter for {@link #policy}.
+     *
+     * @return The steps kept.
+     */
+    public final Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Getter for {@link #size}.
+     *
+     * @return The interval or the amount of steps kept.
+     */
+    public final int getSize() {
+        return size;
+    }
+
+    /**
+     * Whether the steps are kept at all.
+     *
+     * @return True if at least one step is kept.
+     */
+    public final boolean keepSteps() {
+        return policy == Policy.SAMPLED || policy == Policy.LAST_N || policy == Policy.FULL;
+    }
+}
@@ -0,0 +1,88 @@
+package optim.optim.src.simplex.data;
+
+import optim.optim.src.simplex.Fraction;
+
+/**
+ * When the integer problem can stop before its optimum is proven. The best
+ * integer solution found is then returned, with a bound on the optimum. Only
+ * used when an {@link IntegerMethod} is set.
+ * <p>
+ * The gap is the difference between the bound and the best integer solution.
+ * The search stops once it is at most the absolute gap, or at most the relative
+ * gap times the absolute value of the best solution.
+ */
+public class TerminationCriteria implements SimplexData {
+    /** Largest gap accepted. */
+    private Fraction absoluteGap;
+
+    /** Largest gap accepted, relative to the best integer solution. */
+    private Fraction relativeGap;
+
+    /** Time the whole resolution can take, in milliseconds. 0 for no limit. */
+    private long timeLimit;
+
+    /**
+     * Default constructor.
+     *
+     * @param absoluteGap Largest gap accepted, 0 to prove the optimum.
+     * @param relativeGap Largest gap accepted relative to the best solution, 0 to
+     *                    prove the optimum.
+     * @param timeLimit   Time the whole resolution can take, in milliseconds. 0 for
+     *                    no limit.
+     * @throws IllegalArgumentException if any of the parameters is negative.
+     */
+    public TerminationCriteria(Fraction absoluteGap, Fraction relativeGap, long timeLimit)
+            throws IllegalArgumentException {
+        if (absoluteGap.isNegative()) {
+            throw new IllegalArgumentException("absoluteGap is negative");
+        }
+        if (relativeGap.isNegative()) {
+            throw new IllegalArgumentException("relativeGap is negative");
+        }
+        if (timeLimit < 0) {
+            throw new IllegalArgumentException("timeLimit is negative");
+        }
+        this.absoluteGap = absoluteGap;
+        this.relativeGap = relativeGap;
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Getter for {@link #absoluteGap}.
+     *
+     * @return The absolute gap.
+     */
+    public final Fraction getAbsoluteGap() {
+        return absoluteGap;
+    }
+
+    /**
+     * Getter for {@link #relativeGap}.
+     *
+     * @return The relative gap.
+     */
+    public final Fraction getRelativeGap() {
+        return relativeGap;
+    }
+
+    /**
+     * Getter for {@link #timeLimit}.
+     *
+     * @return The time limit in milliseconds, 0 for no limit.
+     */
+    public final long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Check if a gap is small enough to stop the search.
+     *
+     * @param gap   The bound minus the value of the best integer solution.
+     * @param value The value of the best integer solution.
+     * @return True if the gap is accepted.
+     */
+    public boolean isAccepted(final Fraction gap, final Fraction value) {
+        return !gap.isPositive() || gap.compareTo(absoluteGap) <= 0
+                || gap.compareTo(relativeGap.multiply(value.abs())) <= 0;
+    }
+}
@@ -2,15 +2,33 @@ package simplex.simplex;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 
 import org.apache.commons.math3.exception.TooManyIterationsException;
 import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
@@ -20,26 +38,53 @@ import org.apache.commons.math3.util.FastMath;
 import org.apache.commons.math3.util.Pair;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import optim.optim.controller.body.SimplexForm;
+import optim.optim.response.BinaryOutput;
+import optim.optim.response.LatexRenderer;
 import optim.optim.response.SimplexResponse;
 import optim.optim.response.SimplexResponse.Feasibility;
+import optim.optim.response.SimplexResponse.StepEncoding;
+import optim.optim.service.BatchSolver;
 import optim.optim.service.SimplexService;
+import optim.optim.service.SolveCache;
+import optim.optim.service.SolveJob;
+import optim.optim.service.SolveJobs;
+import optim.optim.service.SolveStore;
+import optim.optim.service.SolverPool;
 import optim.optim.src.Config;
 import optim.optim.src.log.Logger;
 import optim.optim.src.log.option.LoggerColor;
 import optim.optim.src.log.option.LoggerStyle;
+import optim.optim.src.simplex.CutGenerator;
+import optim.optim.src.simplex.CutPool;
 import optim.optim.src.simplex.Fraction;
+import optim.optim.src.simplex.KnapsackSeparator;
+import optim.optim.src.simplex.MatrixFractions;
 import optim.optim.src.simplex.PointFractionPair;
 import optim.optim.src.simplex.SimplexSolver;
+import optim.optim.src.simplex.SolveCancelledException;
+import optim.optim.src.simplex.data.BranchingRule;
 import optim.optim.src.simplex.data.Constraint;
 import optim.optim.src.simplex.data.ConstraintSet;
 import optim.optim.src.simplex.data.GoalType;
+import optim.optim.src.simplex.data.HeuristicBudget;
 import optim.optim.src.simplex.data.IntegerMethod;
+import optim.optim.src.simplex.data.NodeSelectionRule;
 import optim.optim.src.simplex.data.NonNegativeValues;
 import optim.optim.src.simplex.data.ObjectiveFunction;
+import optim.optim.src.simplex.data.ParallelSearch;
 import optim.optim.src.simplex.data.PivotSelectionRule;
+import optim.optim.src.simplex.data.SimplexData;
+import optim.optim.src.simplex.data.StepRetention;
+import optim.optim.src.simplex.data.StepRetention.Policy;
+import optim.optim.src.simplex.data.TerminationCriteria;
 
 public class SimplexTests {
     /**
@@ -138,6 +183,1382 @@ public class SimplexTests {
         assertEquals(new Fraction(62, 41), optSolution.getPoint()[2]);
     }
 
+    /**
+     * Integer problem solved with the branch and bound, where rounding the relaxed
+     * optimum (3, 3/2) does not give the integer optimum (4, 0).
+     *
+     * @param rule The node selection rule to use.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = { "BEST_BOUND", "DEPTH_FIRST" })
+    public void simplexBranchAndBound(String rule)
+            throws TooManyIterationsException, NoFeasibleSolutionException, UnboundedSolutionException {
+        SimplexSolver solver = new SimplexSolver(100);
+
+        ObjectiveFunction f = new ObjectiveFunction(new Fraction[] { new Fraction(5), new Fraction(4) });
+        ConstraintSet constraints = new ConstraintSet(
+                new Constraint(new Fraction[] { new Fraction(6), new Fraction(4) }, Relationship.LEQ,
+                        new Fraction(24)),
+                new Constraint(new Fraction[] { new Fraction(1), new Fraction(2) }, Relationship.LEQ,
+                        new Fraction(6)));
+
+        PointFractionPair optSolution = solver.solve(
+                f,
+                constraints,
+                GoalType.MAXIMIZE,
+                new NonNegativeValues(true),
+                IntegerMethod.BRANCH_AND_BOUND,
+                NodeSelectionRule.valueOf(rule));
+
+        assertEquals(new Fraction(20), optSolution.getValue());
+        assertEquals(new Fraction(4), optSolution.getPoint()[0]);
+        assertEquals(new Fraction(0), optSolution.getPoint()[1]);
+    }
+
+    /**
+     * Integer problem solved with the branch and cut, whose relaxed optimum
+     * (3, 3/2) is cut before branching.
+     *
+     * @param rule The node selection rule to use.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = { "BEST_BOUND", "DEPTH_FIRST" })
+    public void simplexBranchAndCut(String rule)
+            throws TooManyIterationsException, NoFeasibleSolutionException, UnboundedSolutionException {
+        SimplexSolver solver = new SimplexSolver(100);
+
+        ObjectiveFunction f = new ObjectiveFunction(new Fraction[] { new Fraction(5), new Fraction(4) });
+        ConstraintSet constraints = new ConstraintSet(
+                new Constraint(new Fraction[] { new Fraction(6), new Fraction(4) }, Relationship.LEQ,
+                        new Fraction(24)),
+                new Constraint(new Fraction[] { new Fraction(1), new Fraction(2) }, Relationship.LEQ,
+                        new Fraction(6)));
+
+        PointFractionPair optSolution = solver.solve(
+                f,
+                constraints,
+                GoalType.MAXIMIZE,
+                new NonNegativeValues(true),
+                IntegerMethod.BRANCH_AND_CUT,
+                NodeSelectionRule.valueOf(rule));
+
+        assertEquals(new Fraction(20), optSolution.getValue());
+        assertEquals(new Fraction(4), optSolution.getPoint()[0]);
+        assertEquals(new Fraction(0), optSolution.getPoint()[1]);
+    }
+
+    /**
+     * Same problem solved with the Gomory cuts only, several cuts being added at
+     * each round.
+     */
+    @Test
+    public void simplexGomory()
+            throws TooManyIterationsException, NoFeasibleSolutionException, UnboundedSolutionException {
+        SimplexSolver solver = new SimplexSolver(100);
+
+        ObjectiveFunction f = new ObjectiveFunction(new Fraction[] { new Fraction(5), new Fraction(4) });
+        ConstraintSet constraints = new ConstraintSet(
+                new Constraint(new Fraction[] { new Fraction(6), new Fraction(4) }, Relationship.LEQ,
+                        new Fraction(24)),
+                new Constraint(new Fraction[] { new Fraction(1), new Fraction(2) }, Relationship.LEQ,
+                        new Fraction(6)));
+
+        PointFractionPair optSolution = solver.solve(
+                f,
+                constraints,
+                GoalType.MAXIMIZE,
+                new NonNegativeValues(true),
+                IntegerMethod.GOMORY);
+
+        assertEquals(new Fraction(20), optSolution.getValue());
+        assertEquals(new Fraction(4), optSolution.getPoint()[0]);
+        assertEquals(new Fraction(0), optSolution.getPoint()[1]);
+    }
+
+    /**
+     * Every cut of {@code 2x <= 2^40 + 1} has a value too big to be used, so the
+     * Gomory method must branch instead. The heuristics are off, they would find
+     * the optimum by rounding.
+     */
+    @Test
+    public void simplexGomoryWithoutCuts()
+            throws TooManyIterationsException, NoFeasibleSolutionException, UnboundedSolutionException {
+        final BigInteger half = BigInteger.TWO.pow(39);
+        ConstraintSet constraints = new ConstraintSet(
+                new Constraint(new Fraction[] { new Fraction(2) }, Relationship.LEQ,
+                        new Fraction(half.multiply(BigInteger.TWO).add(BigInteger.ONE))));
+
+        SimplexSolver solver = new SimplexSolver(100);
+        PointFractionPair optSolution = solver.solve(
+                new ObjectiveFunction(new Fraction[] { Fraction.ONE }),
+                constraints,
+                GoalType.MAXIMIZE,
+                new NonNegativeValues(true),
+                IntegerMethod.GOMORY, new ParallelSearch(1, true), new HeuristicBudget(0));
+
+        assertEquals(new Fraction(half), optSolution.getValue());
+        assertEquals(new Fraction(half), optSolution.getPoint()[0]);
+        assertEquals(new Fraction(half), solver.getBound());
+    }
+
+    /**
+     * An integer point must also leave the slack variables of the original
+     * constraints integer. Here {@code (3, 0)} is integer, but leaves a slack of
+     * {@code 1/2} on the second constraint, so the optimum is {@code (2, 1)}. And
+     * no integer point leaves an integer slack on {@code x >= 3/2}.
+     *
+     * @param method The integer method.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = { "GOMORY", "BRANCH_AND_BOUND", "BRANCH_AND_CUT" })
+    public void simplexIntegerSlacks(String method)
+            throws TooManyIterationsException, NoFeasibleSolutionException, UnboundedSolutionException {
+        ObjectiveFunction f = new ObjectiveFunction(new Fraction[] { new Fraction(2), new Fraction(1) });
+        ConstraintSet constraints = new ConstraintSet(
+                new Constraint(new Fraction[] { new Fraction(1), new Fraction(0) }, Relationship.LEQ,
+                        new Fraction(3)),
+                new Constraint(new Fraction[] { new Fraction(1, 2), new Fraction(1) }, Relationship.LEQ,
+                        new Fraction(2)));
+
+        PointFractionPair optSolution = new SimplexSolver(1000).solve(
+                f,
+                constraints,
+                GoalType.MAXIMIZE,
+                new NonNegativeValues(true),
+                IntegerMethod.valueOf(method));
+
+        assertEquals(new Fraction(5), optSolution.getValue());
+        assertEquals(new Fraction(2), optSolution.getPoint()[0]);
+        assertEquals(new Fraction(1), optSolution.getPoint()[1]);
+
+        ConstraintSet fractional = new ConstraintSet(
+                new Constraint(new Fraction[] { new Fraction(1), new Fraction(0) }, Relationship.GEQ,
+                        new Fraction(3, 2)));
+        assertThrows(NoFeasibleSolutionException.class, () -> new SimplexSolver(1000).solve(
+                new ObjectiveFunction(new Fraction[] { new Fraction(-1), new Fraction(-1) }),
+                fractional,
+                GoalType.MAXIMIZE,
+                new NonNegativeValues(true),
+                IntegerMethod.valueOf(method)));
+    }
+
+    /**
+     * Binary knapsack with correlated weights and values solved with a parallel
+     * branch and bound, with and without cuts. Every thread mode must find the
+     * same optimum, and the deterministic mode must make the exact same steps on
+     * each run, also on a shared pool smaller than the threads asked for, which
+     * must outlive the resolutions.
+     *
+     * @param threads The amount of threads exploring the tree.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 4 })
+    public void simplexParallelBranchAndBound(int threads)
+            throws TooManyIterationsException, NoFeasibleSolutionException, UnboundedSolutionException {
+        int[] weights = new int[] { 12, 17, 23, 29, 31, 37, 41, 43 };
+        int[] values = new int[] { 22, 27, 33, 39, 41, 47, 51, 53 };
+        Fraction[] objective = new Fraction[weights.length];
+        Fraction[] weight = new Fraction[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            objective[i] = new Fraction(values[i]);
+            weight[i] = new Fraction(weights[i]);
+        }
+        ObjectiveFunction f = new ObjectiveFunction(objective);
+        ArrayList<Constraint> constraints = new ArrayList<>();
+        constraints.add(new Constraint(weight, Relationship.LEQ, new Fraction(117)));
+        for (int i = 0; i < weights.length; i++) {
+            Fraction[] coefs = new Fraction[weights.length];
+            Arrays.fill(coefs, Fraction.ZERO);
+            coefs[i] = Fraction.ONE;
+            constraints.add(new Constraint(coefs, Relationship.LEQ, Fraction.ONE));
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            for (IntegerMethod method : new IntegerMethod[] { IntegerMethod.BRANCH_AND_BOUND,
+                    IntegerMethod.BRANCH_AND_CUT }) {
+                SimplexResponse steps = null;
+                for (ForkJoinPool shared : new ForkJoinPool[] { null, pool }) {
+                    for (boolean deterministic : new boolean[] { true, true, false }) {
+                        SimplexSolver solver = new SimplexSolver(1000);
+                        PointFractionPair optSolution = solver.solve(
+                                f,
+                                new ConstraintSet(constraints),
+                                GoalType.MAXIMIZE,
+                                new NonNegativeValues(true),
+                                method,
+                                new ParallelSearch(threads, deterministic, shared));
+
+                        // 162 is the optimum
+                        assertEquals(new Fraction(162), optSolution.getValue());
+                        if (deterministic) {
+                            if (steps != null) {
+                                assertSameSteps(steps, solver.getResolutionSteps());
+                            }
+                            steps = solver.getResolutionSteps();
+                        }
+                    }
+                }
+            }
+            assertEquals(false, pool.isShutdown());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Binary knapsack solved with each branching rule. They may explore different
+     * trees, but must find the same optimum.
+     *
+     * @param rule The branching rule to use.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = { "MOST_FRACTIONAL", "PSEUDO_COST", "STRONG" })
+    public void simplexBranchingRule(String rule)
+            throws TooManyIterationsException, NoFeasibleSolutionException, UnboundedSolutionException {
+        ObjectiveFunction f = new ObjectiveFunction(
+                new Fraction[] { new Fraction(8), new Fraction(11), new Fraction(6), new Fraction(4) });
+        ArrayList<Constraint> constraints = new ArrayList<>();
+        constraints.add(new Constraint(
+                new Fraction[] { new Fraction(5), new Fraction(7), new Fraction(4), new Fraction(3) },
+                Relationship.LEQ, new Fraction(14)));
+        for (int i = 0; i < 4; i++) {
+            Fraction[] coefs = new Fraction[] { Fraction.ZERO, Fraction.ZERO, Fraction.ZERO, Fraction.ZERO };
+            coefs[i] = Fraction.ONE;
+            constraints.add(new Constraint(coefs, Relationship.LEQ, Fraction.ONE));
+        }
+
+        SimplexSolver solver = new SimplexSolver(1000);
+        PointFractionPair optSolution = solver.solve(
+                f,
+                new ConstraintSet(constraints),
+                GoalType.MAXIMIZE,
+                new NonNegativeValues(true),
+                IntegerMethod.BRANCH_AND_BOUND,
+                BranchingRule.valueOf(rule));
+
+        assertEquals(new Fraction(21), optSolution.getValue());
+        assertEquals(new Fraction(0), optSolution.getPoint()[0]);
+        assertEquals(new Fraction(1), optSolution.getPoint()[1]);
+        assertEquals(new Fraction(1), optSolution.getPoint()[2]);
+        assertEquals(new Fraction(1), optSolution.getPoint()[3]);
+    }
+
+    /**
+     * Solve the same knapsack with each integer method, with and without the
+     * primal heuristics: the incumbent they give must not change the optimum.
+     *
+     * @param method The integer method.
+     * @param time   The time budget of the heuristics, 0 disables them.
+     */
+    @ParameterizedTest
+    @CsvSource({ "GOMORY,0", "GOMORY,1000", "BRANCH_AND_BOUND,0", "BRANCH_AND_BOUND,1000",
+            "BRANCH_AND_CUT,0", "BRANCH_AND_CUT,1000" })
+    public void simplexPrimalHeuristics(String method, long time)
+            throws TooManyIterationsException, NoFeasibleSolutionException, UnboundedSolutionException {
+        ObjectiveFunction f = new ObjectiveFunction(
+                new Fraction[] { new Fraction(8), new Fraction(11), new Fraction(6), new Fraction(4) });
+        ArrayList<Constraint> constraints = new ArrayList<>();
+        constraints.add(new Constraint(
+                new Fraction[] { new Fraction(5), new Fraction(7), new Fraction(4), new Fraction(3) },
+                Relationship.LEQ, new Fraction(14)));
+        for (int i = 0; i < 4; i++) {
+            Fraction[] coefs = new Fraction[] { Fraction.ZERO, Fraction.ZERO, Fraction.ZERO, Fraction.ZERO };
+            coefs[i] = Fraction.ONE;
+            constraints.add(new Constraint(coefs, Relationship.LEQ, Fraction.ONE));
+        }
+
+        SimplexSolver solver = new SimplexSolver(1000);
+        PointFractionPair optSolution = solver.solve(
+                f,
+                new ConstraintSet(constraints),
+                GoalType.MAXIMIZE,
+                new NonNegativeValues(true),
+                IntegerMethod.valueOf(method),
+                new HeuristicBudget(time));
+
+        assertEquals(new Fraction(21), optSolution.getValue());
+        assertEquals(new Fraction(0), optSolution.getPoint()[0]);
+        assertEquals(new Fraction(1), optSolution.getPoint()[1]);
+        assertEquals(new Fraction(1), optSolution.getPoint()[2]);
+        assertEquals(new Fraction(1), optSolution.getPoint()[3]);
+    }
+
+    /**
+     * Solve a knapsack with each integer method, accepting a gap between the
+     * solution and the bound on the optimum. The solution must be feasible, and
+     * the bound must be valid and close enough to it. The time limit is not
+     * reached, and must not be seen as the reason of the stop once it has passed.
+     *
+     * @param method The integer method.
+     * @param gap    The absolute gap accepted.
+     */
+    @ParameterizedTest
+    @CsvSource({ "GOMORY,0", "GOMORY,3", "BRANCH_AND_BOUND,0", "BRANCH_AND_BOUND,3", "BRANCH_AND_CUT,3" })
+    public void simplexGapTermination(String method, int gap)
+            throws TooManyIterationsException, NoFeasibleSolutionException, UnboundedSolutionException,
+            InterruptedException {
+        Fraction[] weights = new Fraction[] { new Fraction(5), new Fraction(7), new Fraction(4), new Fraction(3) };
+        ObjectiveFunction f = new ObjectiveFunction(
+                new Fraction[] { new Fraction(8), new Fraction(11), new Fraction(6), new Fraction(4) });
+        ArrayList<Constraint> constraints = new ArrayList<>();
+        constraints.add(new Constraint(weights, Relationship.LEQ, new Fraction(14)));
+        for (int i = 0; i < 4; i++) {
+            Fraction[] coefs = new Fraction[] { Fraction.ZERO, Fraction.ZERO, Fraction.ZERO, Fraction.ZERO };
+            coefs[i] = Fraction.ONE;
+            constraints.add(new Constraint(coefs, Relationship.LEQ, Fraction.ONE));
+        }
+
+        SimplexSolver solver = new SimplexSolver(1000);
+        PointFractionPair optSolution = solver.solve(
+                f,
+                new ConstraintSet(constraints),
+                GoalType.MAXIMIZE,
+                new NonNegativeValues(true),
+                IntegerMethod.valueOf(method),
+                new HeuristicBudget(0),
+                new TerminationCriteria(new Fraction(gap), Fraction.ZERO, 200));
+
+        Fraction weight = Fraction.ZERO;
+        for (int i = 0; i < 4; i++) {
+            assertEquals(true, optSolution.getPoint()[i].isInteger());
+            weight = weight.add(weights[i].multiply(optSolution.getPoint()[i]));
+        }
+        assertEquals(true, weight.compareTo(new Fraction(14)) <= 0);
+        assertEquals(f.getValue(optSolution.getPoint()), optSolution.getValue());
+
+        // 21 is the optimum
+        assertEquals(true, optSolution.getValue().compareTo(new Fraction(21)) <= 0);
+        assertEquals(true, solver.getBound().compareTo(new Fraction(21)) >= 0);
+        assertEquals(true, solver.getBound().subtract(optSolution.getValue()).compareTo(new Fraction(gap)) <= 0);
+        if (gap == 0) {
+            assertEquals(new Fraction(21), optSolution.getValue());
+            assertEquals(new Fraction(21), solver.getBound());
+        }
+
+        Thread.sleep(250);
+        assertEquals(false, solver.isStoppedByTimeLimit());
+    }
+
+    /**
+     * Separate the knapsack cuts of the relaxed optimum of a knapsack with a
+     * conflicting pair. Each cut must cut the point, without removing any integer
+     * point.
+     */
+    @Test
+    public void simplexKnapsackCuts() {
+        Fraction[] weights = new Fraction[] { new Fraction(5), new Fraction(7), new Fraction(4), new Fraction(9) };
+        ArrayList<Constraint> constraints = new ArrayList<>();
+        constraints.add(new Constraint(weights, Relationship.LEQ, new Fraction(14)));
+        for (int i = 0; i < 4; i++) {
+            Fraction[] coefs = new Fraction[] { Fraction.ZERO, Fraction.ZERO, Fraction.ZERO, Fraction.ZERO };
+            coefs[i] = Fraction.ONE;
+            constraints.add(new Constraint(coefs, Relationship.LEQ, Fraction.ONE));
+        }
+
+        Fraction[] point = new Fraction[] { Fraction.ONE, Fraction.ONE, Fraction.ONE_HALF, new Fraction(1, 3) };
+        List<Constraint> cuts = new KnapsackSeparator(constraints, 4).getCuts(point, 10);
+        assertNotEquals(0, cuts.size());
+
+        for (Constraint cut : cuts) {
+            assertEquals(true, CutGenerator.getEfficacy(cut, point) > 0);
+            // every binary point satisfying the knapsack satisfies the cut
+            for (int mask = 0; mask < 16; mask++) {
+                Fraction weight = Fraction.ZERO;
+                Fraction lhs = Fraction.ZERO;
+                for (int i = 0; i < 4; i++) {
+                    if ((mask >> i & 1) == 1) {
+                        weight = weight.add(weights[i]);
+                        lhs = lhs.add(cut.getCoefficients()[i]);
+                    }
+                }
+                if (weight.compareTo(new Fraction(14)) <= 0) {
+                    assertEquals(true, lhs.compareTo(cut.getValue()) <= 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Separate the cuts of a pool. Equally violated cuts must come in the order
+     * they have been added in, and the oldest cut must be forgotten once the pool
+     * is full.
+     */
+    @Test
+    public void simplexCutPool() {
+        Constraint both = new Constraint(new Fraction[] { Fraction.ONE, Fraction.ONE }, Relationship.LEQ,
+                Fraction.ZERO);
+        Constraint second = new Constraint(new Fraction[] { Fraction.ZERO, Fraction.ONE }, Relationship.LEQ,
+                Fraction.ZERO);
+        Constraint first = new Constraint(new Fraction[] { Fraction.ONE, Fraction.ZERO }, Relationship.LEQ,
+                Fraction.ZERO);
+        Fraction[] point = new Fraction[] { Fraction.ONE_HALF, Fraction.ONE_HALF };
+
+        CutPool pool = new CutPool(CutPool.defaultMaxAge, 3);
+        assertEquals(true, pool.add(second));
+        assertEquals(true, pool.add(first));
+        assertEquals(true, pool.add(both));
+        assertEquals(false, pool.add(first));
+        for (int i = 0; i < 10; i++) {
+            // the cut on both variables is the most violated, the two others are tied
+            assertEquals(List.of(both, second, first), pool.separate(point, List.of(), 3));
+        }
+        assertEquals(List.of(both, first), pool.separate(point, List.of(second), 3));
+        assertEquals(List.of(both), pool.separate(point, List.of(), 1));
+
+        // the pool is full, the oldest cut is forgotten
+        Constraint other = new Constraint(new Fraction[] { Fraction.ONE, new Fraction(2) }, Relationship.LEQ,
+                Fraction.ZERO);
+        assertEquals(true, pool.add(other));
+        assertEquals(3, pool.size());
+        assertEquals(false, pool.contains(second));
+        assertEquals(List.of(both, other, first), pool.separate(point, List.of(), 3));
+    }
+
+    /**
+     * Write the steps of a two phase resolution as JSON. The streamed JSON must be
+     * the same as the stringified response, and be valid JSON.
+     */
+    @Test
+    public void simplexStreamedJson() throws IOException {
+        ArrayList<Constraint> constraints = new ArrayList<>();
+        constraints.add(new Constraint(new Fraction[] { Fraction.ONE, Fraction.ONE }, Relationship.GEQ,
+                new Fraction(2)));
+        constraints.add(new Constraint(new Fraction[] { Fraction.ONE, new Fraction(3) }, Relationship.LEQ,
+                new Fraction(7)));
+        SimplexSolver solver = new SimplexSolver(100);
+        PointFractionPair optSolution = solver.solve(
+                new ObjectiveFunction(new Fraction[] { new Fraction(3), new Fraction(2) }),
+                new ConstraintSet(constraints), GoalType.MAXIMIZE, new NonNegativeValues(true),
+                IntegerMethod.GOMORY);
+
+        SimplexResponse res = solver.getResolutionSteps();
+        res.optimum = optSolution.getValue();
+        res.values = optSolution.getPoint();
+        StringWriter writer = new StringWriter();
+        res.writeJson(writer);
+        assertEquals(res.toString(), writer.toString());
+
+        JsonNode json = new ObjectMapper().readTree(writer.toString());
+        assertEquals(res.steps.size(), json.get("steps").size());
+        assertEquals(res.optimum.toString(), json.get("optimum").asText());
+        assertEquals(res.steps.get(0).table.length, json.get("steps").get(0).get("table").size());
+    }
+
+    /**
+     * Write a response as binary. It must start with the header, hold the same
+     * values as the JSON, and be smaller.
+     */
+    @Test
+    public void simplexBinaryResponse() throws IOException {
+        ArrayList<Constraint> constraints = new ArrayList<>();
+        constraints.add(new Constraint(new Fraction[] { Fraction.ONE, Fraction.ONE }, Relationship.GEQ,
+                new Fraction(2)));
+        constraints.add(new Constraint(new Fraction[] { Fraction.ONE, new Fraction(3) }, Relationship.LEQ,
+                new Fraction(7)));
+        SimplexSolver solver = new SimplexSolver(100);
+        PointFractionPair optSolution = solver.solve(
+                new ObjectiveFunction(new Fraction[] { new Fraction(3), new Fraction(2) }),
+                new ConstraintSet(constraints), GoalType.MAXIMIZE, new NonNegativeValues(true),
+                IntegerMethod.GOMORY);
+
+        SimplexResponse res = solver.getResolutionSteps();
+        res.optimum = optSolution.getValue();
+        res.values = optSolution.getPoint();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryOutput out = new BinaryOutput(bytes);
+        res.writeBinary(out, true);
+        out.flush();
+
+        byte[] binary = bytes.toByteArray();
+        assertEquals(true, binary.length < res.toString().getBytes().length);
+        ByteArrayInputStream in = new ByteArrayInputStream(binary);
+        assertEquals('S', in.read());
+        assertEquals('P', in.read());
+        assertEquals('X', in.read());
+        assertEquals(1, readVarint(in));
+        // no error
+        assertEquals(0, readVarint(in));
+        long feasibility = readVarint(in);
+        assertEquals(res.feasibility.value(), (feasibility >>> 1) ^ -(feasibility & 1));
+        // the optimum of this problem is a small whole number
+        long optimum = readVarint(in);
+        assertEquals(0, optimum & 3);
+        assertEquals(res.optimum, new Fraction(BigInteger.valueOf((optimum >>> 3) ^ -((optimum >>> 2) & 1))));
+    }
+
+    /**
+     * Read an unsigned varint written by {@link BinaryOutput}.
+     */
+    private static long readVarint(ByteArrayInputStream in) {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.read();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Solve a problem keeping the whole tables, and the same one keeping only the
+     * pivots. Each table rebuilt from the pivots must be the same as the whole one.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = { "NONE", "GOMORY", "BRANCH_AND_BOUND" })
+    public void simplexDeltaSteps(String method) {
+        SimplexResponse[] responses = new SimplexResponse[2];
+        for (StepEncoding encoding : StepEncoding.values()) {
+            responses[encoding.ordinal()] = solveStepProblem(method, new SimplexResponse(encoding));
+        }
+
+        SimplexResponse full = responses[StepEncoding.FULL.ordinal()];
+        SimplexResponse delta = responses[StepEncoding.DELTA.ordinal()];
+        assertEquals(full.steps.size(), delta.steps.size());
+        int deltas = 0;
+        for (int i = 0; i < full.steps.size(); i++) {
+            assertEquals(false, full.steps.get(i).isDelta());
+            assertEquals(true, Arrays.deepEquals(full.steps.get(i).table, delta.getTable(i)), "step " + i);
+            if (delta.steps.get(i).isDelta()) {
+                deltas++;
+                assertEquals(null, delta.steps.get(i).table);
+                assertEquals(true, delta.steps.get(i).toString().contains("\"pivotRow\":"));
+            }
+        }
+        assertNotEquals(0, deltas);
+    }
+
+    /**
+     * Solve the same problem with each step retention. The steps kept must be the
+     * same as the ones made when keeping every step.
+     */
+    @ParameterizedTest
+    @CsvSource({ "NONE,1", "SUMMARY,1", "SAMPLED,3", "LAST_N,2", "FULL,1" })
+    public void simplexStepRetention(String policy, int size) {
+        SimplexResponse full = solveStepProblem("BRANCH_AND_BOUND", null);
+        assertEquals(full.steps.size(), full.stepCount);
+
+        SimplexResponse res = solveStepProblem("BRANCH_AND_BOUND", null,
+                new StepRetention(Policy.valueOf(policy), size));
+        assertEquals(full.stepCount, res.stepCount);
+        assertEquals(full.pivotCount, res.pivotCount);
+
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < full.steps.size(); i++) {
+            final boolean last = i == full.steps.size() - 1;
+            if (policy.equals("FULL") || (policy.equals("SAMPLED") && (i % size == 0 || last))
+                    || (policy.equals("LAST_N") && i >= full.steps.size() - size)) {
+                expected.add(i);
+            }
+        }
+        assertEquals(expected.size(), res.steps.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(true, Arrays.deepEquals(full.steps.get(expected.get(i)).table, res.getTable(i)), "step " + i);
+        }
+        assertEquals(policy.equals("NONE"), res.toString().contains("\"summary\":null"));
+    }
+
+    /**
+     * Keep solves in a small store, and fetch a page of steps starting on a step
+     * only keeping its pivot. The first step of the page must have its whole
+     * table.
+     */
+    @Test
+    public void simplexStepPages() throws IOException, InterruptedException {
+        ArrayList<Constraint> constraints = new ArrayList<>();
+        constraints.add(new Constraint(new Fraction[] { Fraction.ONE, Fraction.ONE, Fraction.ONE }, Relationship.GEQ,
+                new Fraction(2)));
+        constraints.add(new Constraint(new Fraction[] { new Fraction(2), new Fraction(3), Fraction.ONE },
+                Relationship.LEQ, new Fraction(23, 2)));
+        SimplexSolver solver = new SimplexSolver(1000);
+        solver.setResolutionSteps(new SimplexResponse(StepEncoding.DELTA));
+        solver.solve(new ObjectiveFunction(new Fraction[] { new Fraction(3), new Fraction(2), new Fraction(4) }),
+                new ConstraintSet(constraints), GoalType.MAXIMIZE, new NonNegativeValues(true));
+        SimplexResponse res = solver.getResolutionSteps();
+
+        SolveStore store = new SolveStore(2, 60000);
+        String id = store.put(res);
+        String other = store.put(new SimplexResponse());
+        assertEquals(res, store.get(id));
+        store.put(new SimplexResponse());
+        // the oldest solve is dropped
+        assertEquals(null, store.get(id));
+        assertNotEquals(null, store.get(other));
+        assertEquals(2, store.size());
+
+        int from = 1;
+        while (!res.steps.get(from).isDelta()) {
+            from++;
+        }
+        StringWriter writer = new StringWriter();
+        res.writePage(writer, from, 2);
+        JsonNode page = new ObjectMapper().readTree(writer.toString());
+        assertEquals(id, page.get("id").asText());
+        assertEquals(res.steps.size(), page.get("total").asInt());
+        assertEquals(Math.min(2, res.steps.size() - from), page.get("steps").size());
+        JsonNode table = page.get("steps").get(0).get("table");
+        assertEquals(res.getTable(from).length, table.size());
+        assertEquals(res.getTable(from)[0][0].toString(), table.get(0).get(0).asText());
+
+        writer = new StringWriter();
+        res.writeJson(writer, false);
+        JsonNode summary = new ObjectMapper().readTree(writer.toString());
+        assertEquals(null, summary.get("steps"));
+        assertEquals(res.steps.size(), summary.get("keptSteps").asInt());
+
+        store = new SolveStore(2, 1);
+        id = store.put(new SimplexResponse());
+        Thread.sleep(5);
+        // the solve expired
+        assertEquals(null, store.get(id));
+    }
+
+    /**
+     * Listen to the steps of a branch and bound keeping none of them. The listener
+     * must be given every step, in the order they are kept when keeping all.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = { "NONE", "GOMORY", "BRANCH_AND_BOUND" })
+    public void simplexStepListener(String method) {
+        SimplexResponse full = solveStepProblem(method, null);
+
+        ArrayList<Fraction[][]> tables = new ArrayList<>();
+        SimplexResponse res = new SimplexResponse(StepEncoding.DELTA);
+        res.setStepListener((step, table) -> tables.add(table));
+        solveStepProblem(method, res, new StepRetention(Policy.NONE, 1));
+
+        assertEquals(0, res.steps.size());
+        assertEquals(full.steps.size(), tables.size());
+        for (int i = 0; i < tables.size(); i++) {
+            assertEquals(true, Arrays.deepEquals(full.steps.get(i).table, tables.get(i)), "step " + i);
+        }
+    }
+
+    /**
+     * Hash forms, used to tag the responses. The same form must give the same hash,
+     * and any change must give another one.
+     */
+    @Test
+    public void simplexFormHash() throws IOException {
+        Config.load();
+        final SimplexService service = new SimplexService();
+        String body = "{\"m\":2,\"n\":2,\"constants\":[4,6],\"objective\":[0,3,2],"
+                + "\"relationships\":[\"LEQ\",\"LEQ\"],\"coefs\":[[1,1],[1,3]],\"toMaximise\":true}";
+        // the same fields, in another order
+        String reordered = "{\"toMaximise\":true,\"coefs\":[[1,1],[1,3]],\"n\":2,\"m\":2,"
+                + "\"relationships\":[\"LEQ\",\"LEQ\"],\"objective\":[0,3,2],\"constants\":[4,6]}";
+        ObjectMapper mapper = new ObjectMapper();
+        SimplexForm form = mapper.readValue(body, SimplexForm.class);
+
+        String hash = service.hash(form);
+        assertNotEquals(null, hash);
+        assertEquals(hash, service.hash(mapper.readValue(body, SimplexForm.class)));
+        assertEquals(hash, service.hash(mapper.readValue(reordered, SimplexForm.class)));
+        assertEquals(null, service.hash(null));
+
+        form.constants[1] = 7;
+        assertNotEquals(hash, service.hash(form));
+        form.constants[1] = 6;
+        form.advanced.integerMethod = "GOMORY";
+        assertNotEquals(hash, service.hash(form));
+    }
+
+    /**
+     * Keep the steps as snapshots sharing their rows. Each step must keep the table
+     * it had when it was made, even after the next pivots, while the rows left as
+     * is are shared.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = { "NONE", "GOMORY", "BRANCH_AND_BOUND" })
+    public void simplexSharedSnapshots(String method) {
+        MatrixFractions matrix = new MatrixFractions(new Fraction[][] {
+                { Fraction.ONE, Fraction.ZERO }, { Fraction.ZERO, Fraction.ONE } });
+        Fraction[][] snapshot = matrix.snapshot();
+        matrix.setEntryFraction(0, 1, new Fraction(2));
+        assertEquals(Fraction.ZERO, snapshot[0][1]);
+        assertEquals(new Fraction(2), matrix.getEntryFraction(0, 1));
+        assertEquals(true, snapshot[1] == matrix.getDataRef()[1]);
+
+        // copy each table when it is made, before the next pivots
+        ArrayList<Fraction[][]> copies = new ArrayList<>();
+        SimplexResponse res = new SimplexResponse();
+        res.setStepListener((step, table) -> {
+            Fraction[][] copy = new Fraction[table.length][];
+            for (int i = 0; i < table.length; i++) {
+                copy[i] = table[i].clone();
+            }
+            copies.add(copy);
+        });
+        solveStepProblem(method, res);
+
+        assertEquals(copies.size(), res.steps.size());
+        for (int i = 0; i < copies.size(); i++) {
+            assertEquals(true, Arrays.deepEquals(copies.get(i), res.steps.get(i).table), "step " + i);
+        }
+    }
+
+    /**
+     * Solve a problem with budgets on the steps kept. Past one, the steps must be
+     * dropped, while the summary must still count every step.
+     */
+    @ParameterizedTest
+    @CsvSource({ "NONE, 0, 0, 0, false", "NONE, 2, 0, 0, true", "NONE, 0, 4, 0, true", "NONE, 0, 0, 500, true",
+            "BRANCH_AND_BOUND, 0, 0, 0, false", "BRANCH_AND_BOUND, 3, 0, 0, true",
+            "BRANCH_AND_BOUND, 0, 0, 2000, true", "BRANCH_AND_BOUND, 1000, 1000, 10000000, false" })
+    public void simplexStepBudget(String method, int maxSteps, int maxTableCells, long maxBytes,
+            boolean truncated) throws IOException {
+        SimplexResponse full = new SimplexResponse();
+        full.setBudget(0, 0, 0);
+        solveStepProblem(method, full);
+
+        SimplexResponse res = new SimplexResponse();
+        res.setBudget(maxSteps, maxTableCells, maxBytes);
+        solveStepProblem(method, res);
+
+        assertEquals(truncated, res.truncated);
+        assertEquals(truncated ? 0 : full.steps.size(), res.steps.size());
+        assertEquals(full.stepCount, res.stepCount);
+        assertEquals(full.pivotCount, res.pivotCount);
+        JsonNode json = new ObjectMapper().readTree(res.toString());
+        assertEquals(truncated, json.get("truncated").asBoolean());
+        assertEquals(full.stepCount, json.get("summary").get("steps").asLong());
+    }
+
+    /**
+     * Render the tables as LaTeX. The fragments must be formatted like the
+     * frontend does it, be cached up to the cache size, and each step must carry
+     * the fragments of its whole table, even when only its pivot is kept.
+     */
+    @Test
+    public void simplexLatexRenderer() throws IOException {
+        LatexRenderer latex = new LatexRenderer(3);
+        assertEquals("3", latex.render(new Fraction(3)));
+        assertEquals("-\\space3", latex.render(new Fraction(-3)));
+        assertEquals("\\frac{-\\space1}{2}", latex.render(new Fraction(-1, 2)));
+        assertEquals("\\frac{23}{2}", latex.render(new Fraction(23, 2)));
+        assertEquals(3, latex.size());
+
+        ArrayList<Constraint> constraints = new ArrayList<>();
+        constraints.add(new Constraint(new Fraction[] { Fraction.ONE, Fraction.ONE, Fraction.ONE }, Relationship.GEQ,
+                new Fraction(2)));
+        constraints.add(new Constraint(new Fraction[] { new Fraction(2), new Fraction(3), Fraction.ONE },
+                Relationship.LEQ, new Fraction(23, 2)));
+        SimplexSolver solver = new SimplexSolver(1000);
+        solver.setResolutionSteps(new SimplexResponse(StepEncoding.DELTA));
+        solver.solve(new ObjectiveFunction(new Fraction[] { new Fraction(3), new Fraction(2), new Fraction(4) }),
+                new ConstraintSet(constraints), GoalType.MAXIMIZE, new NonNegativeValues(true));
+        SimplexResponse res = solver.getResolutionSteps();
+
+        latex = new LatexRenderer(1000);
+        StringWriter writer = new StringWriter();
+        res.writeJson(writer, true, latex);
+        JsonNode steps = new ObjectMapper().readTree(writer.toString()).get("steps");
+        assertEquals(res.steps.size(), steps.size());
+        for (int i = 0; i < steps.size(); i++) {
+            Fraction[][] table = res.getTable(i);
+            JsonNode cells = steps.get(i).get("latex");
+            assertEquals(table.length, cells.size());
+            for (int row = 0; row < table.length; row++) {
+                for (int col = 0; col < table[row].length; col++) {
+                    assertEquals(latex.render(table[row][col]), cells.get(row).get(col).asText());
+                }
+            }
+        }
+        // without the renderer, nothing changes
+        writer = new StringWriter();
+        res.writeJson(writer, true, null);
+        assertEquals(res.toString(), writer.toString());
+        assertEquals(false, writer.toString().contains("\"latex\""));
+    }
+
+    /**
+     * Cache the problems solved. The same problem must be answered from the cache
+     * with the same response, even with options it ignores, while any change must
+     * solve it again. Without steps, the rows can be reordered or scaled. A problem
+     * stopped by the time limit isn't cached. The least recently used problems are dropped
+     * first.
+     */
+    @Test
+    public void simplexSolveCache() throws IOException, InterruptedException {
+        Config.load();
+        final SimplexService service = new SimplexService();
+        final SolveCache cache = service.getCache();
+        String body = "{\"m\":2,\"n\":2,\"constants\":[4,6],\"objective\":[0,3,2],"
+                + "\"relationships\":[\"LEQ\",\"LEQ\"],\"coefs\":[[1,1],[1,3]],\"toMaximise\":true}";
+        ObjectMapper mapper = new ObjectMapper();
+
+        SimplexResponse first = service.solve(mapper.readValue(body, SimplexForm.class));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+
+        SimplexForm form = mapper.readValue(body, SimplexForm.class);
+        // the integer method is ignored for a continuous problem
+        form.advanced.integerMethod = "GOMORY";
+        SimplexResponse second = service.solve(form);
+        assertEquals(1, cache.getHits());
+        assertNotEquals(first, second);
+        assertEquals(first.toString(), second.toString());
+
+        form.toInteger = true;
+        service.solve(form);
+        form.toInteger = false;
+        form.constants[1] = 7;
+        service.solve(form);
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(3, cache.size());
+
+        // the listener is given every step, so the problem is solved again
+        List<Integer> listened = new ArrayList<>();
+        service.solve(mapper.readValue(body, SimplexForm.class), (step, table) -> listened.add(table.length));
+        assertEquals(first.stepCount, listened.size());
+        assertEquals(1, cache.getHits());
+
+        // the gap left by the time limit could be closed with more time
+        SimplexForm parity = parityForm(21);
+        parity.advanced.timeLimit = 100;
+        for (int i = 0; i < 2; i++) {
+            assertEquals(Feasibility.FEASIBLE_GAP, service.solve(parity).feasibility);
+        }
+        assertEquals(1, cache.getHits());
+        assertEquals(5, cache.getMisses());
+        assertEquals(3, cache.size());
+
+        // the rows reordered or scaled give other steps, so they are solved again
+        form = mapper.readValue(body, SimplexForm.class);
+        form.constants = new double[] { 12, 4 };
+        form.coefs = new double[][] { { 2, 6 }, { 1, 1 } };
+        SimplexResponse reordered = service.solve(form);
+        assertSameSteps(new SimplexService().solve(form), reordered);
+        assertEquals(1, cache.getHits());
+        assertEquals(6, cache.getMisses());
+
+        // without any step, they are the same problem
+        form.advanced.stepRetention = "NONE";
+        service.solve(form);
+        form.constants = new double[] { 4, 6 };
+        form.coefs = new double[][] { { 1, 1 }, { 1, 3 } };
+        SimplexResponse canonical = service.solve(form);
+        assertEquals(2, cache.getHits());
+        assertSameSteps(new SimplexService().solve(form), canonical);
+        form.toInteger = true;
+        form.advanced.integerMethod = "GOMORY";
+        service.solve(form);
+        form.constants = new double[] { 6, 8 };
+        form.coefs = new double[][] { { 1, 3 }, { 2, 2 } };
+        service.solve(form);
+        assertEquals(3, cache.getHits());
+        // but the slack of a fractional row must be integer too
+        form.constants = new double[] { 2, 6 };
+        form.coefs = new double[][] { { 0.5, 0.5 }, { 1, 3 } };
+        service.solve(form);
+        assertEquals(3, cache.getHits());
+        assertEquals(9, cache.getMisses());
+
+        SolveCache lru = new SolveCache(2, 60000);
+        lru.put("a", first);
+        lru.put("b", first);
+        assertEquals(first, lru.get("a"));
+        lru.put("c", first);
+        assertEquals(null, lru.get("b"));
+        assertEquals(first, lru.get("a"));
+        assertEquals(1, lru.getEvictions());
+
+        SolveCache expiring = new SolveCache(2, 1);
+        expiring.put("a", first);
+        Thread.sleep(5);
+        assertEquals(null, expiring.get("a"));
+        assertEquals(0, expiring.size());
+        // a value put again lives from its last put
+        expiring = new SolveCache(2, 200);
+        expiring.put("a", first);
+        Thread.sleep(120);
+        expiring.put("a", reordered);
+        Thread.sleep(120);
+        expiring.put("b", first);
+        assertEquals(2, expiring.size());
+        assertEquals(reordered, expiring.get("a"));
+        // the least recently used value isn't the first to expire
+        Thread.sleep(120);
+        expiring.put("c", first);
+        assertEquals(2, expiring.size());
+        assertEquals(null, expiring.get("a"));
+        assertEquals(first, expiring.get("b"));
+        SolveCache disabled = new SolveCache(0, 1);
+        disabled.put("a", first);
+        assertEquals(0, disabled.size());
+    }
+
+    /**
+     * Solve the same problem from many requests at once. It must only be solved
+     * once, the other requests waiting for its response.
+     */
+    @Test
+    public void simplexCoalescedSolves() throws InterruptedException, ExecutionException {
+        Config.load();
+        final SimplexService service = new SimplexService();
+        final int dimensions = 10;
+        final int requests = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        List<Future<SimplexResponse>> responses = new ArrayList<>();
+        for (int r = 0; r < requests; r++) {
+            responses.add(executor.submit(() -> {
+                // long enough to be solved by the others meanwhile
+                SimplexForm form = kleeMintyForm(dimensions);
+                start.await();
+                return service.solve(form);
+            }));
+        }
+        start.countDown();
+
+        // every request gets the steps of a solve alone
+        SimplexResponse alone = new SimplexService().solve(kleeMintyForm(dimensions));
+        for (Future<SimplexResponse> response : responses) {
+            SimplexResponse res = response.get();
+            assertEquals(Feasibility.FEASIBLE, res.feasibility);
+            assertEquals(Math.pow(5, dimensions), res.optimum.doubleValue());
+            assertSameSteps(alone, res);
+        }
+        executor.shutdown();
+
+        // each request either waited, found the response cached, or solved it
+        final SolveCache cache = service.getCache();
+        assertEquals(requests, cache.getHits() + cache.getMisses());
+        assertEquals(1, cache.getMisses() - service.getCoalesced());
+    }
+
+    /**
+     * Interrupt a request solving a problem while another one waits for it. The
+     * waiting request must not be given the cancelled response, but solve the
+     * problem itself.
+     */
+    @Test
+    public void simplexCoalescedCancelled() throws Exception {
+        Config.load();
+        final SolverPool pool = new SolverPool(1, 2);
+        final SimplexService service = new SimplexService();
+        service.setSolverPool(pool);
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+
+        // keep the thread busy, so the leader waits in the queue
+        final CountDownLatch release = new CountDownLatch(1);
+        Future<Boolean> busy = clients.submit(() -> pool.run(() -> release.await(10, TimeUnit.SECONDS)));
+        waitFor(() -> pool.getActive() == 1);
+        final AtomicReference<SimplexResponse> cancelled = new AtomicReference<>();
+        Thread leader = new Thread(() -> cancelled.set(service.solve(kleeMintyForm(3))));
+        leader.start();
+        waitFor(() -> pool.getQueued() == 1);
+        Future<SimplexResponse> follower = clients.submit(() -> service.solve(kleeMintyForm(3)));
+        waitFor(() -> service.getCoalesced() == 1);
+
+        leader.interrupt();
+        leader.join(10000);
+        assertEquals("{\"cancelled\":true}", cancelled.get().error);
+        // the follower leads once the leader left the queue
+        waitFor(() -> pool.getQueued() == 1);
+        release.countDown();
+        assertEquals(true, busy.get());
+        SimplexResponse res = follower.get();
+        assertEquals(HttpStatus.OK.value(), res.code);
+        assertEquals(new SimplexService().solve(kleeMintyForm(3)).optimum, res.optimum);
+        clients.shutdown();
+        pool.shutdown();
+    }
+
+    /**
+     * Solve forms as jobs. A job must give the same response as a direct solve,
+     * and cancelling a queued or running job must free its thread at once. The
+     * jobs must be solved by the solver threads, waiting for a place in their
+     * queue.
+     */
+    @Test
+    public void simplexSolveJobs() throws IOException, InterruptedException {
+        Config.load();
+        final SimplexService service = new SimplexService();
+        final SolveJobs jobs = new SolveJobs(service, 1, 2, 10, 60000);
+
+        // a cancelled solver stops at its first iteration
+        SimplexSolver solver = new SimplexSolver();
+        solver.cancel();
+        assertThrows(SolveCancelledException.class,
+                () -> solver.solve(new ObjectiveFunction(new Fraction[] { Fraction.ONE }),
+                        new ConstraintSet(new Constraint(new Fraction[] { Fraction.ONE }, Relationship.LEQ,
+                                Fraction.ONE)),
+                        GoalType.MAXIMIZE, new NonNegativeValues(true)));
+
+        // a job cancelled while running stops at the next iteration
+        SolveJob direct = new SolveJob("direct");
+        SimplexResponse cancelled = service.solve(kleeMintyForm(6), (step, table) -> direct.cancel(), direct);
+        assertEquals(HttpStatus.NOT_ACCEPTABLE.value(), cancelled.code);
+        assertEquals("{\"cancelled\":true}", cancelled.error);
+        assertEquals(1, cancelled.stepCount);
+        assertEquals(SolveJob.Status.CANCELLED, direct.getStatus());
+
+        // thousands of pivots, long enough to be cancelled while running
+        SimplexForm slow = kleeMintyForm(13);
+        slow.advanced.stepRetention = "SUMMARY";
+        SolveJob running = jobs.submit(slow);
+        SolveJob queued = jobs.submit(kleeMintyForm(6));
+        assertThrows(RejectedExecutionException.class, () -> {
+            jobs.submit(kleeMintyForm(3));
+            jobs.submit(kleeMintyForm(4));
+        });
+        while (running.getStatus() == SolveJob.Status.QUEUED) {
+            Thread.sleep(1);
+        }
+        assertEquals(SolveJob.Status.RUNNING, running.getStatus());
+
+        assertEquals(queued, jobs.cancel(queued.getId()));
+        assertEquals(running, jobs.cancel(running.getId()));
+        assertEquals(SolveJob.Status.CANCELLED, queued.getStatus());
+        assertEquals(SolveJob.Status.CANCELLED, running.getStatus());
+        assertEquals(null, running.getResponse());
+        assertEquals(null, jobs.cancel("unknown"));
+
+        SolveJob job = jobs.submit(kleeMintyForm(5));
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (job.getStatus() != SolveJob.Status.DONE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(SolveJob.Status.DONE, job.getStatus());
+        assertEquals(job, jobs.get(job.getId()));
+        assertEquals(service.solve(kleeMintyForm(5)).toString(), job.getResponse().toString());
+        // cancelling a job done doesn't change it
+        assertEquals(false, job.cancel());
+        assertEquals(SolveJob.Status.DONE, job.getStatus());
+
+        StringWriter writer = new StringWriter();
+        job.writeJson(writer, null);
+        JsonNode json = new ObjectMapper().readTree(writer.toString());
+        assertEquals(job.getId(), json.get("id").asText());
+        assertEquals("DONE", json.get("status").asText());
+        assertEquals(Math.pow(5, 5), json.get("result").get("optimum").asDouble());
+        jobs.shutdown();
+
+        // more jobs than solver threads, the last ones wait for a place
+        final SolverPool pool = new SolverPool(1, 1);
+        final SimplexService pooled = new SimplexService();
+        pooled.setSolverPool(pool);
+        final SolveJobs pooledJobs = new SolveJobs(pooled, 3, 1, 10, 60000);
+        SolveJob first = pooledJobs.submit(slow);
+        SimplexForm other = kleeMintyForm(12);
+        other.advanced.stepRetention = "SUMMARY";
+        SolveJob second = pooledJobs.submit(other);
+        SolveJob third = pooledJobs.submit(kleeMintyForm(3));
+        waitFor(() -> pool.getActive() == 1 && pool.getQueued() == 1);
+        assertEquals(SolveJob.Status.RUNNING, third.getStatus());
+        // the job waiting for a place leaves at once
+        pooledJobs.cancel(third.getId());
+        pooledJobs.cancel(second.getId());
+        waitFor(() -> pool.getQueued() == 0);
+        pooledJobs.cancel(first.getId());
+        waitFor(() -> pool.getActive() == 0);
+        assertEquals(SolveJob.Status.CANCELLED, third.getStatus());
+        assertEquals(null, third.getResponse());
+
+        SolveJob last = pooledJobs.submit(kleeMintyForm(5));
+        waitFor(() -> last.getStatus() == SolveJob.Status.DONE);
+        assertSameSteps(service.solve(kleeMintyForm(5)), last.getResponse());
+        pooledJobs.shutdown();
+        pool.shutdown();
+    }
+
+    /**
+     * Run the resolutions on the solver threads. What they throw must be thrown
+     * again as is, and once every thread is busy and the queue is full, the next
+     * resolutions must be refused at once.
+     */
+    @Test
+    public void simplexSolverPool() throws Exception {
+        Config.load();
+        final SolverPool pool = new SolverPool(1, 1);
+        assertEquals(true, pool.run(() -> !Thread.currentThread().isVirtual()));
+        assertThrows(UnboundedSolutionException.class, () -> pool.run(() -> {
+            throw new UnboundedSolutionException();
+        }));
+
+        final SimplexService service = new SimplexService();
+        service.setSolverPool(pool);
+        assertEquals(new SimplexService().solve(kleeMintyForm(3)).optimum, service.solve(kleeMintyForm(3)).optimum);
+
+        // the nodes are explored by the threads of the pool, none is added for them
+        ObjectiveFunction f = new ObjectiveFunction(
+                new Fraction[] { new Fraction(8), new Fraction(11), new Fraction(6), new Fraction(4) });
+        ArrayList<Constraint> constraints = new ArrayList<>();
+        constraints.add(new Constraint(
+                new Fraction[] { new Fraction(5), new Fraction(7), new Fraction(4), new Fraction(3) },
+                Relationship.LEQ, new Fraction(14)));
+        for (int i = 0; i < 4; i++) {
+            Fraction[] coefs = new Fraction[] { Fraction.ZERO, Fraction.ZERO, Fraction.ZERO, Fraction.ZERO };
+            coefs[i] = Fraction.ONE;
+            constraints.add(new Constraint(coefs, Relationship.LEQ, Fraction.ONE));
+        }
+        for (boolean deterministic : new boolean[] { true, false }) {
+            assertEquals(new Fraction(21), pool.run(() -> new SimplexSolver(1000).solve(
+                    f,
+                    new ConstraintSet(constraints),
+                    GoalType.MAXIMIZE,
+                    new NonNegativeValues(true),
+                    IntegerMethod.BRANCH_AND_BOUND,
+                    new ParallelSearch(4, deterministic, pool.getNodePool())).getValue()));
+        }
+        assertEquals(1, pool.getNodePool().getPoolSize());
+
+        // fill the thread and the queue
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        List<Future<Boolean>> busy = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            busy.add(clients.submit(() -> pool.run(() -> release.await(10, TimeUnit.SECONDS))));
+            // one at a time, the queue only takes one and the thread must take the first
+            final long deadline = System.currentTimeMillis() + 10000;
+            while ((pool.getActive() < 1 || pool.getQueued() < i - 1) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+        assertEquals(1, pool.getActive());
+        assertEquals(1, pool.getQueued());
+        assertThrows(RejectedExecutionException.class, () -> pool.run(() -> true));
+        SimplexResponse refused = service.solve(kleeMintyForm(4));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), refused.code);
+        assertEquals("{\"solvers\":{\"maxQueued\":1}}", refused.error);
+
+        release.countDown();
+        for (Future<Boolean> future : busy) {
+            assertEquals(true, future.get());
+        }
+        clients.shutdown();
+        // the refused problem isn't cached
+        assertEquals(HttpStatus.OK.value(), service.solve(kleeMintyForm(4)).code);
+        pool.shutdown();
+    }
+
+    @Test
+    public void simplexBatch() throws Exception {
+        Config.load();
+        final SimplexService service = new SimplexService();
+        assertThrows(IllegalArgumentException.class, () -> new BatchSolver(service, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new BatchSolver(service, 2, 0));
+        final BatchSolver batch = new BatchSolver(service, 2, 4);
+
+        // a bad form doesn't stop the others, and the forms past the size are refused
+        List<SimplexForm> forms = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            forms.add(i == 1 ? null : kleeMintyForm(i + 2));
+        }
+        List<Integer> indexes = new ArrayList<>();
+        List<SimplexResponse> results = new ArrayList<>();
+        assertEquals(5, batch.solve(forms.iterator(), (index, res) -> {
+            indexes.add(index);
+            results.add(res);
+        }));
+        assertEquals(List.of(0, 1, 2, 3, 4), indexes);
+        assertEquals(HttpStatus.NOT_ACCEPTABLE.value(), results.get(1).code);
+        for (int i : new int[] { 0, 2, 3 }) {
+            // the same as solved alone
+            assertSameSteps(new SimplexService().solve(kleeMintyForm(i + 2)), results.get(i));
+        }
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE.value(), results.get(4).code);
+        assertEquals("{\"batch\":{\"maxSize\":4}}", results.get(4).error);
+
+        // a client gone ends the batch
+        assertThrows(IOException.class, () -> batch.solve(forms.iterator(), (index, res) -> {
+            throw new IOException("gone");
+        }));
+        batch.shutdown();
+
+        // the forms wait for a full queue instead of being refused
+        final SolverPool pool = new SolverPool(1, 1);
+        service.setSolverPool(pool);
+        final BatchSolver wide = new BatchSolver(service, 6, 10);
+        forms.clear();
+        for (int i = 0; i < 6; i++) {
+            forms.add(kleeMintyForm(i + 2));
+        }
+        results.clear();
+        indexes.clear();
+        assertEquals(6, wide.solve(forms.iterator(), (index, res) -> {
+            indexes.add(index);
+            results.add(res);
+        }));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), indexes);
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(HttpStatus.OK.value(), results.get(i).code);
+            assertSameSteps(new SimplexService().solve(kleeMintyForm(i + 2)), results.get(i));
+        }
+
+        // the forms being solved by a batch ended early are cancelled
+        final Iterator<SimplexForm> broken = new Iterator<SimplexForm>() {
+            private int read = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public SimplexForm next() {
+                if (read == 2) {
+                    try {
+                        waitFor(() -> pool.getActive() == 1 && pool.getQueued() == 1);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    throw new UncheckedIOException(new IOException("gone"));
+                }
+                // too long to ever be solved
+                return parityForm(21 + 2 * read++);
+            }
+        };
+        assertThrows(IOException.class, () -> wide.solve(broken, (index, res) -> {
+        }));
+        waitFor(() -> pool.getActive() == 0 && pool.getQueued() == 0);
+        wide.shutdown();
+        pool.shutdown();
+    }
+
+    /**
+     * Wait until a condition holds, failing after 10 seconds.
+     *
+     * @param condition The condition to wait for.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("condition not reached in time");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Check two responses describe the same resolution: the same point, optimum,
+     * and steps.
+     *
+     * @param expected The response expected.
+     * @param actual   The response given.
+     */
+    private static void assertSameSteps(SimplexResponse expected, SimplexResponse actual) {
+        assertEquals(expected.feasibility, actual.feasibility);
+        assertEquals(expected.optimum, actual.optimum);
+        assertEquals(Arrays.toString(expected.values), Arrays.toString(actual.values));
+        assertEquals(expected.steps.size(), actual.steps.size());
+        for (int i = 0; i < expected.steps.size(); i++) {
+            assertEquals(Arrays.deepToString(expected.getTable(i)), Arrays.deepToString(actual.getTable(i)));
+        }
+    }
+
+    /**
+     * Solve the problem of the step tests: a two phase problem, whose relaxed
+     * optimum 124/11 is fractional, and whose integer optimum is 10. How the
+     * steps are kept or listened to must not change the optimum.
+     *
+     * @param method  The integer method.
+     * @param steps   The response where the steps are added, or null for a new
+     *                one.
+     * @param options The other options of the resolution.
+     * @return The response with the steps.
+     */
+    private static SimplexResponse solveStepProblem(String method, SimplexResponse steps, SimplexData... options) {
+        ArrayList<Constraint> constraints = new ArrayList<>();
+        constraints.add(new Constraint(new Fraction[] { Fraction.ONE, Fraction.ONE, Fraction.ONE }, Relationship.GEQ,
+                new Fraction(2)));
+        constraints.add(new Constraint(new Fraction[] { new Fraction(2), new Fraction(3), Fraction.ONE },
+                Relationship.LEQ, new Fraction(11)));
+        constraints.add(new Constraint(new Fraction[] { new Fraction(3), Fraction.ONE, new Fraction(4) },
+                Relationship.LEQ, new Fraction(8)));
+        ArrayList<SimplexData> datas = new ArrayList<>(List.of(
+                new ObjectiveFunction(new Fraction[] { new Fraction(3), new Fraction(2), new Fraction(4) }),
+                new ConstraintSet(constraints),
+                GoalType.MAXIMIZE,
+                new NonNegativeValues(true),
+                IntegerMethod.valueOf(method),
+                new ParallelSearch(1, true),
+                new HeuristicBudget(0)));
+        datas.addAll(Arrays.asList(options));
+
+        SimplexSolver solver = new SimplexSolver(1000);
+        if (steps != null) {
+            solver.setResolutionSteps(steps);
+        }
+        PointFractionPair optSolution = solver.solve(datas.toArray(new SimplexData[0]));
+        if (method.equals("NONE")) {
+            assertEquals(new Fraction(124, 11), optSolution.getValue());
+        } else {
+            assertEquals(new Fraction(10), optSolution.getValue());
+            assertEquals("[0, 3, 1]", Arrays.toString(optSolution.getPoint()));
+        }
+        return solver.getResolutionSteps();
+    }
+
+    /**
+     * Create the form of a Klee-Minty cube, where the Dantzig rule goes through
+     * 2^dimensions vertices.
+     *
+     * @param dimensions The number of dimensions of the cube.
+     * @return The form of the cube.
+     */
+    private static SimplexForm kleeMintyForm(int dimensions) {
+        SimplexForm form = new SimplexForm();
+        form.m = dimensions;
+        form.n = dimensions;
+        form.constants = new double[dimensions];
+        form.objective = new double[dimensions + 1];
+        form.relationships = new String[dimensions];
+        form.coefs = new double[dimensions][dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            form.constants[i] = Math.pow(5, i + 1);
+            form.objective[i + 1] = Math.pow(2, dimensions - i - 1);
+            form.relationships[i] = "LEQ";
+            // the coefficients of the forms are negated
+            for (int j = 0; j < i; j++) {
+                form.coefs[i][j] = -Math.pow(2, i - j + 1);
+            }
+            form.coefs[i][i] = -1;
+        }
+        return form;
+    }
+
+    /**
+     * Create the form of a binary knapsack whose items all weigh 2, for an odd
+     * capacity. The relaxation always fills half of an item, so the branch and
+     * bound explores about 2^items nodes to prove the optimum, found at once by
+     * the heuristics.
+     *
+     * @param items The number of items, their values all close to 1.
+     * @return The form of the knapsack.
+     */
+    private static SimplexForm parityForm(int items) {
+        SimplexForm form = new SimplexForm();
+        form.m = items + 1;
+        form.n = items;
+        form.constants = new double[items + 1];
+        form.objective = new double[items + 1];
+        form.relationships = new String[items + 1];
+        form.coefs = new double[items + 1][items];
+        form.constants[0] = 2 * (items / 2) + 1;
+        form.relationships[0] = "LEQ";
+        for (int i = 0; i < items; i++) {
+            // distinct values, so the objective isn't integer
+            form.objective[i + 1] = 1 + (i + 1) / 1000.0;
+            // the coefficients of the forms are negated
+            form.coefs[0][i] = -2;
+            form.coefs[i + 1][i] = -1;
+            form.constants[i + 1] = 1;
+            form.relationships[i + 1] = "LEQ";
+        }
+        form.toMaximise = true;
+        form.toInteger = true;
+        form.advanced.integerMethod = "BRANCH_AND_BOUND";
+        return form;
+    }
+
     /**
      * Run the Klee-Minty cube to see if we don't loop infinitely, and that we're
      * somewhat efficient.
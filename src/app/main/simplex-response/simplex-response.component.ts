@@ -95,6 +95,14 @@ export class SimplexResponseComponent {
                 res += " .";
                 return res;
             }
+            case SimplexFeasibility.FEASIBLE_GAP: {
+                let res = `\\text{La meilleure solution trouvée est } ${this.objName} = ${formatFraction(this.response.optimum)} \\text{avec }`;
+                this.response.values.forEach((v, i) => {
+                    res += `${this.coefName}_{${i + 1}} = ${formatFraction(v)} \\space `;
+                });
+                res += `\\text{, la borne sur l'optimum est } ${formatFraction(this.response.bound ?? this.response.optimum)} .`;
+                return res;
+            }
             case SimplexFeasibility.INFEASIBLE:
                 return "\\text{Il n'y a pas de solution.}";
             case SimplexFeasibility.UNBOUNDED:
@@ -216,7 +224,8 @@ export class SimplexResponseComponent {
                         latex += " \\color{BLUE} "
                     }
                 }
-                latex += ` ${formatFraction(step.table[i][j], { noSpace: true, showOnes: true })}`;
+                // the server may have rendered the cells already
+                latex += ` ${step.latex?.[i]?.[j] ?? formatFraction(step.table[i][j], { noSpace: true, showOnes: true })}`;
                 if (j < width - 1) {
                     latex += " & ";
                 }
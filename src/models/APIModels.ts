@@ -12,6 +12,8 @@ export enum SimplexFeasibility {
     UNBOUNDED = 2,
     /** Too many iterations made. */
     ITERATIONS = 3,
+    /** Problem feasible, but the search stopped before proving the optimum. */
+    FEASIBLE_GAP = 4,
 }
 
 /**
@@ -32,17 +34,56 @@ export interface SimplexResponse {
      * It's a string because it's a fraction.
      */
     optimum: string;
+    /**
+     * The bound on the optimum if feasibility is feasible. Equal to the optimum,
+     * except with FEASIBLE_GAP.
+     * It's a string because it's a fraction.
+     */
+    bound?: string;
     /**
      * The values of the variables if feasibility is feasible.
      * They're string because they're fractions.
      */
     values: string[];
-    /** Each simplex steps made. */
+    /**
+     * Amount of steps made and time taken, even for the steps not sent.
+     * Null if no step is kept at all.
+     */
+    summary?: SimplexSummary | null;
+    /**
+     * Whether the steps have been dropped by the server because they were too
+     * large. Only the summary is sent then.
+     */
+    truncated?: boolean;
+    /**
+     * Id of the solve kept on the server, to fetch its steps page by page.
+     * Only given when solving without the steps.
+     */
+    id?: string;
+    /** Amount of steps that can be fetched. Only given when solving without the steps. */
+    keptSteps?: number;
+    /** Each simplex steps made, or only some of them depending on the step retention. */
     steps: SimplexStep[];
     /** Labels of each columns, lambda included. */
     labels: string[];
 }
 
+/**
+ * Describe the steps made during a simplex method resolution.
+ */
+export interface SimplexSummary {
+    /** Amount of steps made, sent or not. */
+    steps: number;
+    /** Amount of pivots made. */
+    pivots: number;
+    /** Amount of pivots made in the phase 1. */
+    phase1Pivots: number;
+    /** Amount of rows added, by the cuts and the branches. */
+    addedRows: number;
+    /** Time taken by the resolution, in milliseconds. */
+    time: number;
+}
+
 /**
  * Describe one step made during a simplex method resolution.
  */
@@ -83,6 +124,12 @@ export interface SimplexStep {
      */
     table: string[][];
 
+    /**
+     * LaTeX fragment of each cell of the table, rendered by the server. Only
+     * given when asked for with the `latex=true` parameter of the Accept header.
+     */
+    latex?: string[][];
+
     /**
      * Column index of the basic variables. The index 0 is the first variable
      * (L or x0 depending on the phase 1 or 2, respectively).
@@ -93,6 +140,46 @@ export interface SimplexStep {
     basicId: number[];
 }
 
+/**
+ * A page of the steps of a solve kept on the server.
+ */
+export interface SimplexStepPage {
+    /** Id of the solve. */
+    id: string;
+    /** Index of the first step of the page. */
+    from: number;
+    /** Amount of steps that can be fetched. */
+    total: number;
+    /** The steps of the page. The first one always has its whole table. */
+    steps: SimplexStep[];
+}
+
+/**
+ * Status of a solve made in the background.
+ */
+export enum SimplexJobStatus {
+    /** Waiting to be solved. */
+    QUEUED = "QUEUED",
+    /** Being solved. */
+    RUNNING = "RUNNING",
+    /** Solved, the result is given. */
+    DONE = "DONE",
+    /** Cancelled before being solved. */
+    CANCELLED = "CANCELLED",
+}
+
+/**
+ * A solve made in the background, polled until it is done.
+ */
+export interface SimplexJob {
+    /** Id of the job. */
+    id: string;
+    /** Status of the job. */
+    status: SimplexJobStatus;
+    /** Response of the solve, with the steps. Only given once done. */
+    result?: SimplexResponse;
+}
+
 /**
  * Describe the modelisation form of a problem looks like.
  */
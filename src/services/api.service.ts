@@ -1,12 +1,15 @@
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpHeaders } from '@angular/common/http';
 import { inject, Injectable } from '@angular/core';
 import { environment } from '../environments/environment';
-import { SimplexForm, SimplexResponse } from '../models/APIModels';
+import { SimplexForm, SimplexJob, SimplexResponse, SimplexStepPage } from '../models/APIModels';
 import { catchError, timeout } from "rxjs/operators"
 import { of, TimeoutError } from 'rxjs';
 
 const ApiUrl = environment.API_URL + ":" + environment.API_PORT + "/";
 
+/** Ask the server to render the tables as LaTeX along the JSON. */
+const LatexHeaders = new HttpHeaders({ Accept: "application/json;latex=true" });
+
 @Injectable({
     providedIn: 'root'
 })
@@ -20,9 +23,60 @@ export class ApiService {
                 "",
                 content,
                 "Sending simplex inputs",
+                environment.TIMEOUTS.SIMPLEX,
+                LatexHeaders
+            )
+        },
+        /** Solve without the steps, they are fetched later with `steps`. */
+        solveWithoutSteps: (content: SimplexForm) => {
+            return this.sendApiRequest<SimplexResponse>(
+                "POST",
+                "solves",
+                content,
+                "Sending simplex inputs",
                 environment.TIMEOUTS.SIMPLEX
             )
         },
+        /** Fetch a page of the steps of a solve, using the id of its response. */
+        steps: (id: string, from: number, limit?: number) => {
+            return this.sendApiRequest<SimplexStepPage>(
+                "GET",
+                `solves/${encodeURIComponent(id)}/steps?from=${from}` + (limit ? `&limit=${limit}` : ""),
+                {},
+                "Fetching simplex steps",
+                undefined,
+                LatexHeaders
+            )
+        },
+        /** Solve in the background, the job is then polled with `job`. */
+        submitJob: (content: SimplexForm) => {
+            return this.sendApiRequest<SimplexJob>(
+                "POST",
+                "jobs",
+                content,
+                "Submitting simplex job"
+            )
+        },
+        /** Fetch the status of a job, and its result once done. */
+        job: (id: string) => {
+            return this.sendApiRequest<SimplexJob>(
+                "GET",
+                `jobs/${encodeURIComponent(id)}`,
+                {},
+                undefined,
+                undefined,
+                LatexHeaders
+            )
+        },
+        /** Cancel a job, if it isn't done. */
+        cancelJob: (id: string) => {
+            return this.sendApiRequest<SimplexJob>(
+                "DELETE",
+                `jobs/${encodeURIComponent(id)}`,
+                {},
+                "Cancelling simplex job"
+            )
+        },
     }
 
     private sendApiRequest<T>(
@@ -30,7 +84,8 @@ export class ApiService {
         endpoint: string,
         parameters: object = {},
         message?: string,
-        maxTimeout?: number
+        maxTimeout?: number,
+        headers?: HttpHeaders
     ) {
         const urlParameters = parameters != undefined && Object.keys(parameters).length > 0
             ? "?data=" + JSON.stringify(parameters)
@@ -47,7 +102,7 @@ export class ApiService {
 
         switch (method) {
             case "GET":
-                return this.http.get<T>(ApiUrl + endpoint + urlParameters).pipe<T, T | null>(
+                return this.http.get<T>(ApiUrl + endpoint + urlParameters, { headers }).pipe<T, T | null>(
                     timeout(maxTimeout),
                     catchError((error) => {
                         if (error instanceof TimeoutError) {
@@ -59,7 +114,7 @@ export class ApiService {
                     })
                 );
             case "POST":
-                return this.http.post<T>(ApiUrl + endpoint, parameters).pipe<T, T | null>(
+                return this.http.post<T>(ApiUrl + endpoint, parameters, { headers }).pipe<T, T | null>(
                     timeout(maxTimeout),
                     catchError((error) => {
                         if (error instanceof TimeoutError) {